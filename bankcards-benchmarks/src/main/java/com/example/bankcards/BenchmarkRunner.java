@@ -0,0 +1,39 @@
+package com.example.bankcards;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Runs the benchmarks with the GC profiler, for allocation rates, and writes the results to
+ * {@code results/<timestamp>.json} unless {@code -rff} names another file. Other JMH options, e.g. a benchmark
+ * regex, are passed through:
+ * <pre>
+ * java -jar target/benchmarks.jar JwtService
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine).addProfiler(GCProfiler.class);
+        if (commandLine.getResult().hasValue()) {
+            options.resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON));
+        } else {
+            Path results = Files.createDirectories(Path.of("results"));
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            options.resultFormat(ResultFormatType.JSON).result(results.resolve(stamp + ".json").toString());
+        }
+        Options built = options.build();
+        new Runner(built).run();
+    }
+}
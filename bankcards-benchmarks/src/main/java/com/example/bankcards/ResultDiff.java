@@ -0,0 +1,67 @@
+package com.example.bankcards;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JSON result files benchmark by benchmark: the primary score, and the bytes allocated per
+ * operation where the GC profiler ran.
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.bankcards.ResultDiff results/before.json results/after.json
+ * </pre>
+ */
+public class ResultDiff {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: ResultDiff <before.json> <after.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> before = read(args[0]);
+        Map<String, JsonNode> after = read(args[1]);
+
+        System.out.printf("%-70s %14s %14s %8s %12s %12s%n",
+                "benchmark", "before", "after", "change", "B/op before", "B/op after");
+        after.forEach((key, result) -> {
+            JsonNode previous = before.get(key);
+            double score = result.at("/primaryMetric/score").asDouble();
+            String unit = result.at("/primaryMetric/scoreUnit").asText();
+            if (previous == null) {
+                System.out.printf("%-70s %14s %14.3f %8s %12s %12s  %s%n",
+                        key, "-", score, "new", "-", allocation(result), unit);
+                return;
+            }
+            double previousScore = previous.at("/primaryMetric/score").asDouble();
+            System.out.printf("%-70s %14.3f %14.3f %+7.1f%% %12s %12s  %s%n", key, previousScore, score,
+                    100 * (score - previousScore) / previousScore, allocation(previous), allocation(result), unit);
+        });
+        before.keySet().stream()
+                .filter(key -> !after.containsKey(key))
+                .forEach(key -> System.out.printf("%-70s %14s%n", key, "removed"));
+    }
+
+    private static Map<String, JsonNode> read(String file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(file))) {
+            String benchmark = result.get("benchmark").asText();
+            String name = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+            StringBuilder key = new StringBuilder(name).append(' ').append(result.get("mode").asText());
+            result.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static String allocation(JsonNode result) {
+        JsonNode allocation = result.path("secondaryMetrics").path(ALLOCATION);
+        return allocation.isMissingNode() ? "-" : String.format("%.0f", allocation.path("score").asDouble());
+    }
+}
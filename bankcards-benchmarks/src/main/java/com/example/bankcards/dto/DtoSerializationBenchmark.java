@@ -0,0 +1,65 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.UserRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the transfer and user dtos to JSON with an object mapper configured as Spring Boot configures the
+ * one behind the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private TransferDto transfer;
+    private UserDto user;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        transfer = new TransferDto(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                new BigDecimal("125.50"), "Rent", LocalDateTime.now());
+        user = new UserDto();
+        user.setId(UUID.randomUUID());
+        user.setLogin("jdoe");
+        user.setEmail("jdoe@example.com");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setRole(UserRole.USER);
+        user.setCreatedAt(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public byte[] transferDto() throws Exception {
+        return objectMapper.writeValueAsBytes(transfer);
+    }
+
+    @Benchmark
+    public byte[] userDto() throws Exception {
+        return objectMapper.writeValueAsBytes(user);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.UserRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Writing a page of {@value #PAGE_SIZE} card, transfer and user dtos as JSON, CBOR and Smile, in the envelopes
+ * the list endpoints return, and a page of cards in the {@code PageImpl} form they returned before. The encoded
+ * size of every page is printed once per trial:
+ * <pre>
+ * java -jar target/benchmarks.jar PageSerialization
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+    private PageImpl<CardDto> cardPageImpl;
+    private PageDto<CardDto> cardPage;
+    private SlicePage<TransferDto> transferPage;
+    private PageDto<UserDto> userPage;
+
+    @Setup
+    public void setUp() throws Exception {
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            default -> throw new IllegalArgumentException(format);
+        };
+        objectMapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+        List<CardDto> cards = list(i -> CardDto.builder()
+                .id(UUID.randomUUID())
+                .maskedCardNumber("**** **** **** " + (1000 + i))
+                .cardHolderName("JOHN DOE")
+                .ownerId(UUID.randomUUID())
+                .createdDate(LocalDate.now())
+                .expiryDate(LocalDate.now().plusYears(4))
+                .status(CardStatus.ACTIVE)
+                .build());
+        cardPageImpl = new PageImpl<>(cards, PageRequest.of(0, PAGE_SIZE, Sort.by("createdDate")), 1000);
+        cardPage = PageDto.of(cardPageImpl);
+        transferPage = new SlicePage<>(list(i -> new TransferDto(UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID(), new BigDecimal("125.50"), "Rent", LocalDateTime.now())), 0, PAGE_SIZE, true, null);
+        userPage = new PageDto<>(list(i -> {
+            UserDto user = new UserDto();
+            user.setId(UUID.randomUUID());
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setFirstName("John");
+            user.setLastName("Doe");
+            user.setRole(UserRole.USER);
+            user.setCreatedAt(LocalDateTime.now());
+            return user;
+        }), 0, PAGE_SIZE, 1000, 1000 / PAGE_SIZE);
+
+        System.out.printf("%n%s bytes: cards as PageImpl %d, cards %d, transfers %d, users %d%n", format,
+                cardPageImpl().length, cardPage().length, transferPage().length, userPage().length);
+    }
+
+    @Benchmark
+    public byte[] cardPageImpl() throws Exception {
+        return objectMapper.writeValueAsBytes(cardPageImpl);
+    }
+
+    @Benchmark
+    public byte[] cardPage() throws Exception {
+        return objectMapper.writeValueAsBytes(cardPage);
+    }
+
+    @Benchmark
+    public byte[] transferPage() throws Exception {
+        return objectMapper.writeValueAsBytes(transferPage);
+    }
+
+    @Benchmark
+    public byte[] userPage() throws Exception {
+        return objectMapper.writeValueAsBytes(userPage);
+    }
+
+    private static <T> List<T> list(IntFunction<T> element) {
+        List<T> list = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            list.add(element.apply(i));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.metrics.BankcardsMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An authenticated request through the JWT filter: reading the header, verifying the token and building the
+ * authentication the controllers see.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MyJwtFilterBenchmark {
+
+    private static final FilterChain CHAIN = (request, response) -> { };
+
+    private MyJwtFilter filter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = JwtServiceBenchmark.jwtService();
+        filter = new MyJwtFilter(jwtService, new BankcardsMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(filter, "header", "auth-token");
+        token = jwtService.generateAccessToken("jdoe", List.of("USER"));
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cards/my");
+        request.setServletPath("/api/cards/my");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), CHAIN);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
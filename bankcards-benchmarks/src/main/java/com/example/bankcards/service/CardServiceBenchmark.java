@@ -0,0 +1,64 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.util.CardNumberMasker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory parts of card handling: mapping a card to its dto, and numbering a new card.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardServiceBenchmark {
+
+    private CardService cardService;
+    private Card card;
+
+    @Setup
+    public void setUp() {
+        // the repositories, user cache and card events are not reached by the benchmarked methods
+        cardService = new CardService(null, null, null, new CardNumberMasker(), null, null, null);
+        User owner = User.builder().login("jdoe").build();
+        owner.setId(UUID.randomUUID());
+        card = Card.builder()
+                .cardNumberEncrypted("4000001234567899")
+                .last4("7899")
+                .cardHolderName("JOHN DOE")
+                .balance(new BigDecimal("1250.00"))
+                .owner(owner)
+                .createdDate(LocalDate.now())
+                .expiryDate(LocalDate.now().plusYears(4))
+                .build();
+        card.setId(UUID.randomUUID());
+    }
+
+    @Benchmark
+    public CardDto convertCardToDto() {
+        return cardService.convertCardToDto(card);
+    }
+
+    @Benchmark
+    public String generateUniqueCardNumber() {
+        return cardService.generateUniqueCardNumber();
+    }
+}
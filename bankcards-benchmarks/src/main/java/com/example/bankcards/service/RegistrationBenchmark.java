@@ -0,0 +1,119 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.cache.UserExistenceFilter;
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.request.UserRegistrationRequest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registration on every core, with the application's BCrypt encoder, against a repository that answers after a fixed
+ * database round trip. A warmed existence filter saves the two uniqueness queries of each new login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(Threads.MAX)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private static final PlatformTransactionManager NO_TRANSACTIONS = new PlatformTransactionManager() {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    };
+
+    @Param({"false", "true"})
+    public boolean warmFilter;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private AuthService authService;
+
+    @Setup
+    public void setUp() {
+        UserRepository repository = simulatedRepository();
+        // an empty users table: warming leaves both filters empty, so every new value skips its query
+        JdbcTemplate emptyTable = new JdbcTemplate() {
+            @Override
+            public void query(PreparedStatementCreator creator, RowCallbackHandler handler) {
+            }
+        };
+        UserExistenceFilter filter = new UserExistenceFilter(emptyTable, new TransactionTemplate(NO_TRANSACTIONS),
+                1_000_000, 0.01);
+        if (warmFilter) {
+            filter.warmUp();
+        }
+        UserCache userCache = new UserCache(repository, null, NO_TRANSACTIONS, "", 1000, 10, false);
+        // the JWT service is not reached by registration
+        authService = new AuthService(repository, userCache, filter, null, new BCryptPasswordEncoder());
+    }
+
+    @Benchmark
+    public UserDto register() {
+        String login = "bench" + sequence.incrementAndGet();
+        UserRegistrationRequest request = new UserRegistrationRequest();
+        request.setLogin(login);
+        request.setPassword("Password123");
+        request.setEmail(login + "@bank.com");
+        request.setFirstName("Bench");
+        request.setLastName("User");
+        return authService.register(request);
+    }
+
+    private static UserRepository simulatedRepository() {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    LockSupport.parkNanos(ROUND_TRIP_NANOS);
+                    return switch (method.getName()) {
+                        case "existsByLogin", "existsByEmail" -> false;
+                        case "saveAndFlush" -> {
+                            User user = (User) args[0];
+                            user.setId(UUID.randomUUID());
+                            yield user;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AES-GCM encryption and decryption of a card number, as Hibernate runs it for every card written or read.
+ * Needs {@code PAN_ENCRYPTION_KEY_BASE64}, like the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardNumberAttributeConverterBenchmark {
+
+    private CardNumberAttributeConverter converter;
+    private String encrypted;
+
+    @Setup
+    public void setUp() {
+        converter = new CardNumberAttributeConverter();
+        encrypted = converter.convertToDatabaseColumn("4000001234567899");
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return converter.convertToDatabaseColumn("4000001234567899");
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return converter.convertToEntityAttribute(encrypted);
+    }
+}
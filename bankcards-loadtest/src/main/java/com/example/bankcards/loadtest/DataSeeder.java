@@ -0,0 +1,176 @@
+package com.example.bankcards.loadtest;
+
+import com.example.bankcards.util.CardNumberAttributeConverter;
+import com.example.bankcards.util.UuidV7;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Writes the synthetic data set with batched JDBC inserts, committing every {@code batch-size} rows, after
+ * removing what an earlier run seeded. Users are {@code load-user-<n>} with {@link #PASSWORD}, hashed once for
+ * all of them; card numbers are encrypted with {@code PAN_ENCRYPTION_KEY_BASE64}, which must match the
+ * application's. The schema must already exist, e.g. from starting the application once.
+ */
+class DataSeeder {
+
+    static final String LOGIN_PREFIX = "load-user-";
+    static final String PASSWORD = "load-test-password";
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+
+    private static final String DELETE_TRANSFERS = """
+            delete from transfers where from_card_id in (
+                select c.id from cards c join users u on u.id = c.user_id where u.login like 'load-user-%')
+            """;
+    private static final String DELETE_CARDS =
+            "delete from cards where user_id in (select id from users where login like 'load-user-%')";
+    private static final String DELETE_USERS = "delete from users where login like 'load-user-%'";
+    private static final String INSERT_USER = """
+            insert into users (id, login, password_hash, email, first_name, last_name, role, created_at, updated_at)
+            values (?, ?, ?, ?, ?, ?, 'USER', ?, ?)
+            """;
+    private static final String INSERT_CARD = """
+            insert into cards (id, card_number_encrypted, last4, card_holder_name, balance, user_id, created_date,
+                               expiry_date, status, block_requested)
+            values (?, ?, ?, ?, ?, ?, ?, ?, 'ACTIVE', false)
+            """;
+    private static final String INSERT_TRANSFER = """
+            insert into transfers (id, from_card_id, to_card_id, amount, description, transfer_date)
+            values (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final Settings settings;
+
+    DataSeeder(Settings settings) {
+        this.settings = settings;
+    }
+
+    void seed() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(
+                settings.dbUrl(), settings.dbUser(), settings.dbPassword())) {
+            connection.setAutoCommit(false);
+            long started = System.nanoTime();
+            try (Statement statement = connection.createStatement()) {
+                int transfers = statement.executeUpdate(DELETE_TRANSFERS);
+                int cards = statement.executeUpdate(DELETE_CARDS);
+                int users = statement.executeUpdate(DELETE_USERS);
+                connection.commit();
+                report("removed", users + " users, " + cards + " cards, " + transfers + " transfers", started);
+            }
+
+            UUID[] userIds = insertUsers(connection);
+            UUID[][] cardIds = insertCards(connection, userIds);
+            insertTransfers(connection, cardIds);
+        }
+    }
+
+    private UUID[] insertUsers(Connection connection) throws SQLException {
+        long started = System.nanoTime();
+        String passwordHash = new BCryptPasswordEncoder().encode(PASSWORD);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        UUID[] userIds = new UUID[settings.users()];
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_USER)) {
+            for (int i = 0; i < userIds.length; i++) {
+                userIds[i] = UuidV7.generate();
+                insert.setObject(1, userIds[i]);
+                insert.setString(2, LOGIN_PREFIX + i);
+                insert.setString(3, passwordHash);
+                insert.setString(4, LOGIN_PREFIX + i + "@example.com");
+                insert.setString(5, "Load");
+                insert.setString(6, "User" + i);
+                insert.setTimestamp(7, now);
+                insert.setTimestamp(8, now);
+                addToBatch(connection, insert, i);
+            }
+            flush(connection, insert);
+        }
+        report("users", userIds.length, started);
+        return userIds;
+    }
+
+    private UUID[][] insertCards(Connection connection, UUID[] userIds) throws SQLException {
+        long started = System.nanoTime();
+        CardNumberAttributeConverter converter = new CardNumberAttributeConverter();
+        LocalDate today = LocalDate.now();
+        UUID[][] cardIds = new UUID[userIds.length][settings.cardsPerUser()];
+        int row = 0;
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_CARD)) {
+            for (int user = 0; user < userIds.length; user++) {
+                for (int card = 0; card < settings.cardsPerUser(); card++, row++) {
+                    // CardService numbers start with the epoch millis, zero padded, so a leading 9 never collides
+                    String number = "9" + String.format("%015d", row);
+                    cardIds[user][card] = UuidV7.generate();
+                    insert.setObject(1, cardIds[user][card]);
+                    insert.setString(2, converter.convertToDatabaseColumn(number));
+                    insert.setString(3, number.substring(12));
+                    insert.setString(4, "LOAD USER " + user);
+                    insert.setBigDecimal(5, INITIAL_BALANCE);
+                    insert.setObject(6, userIds[user]);
+                    insert.setObject(7, today);
+                    insert.setObject(8, today.plusYears(4));
+                    addToBatch(connection, insert, row);
+                }
+            }
+            flush(connection, insert);
+        }
+        report("cards", row, started);
+        return cardIds;
+    }
+
+    private void insertTransfers(Connection connection, UUID[][] cardIds) throws SQLException {
+        if (settings.cardsPerUser() < 2 || cardIds.length == 0) {
+            return;
+        }
+        long started = System.nanoTime();
+        Random random = new Random(settings.randomSeed());
+        LocalDateTime now = LocalDateTime.now();
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_TRANSFER)) {
+            for (int i = 0; i < settings.transfers(); i++) {
+                UUID[] cards = cardIds[random.nextInt(cardIds.length)];
+                int from = random.nextInt(cards.length);
+                int to = (from + 1 + random.nextInt(cards.length - 1)) % cards.length;
+                insert.setObject(1, UuidV7.generate());
+                insert.setObject(2, cards[from]);
+                insert.setObject(3, cards[to]);
+                insert.setBigDecimal(4, BigDecimal.valueOf(1 + random.nextInt(50_000), 2));
+                insert.setString(5, "Seeded transfer " + i);
+                // spread over the last 90 days, so history pages reach back
+                insert.setTimestamp(6, Timestamp.valueOf(now.minusSeconds(random.nextInt(90 * 24 * 3600))));
+                addToBatch(connection, insert, i);
+            }
+            flush(connection, insert);
+        }
+        report("transfers", settings.transfers(), started);
+    }
+
+    private void addToBatch(Connection connection, PreparedStatement insert, int row) throws SQLException {
+        insert.addBatch();
+        if ((row + 1) % settings.batchSize() == 0) {
+            flush(connection, insert);
+        }
+    }
+
+    private static void flush(Connection connection, PreparedStatement insert) throws SQLException {
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    private static void report(String what, int rows, long started) {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("seeded %,d %s in %.1f s (%,.0f rows/s)%n", rows, what, seconds, rows / seconds);
+    }
+
+    private static void report(String what, String detail, long started) {
+        System.out.printf("%s %s in %.1f s%n", what, detail, (System.nanoTime() - started) / 1e9);
+    }
+}
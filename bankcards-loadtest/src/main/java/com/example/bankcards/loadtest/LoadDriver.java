@@ -0,0 +1,276 @@
+package com.example.bankcards.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at {@code rps} with exponentially distributed gaps, whether or not earlier ones have been
+ * answered, as independent users would. Latency is measured from the moment a request was due rather than
+ * sent, so a server or client that falls behind shows up in the percentiles instead of lowering the rate.
+ * Requests due while {@code max-in-flight} are outstanding are counted as dropped, not sent.
+ */
+class LoadDriver {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final Settings settings;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private List<Account> accounts;
+    private AtomicReferenceArray<String> tokens;
+
+    LoadDriver(Settings settings) {
+        this.settings = settings;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    void run() throws Exception {
+        WorkloadMix mix = WorkloadMix.parse(settings.mix());
+        accounts = loadAccounts();
+        if (accounts.isEmpty()) {
+            throw new IllegalStateException("No seeded users found, run the seed command first");
+        }
+        if (mix.includes(Operation.TRANSFER) && accounts.stream().anyMatch(account -> account.cardIds().size() < 2)) {
+            throw new IllegalStateException("Transfers need at least two cards per user, seed with --cards-per-user=2");
+        }
+        tokens = new AtomicReferenceArray<>(accounts.size());
+        logInAll();
+
+        System.out.printf("driving %s at %.0f rps for %d s after %d s of warmup, %d sessions%n",
+                mix, settings.rps(), settings.durationSeconds(), settings.warmupSeconds(), accounts.size());
+        Random random = new Random(settings.randomSeed());
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / settings.rps();
+        long intended = System.nanoTime();
+        long measureFrom = intended + TimeUnit.SECONDS.toNanos(settings.warmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds());
+        while (intended < end) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = mix.next(random);
+            boolean measured = intended >= measureFrom;
+            if (inFlight.get() >= settings.maxInFlight()) {
+                if (measured) {
+                    stats.get(operation).dropped.increment();
+                }
+            } else {
+                inFlight.incrementAndGet();
+                send(operation, random.nextInt(accounts.size()), random, intended, measured);
+            }
+            intended += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+        }
+        long drainUntil = System.nanoTime() + TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        report();
+    }
+
+    private void send(Operation operation, int session, Random random, long intended, boolean measured) {
+        Account account = accounts.get(session);
+        HttpRequest request = request(operation, account, random, tokens.get(session));
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            long latency = System.nanoTime() - intended;
+            inFlight.decrementAndGet();
+            if (operation == Operation.LOGIN && response != null && response.statusCode() == 200) {
+                tokens.set(session, token(response));
+            }
+            if (measured) {
+                stats.get(operation).record(latency, response == null ? -1 : response.statusCode());
+            }
+        });
+    }
+
+    private HttpRequest request(Operation operation, Account account, Random random, String token) {
+        List<UUID> cards = account.cardIds();
+        return switch (operation) {
+            case LOGIN -> post("/api/login", null,
+                    "{\"login\":\"" + account.login() + "\",\"password\":\"" + DataSeeder.PASSWORD + "\"}");
+            case CARDS -> get("/api/cards/user/" + account.userId() + "?size=10", token);
+            case BALANCE -> get("/api/cards/balance/" + cards.get(random.nextInt(cards.size())), token);
+            case TRANSFER -> {
+                int from = random.nextInt(cards.size());
+                int to = (from + 1 + random.nextInt(cards.size() - 1)) % cards.size();
+                yield post("/api/transfers", token, "{\"fromCardId\":\"" + cards.get(from) + "\",\"toCardId\":\"" +
+                        cards.get(to) + "\",\"amount\":0.01,\"description\":\"Load test\"}");
+            }
+            case HISTORY -> get("/api/transfers/history?size=20", token);
+        };
+    }
+
+    private HttpRequest get(String path, String token) {
+        return authorized(HttpRequest.newBuilder(URI.create(settings.baseUrl() + path)), token).GET().build();
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        return authorized(HttpRequest.newBuilder(URI.create(settings.baseUrl() + path)), token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest.Builder authorized(HttpRequest.Builder builder, String token) {
+        builder.timeout(TIMEOUT);
+        return token == null ? builder : builder.header("Authorization", "Bearer " + token);
+    }
+
+    private String token(HttpResponse<String> response) {
+        try {
+            return objectMapper.readTree(response.body()).path("auth-token").asText(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void logInAll() {
+        long started = System.nanoTime();
+        List<CompletableFuture<?>> logins = new ArrayList<>();
+        for (int session = 0; session < accounts.size(); session++) {
+            int index = session;
+            logins.add(client.sendAsync(request(Operation.LOGIN, accounts.get(index), null, null),
+                            HttpResponse.BodyHandlers.ofString())
+                    .thenAccept(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new IllegalStateException("Login of " + accounts.get(index).login() +
+                                    " failed with " + response.statusCode() + ": " + response.body());
+                        }
+                        tokens.set(index, token(response));
+                    }));
+        }
+        CompletableFuture.allOf(logins.toArray(CompletableFuture[]::new)).join();
+        System.out.printf("logged in %d sessions in %.1f s%n", accounts.size(), (System.nanoTime() - started) / 1e9);
+    }
+
+    private List<Account> loadAccounts() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(
+                settings.dbUrl(), settings.dbUser(), settings.dbPassword())) {
+            Map<UUID, Account> accounts = new LinkedHashMap<>();
+            // the same random seed picks the same sessions
+            try (PreparedStatement seed = connection.prepareStatement("select setseed(?)")) {
+                seed.setDouble(1, (settings.randomSeed() % 1000) / 1000.0);
+                seed.execute();
+            }
+            try (PreparedStatement users = connection.prepareStatement(
+                    "select id, login from users where login like ? and deleted_at is null order by random() limit ?")) {
+                users.setString(1, DataSeeder.LOGIN_PREFIX + "%");
+                users.setInt(2, settings.sessions());
+                try (ResultSet rows = users.executeQuery()) {
+                    while (rows.next()) {
+                        UUID id = rows.getObject(1, UUID.class);
+                        accounts.put(id, new Account(id, rows.getString(2), new ArrayList<>()));
+                    }
+                }
+            }
+            Array ids = connection.createArrayOf("uuid", accounts.keySet().toArray());
+            try (PreparedStatement cards = connection.prepareStatement(
+                    "select user_id, id from cards where user_id = any(?) and status = 'ACTIVE' order by id")) {
+                cards.setArray(1, ids);
+                try (ResultSet rows = cards.executeQuery()) {
+                    while (rows.next()) {
+                        accounts.get(rows.getObject(1, UUID.class)).cardIds().add(rows.getObject(2, UUID.class));
+                    }
+                }
+            }
+            return new ArrayList<>(accounts.values());
+        }
+    }
+
+    private void report() {
+        System.out.printf("%n%-32s %9s %7s %7s %8s %8s %8s %8s %8s %8s%n", "endpoint", "requests", "errors",
+                "dropped", "rps", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram total = new Histogram(3);
+        stats.forEach((operation, stat) -> {
+            Histogram histogram = stat.latencies;
+            if (histogram.getTotalCount() == 0 && stat.dropped.sum() == 0) {
+                return;
+            }
+            total.add(histogram);
+            print(operation.endpoint(), histogram, stat.errors(), stat.dropped.sum());
+        });
+        print("total", total, stats.values().stream().mapToLong(Stats::errors).sum(),
+                stats.values().stream().mapToLong(stat -> stat.dropped.sum()).sum());
+        stats.forEach((operation, stat) -> {
+            Map<Integer, Long> failures = new LinkedHashMap<>();
+            stat.statuses.forEach((status, count) -> {
+                if (status < 200 || status >= 300) {
+                    failures.put(status, count.sum());
+                }
+            });
+            if (!failures.isEmpty()) {
+                // -1 is a request that got no response: timeout, refused or reset connection
+                System.out.printf("%s failed with %s%n", operation.endpoint(), failures);
+            }
+        });
+    }
+
+    private void print(String endpoint, Histogram histogram, long errors, long dropped) {
+        System.out.printf("%-32s %9d %7d %7d %8.1f %8.2f %8.2f %8.2f %8.2f %8.2f%n", endpoint,
+                histogram.getTotalCount(), errors, dropped,
+                histogram.getTotalCount() / (double) settings.durationSeconds(),
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private record Account(UUID userId, String login, List<UUID> cardIds) {
+    }
+
+    private static class Stats {
+
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LongAdder dropped = new LongAdder();
+
+        void record(long latencyNanos, int status) {
+            latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+
+        long errors() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 300)
+                    .mapToLong(entry -> entry.getValue().sum())
+                    .sum();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bankcards.loadtest;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Seeds synthetic users, cards and transfers straight into Postgres, and drives an open-model request mix
+ * against a running application:
+ * <pre>
+ * java -jar target/loadtest.jar seed --users=10000 --cards-per-user=3 --transfers=100000
+ * java -jar target/loadtest.jar run --rps=500 --duration=120
+ * </pre>
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || !(args[0].equals("seed") || args[0].equals("run") || args[0].equals("all"))) {
+            System.err.println("usage: LoadTest seed|run|all [--name=value ...]");
+            System.err.println("options: " + new TreeSet<>(Settings.names()));
+            System.exit(2);
+        }
+        Settings settings = Settings.parse(Arrays.copyOfRange(args, 1, args.length));
+        if (!args[0].equals("run")) {
+            new DataSeeder(settings).seed();
+        }
+        if (!args[0].equals("seed")) {
+            new LoadDriver(settings).run();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.loadtest;
+
+/**
+ * The requests in the workload mix, named in {@code --mix} by their lower-case name.
+ */
+enum Operation {
+    LOGIN("POST /api/login"),
+    CARDS("GET /api/cards/user/{userId}"),
+    BALANCE("GET /api/cards/balance/{cardId}"),
+    TRANSFER("POST /api/transfers"),
+    HISTORY("GET /api/transfers/history");
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+}
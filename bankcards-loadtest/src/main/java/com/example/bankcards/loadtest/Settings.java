@@ -0,0 +1,75 @@
+package com.example.bankcards.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Options of a seed or load run, given as {@code --name=value}; anything left out takes the default below.
+ */
+record Settings(
+        String baseUrl,
+        String dbUrl,
+        String dbUser,
+        String dbPassword,
+        int users,
+        int cardsPerUser,
+        int transfers,
+        int batchSize,
+        double rps,
+        int durationSeconds,
+        int warmupSeconds,
+        String mix,
+        int sessions,
+        int maxInFlight,
+        long randomSeed) {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("base-url", "http://localhost:8080"),
+            Map.entry("db-url", "jdbc:postgresql://localhost:5432/bankcards?reWriteBatchedInserts=true"),
+            Map.entry("db-user", "postgres"),
+            Map.entry("db-password", "password"),
+            Map.entry("users", "1000"),
+            Map.entry("cards-per-user", "3"),
+            Map.entry("transfers", "10000"),
+            Map.entry("batch-size", "1000"),
+            Map.entry("rps", "200"),
+            Map.entry("duration", "60"),
+            Map.entry("warmup", "10"),
+            Map.entry("mix", "login:2,cards:30,balance:30,transfer:13,history:25"),
+            Map.entry("sessions", "200"),
+            Map.entry("max-in-flight", "2000"),
+            Map.entry("random-seed", "42"));
+
+    static Set<String> names() {
+        return DEFAULTS.keySet();
+    }
+
+    static Settings parse(String[] options) {
+        Map<String, String> values = new HashMap<>(DEFAULTS);
+        for (String option : options) {
+            int equals = option.indexOf('=');
+            String name = equals < 0 || !option.startsWith("--") ? null : option.substring(2, equals);
+            if (name == null || !DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option " + option);
+            }
+            values.put(name, option.substring(equals + 1));
+        }
+        return new Settings(
+                values.get("base-url"),
+                values.get("db-url"),
+                values.get("db-user"),
+                values.get("db-password"),
+                Integer.parseInt(values.get("users")),
+                Integer.parseInt(values.get("cards-per-user")),
+                Integer.parseInt(values.get("transfers")),
+                Integer.parseInt(values.get("batch-size")),
+                Double.parseDouble(values.get("rps")),
+                Integer.parseInt(values.get("duration")),
+                Integer.parseInt(values.get("warmup")),
+                values.get("mix"),
+                Integer.parseInt(values.get("sessions")),
+                Integer.parseInt(values.get("max-in-flight")),
+                Long.parseLong(values.get("random-seed")));
+    }
+}
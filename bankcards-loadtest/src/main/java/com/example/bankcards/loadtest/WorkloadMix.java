@@ -0,0 +1,66 @@
+package com.example.bankcards.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Picks the next operation with the weights of a {@code login:2,cards:30,...} mix; operations left out are
+ * never picked.
+ */
+class WorkloadMix {
+
+    private final Map<Operation, Integer> weights;
+    private final Operation[] operations;
+    private final int[] cumulative;
+
+    private WorkloadMix(Map<Operation, Integer> weights) {
+        this.weights = weights;
+        this.operations = weights.keySet().toArray(Operation[]::new);
+        this.cumulative = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulative[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("The workload mix has no operation with a positive weight");
+        }
+    }
+
+    static WorkloadMix parse(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in the mix, got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in the mix: " + entry);
+            }
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        return new WorkloadMix(weights);
+    }
+
+    boolean includes(Operation operation) {
+        return weights.getOrDefault(operation, 0) > 0;
+    }
+
+    Operation next(Random random) {
+        int pick = random.nextInt(cumulative[cumulative.length - 1]);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (pick < cumulative[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public String toString() {
+        return weights.toString();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.bulkload;
+
+/**
+ * Rows copied into one table and how long the copy took.
+ */
+public record BulkLoadResult(String table, long rows, long millis) {
+
+    public long rowsPerMinute() {
+        return millis == 0 ? rows : rows * 60_000 / millis;
+    }
+}
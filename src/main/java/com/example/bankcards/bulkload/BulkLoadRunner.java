@@ -0,0 +1,58 @@
+package com.example.bankcards.bulkload;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Turns the application into a one-shot loader when any of {@code bankcards.bulk-load.users}, {@code .cards} or
+ * {@code .transfers} names a file: the files are loaded in that order and the application exits.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BulkLoadRunner implements ApplicationRunner {
+
+    private final BulkLoadService bulkLoadService;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${bankcards.bulk-load.users:}")
+    private String users;
+
+    @Value("${bankcards.bulk-load.cards:}")
+    private String cards;
+
+    @Value("${bankcards.bulk-load.transfers:}")
+    private String transfers;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (users.isBlank() && cards.isBlank() && transfers.isBlank()) {
+            return;
+        }
+        int exitCode = 0;
+        try {
+            if (!users.isBlank()) {
+                bulkLoadService.loadUsers(Path.of(users));
+            }
+            if (!cards.isBlank()) {
+                bulkLoadService.loadCards(Path.of(cards));
+            }
+            if (!transfers.isBlank()) {
+                bulkLoadService.loadTransfers(Path.of(transfers));
+            }
+        } catch (Exception e) {
+            log.error("Bulk load failed", e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.bankcards.bulkload;
+
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.exception.InvalidImportException;
+import com.example.bankcards.util.CardNumberAttributeConverter;
+import com.example.bankcards.util.CsvLines;
+import com.example.bankcards.util.UuidV7;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Streams users, cards and transfers from CSV files into their tables with binary {@code COPY}, bypassing JPA.
+ * Files are read through a memory-mapped window and written in blocks of {@code bankcards.bulk-load.block-size}
+ * rows, so memory stays flat whatever the file size; card numbers of a block are encrypted in parallel before
+ * it is written. Each file is copied in one statement, so a bad row rolls back the whole file.
+ */
+@Service
+@Slf4j
+public class BulkLoadService {
+
+    static final List<String> USER_COLUMNS =
+            List.of("id", "login", "password_hash", "email", "first_name", "last_name", "role");
+    static final List<String> CARD_COLUMNS = List.of("id", "user_id", "card_number", "card_holder_name", "balance",
+            "created_date", "expiry_date", "status");
+    static final List<String> TRANSFER_COLUMNS =
+            List.of("id", "from_card_id", "to_card_id", "amount", "description", "transfer_date");
+
+    private static final String COPY_USERS =
+            "users (id, login, password_hash, email, first_name, last_name, role, created_at, updated_at)";
+    private static final String COPY_CARDS = "cards (id, card_number_encrypted, last4, card_holder_name, balance, " +
+            "user_id, created_date, expiry_date, status, block_requested)";
+    private static final String COPY_TRANSFERS =
+            "transfers (id, from_card_id, to_card_id, amount, description, transfer_date)";
+
+    private static final Pattern CARD_NUMBER = Pattern.compile("\\d{12,19}");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+
+    private final DataSource dataSource;
+    private final ExecutorService encryptionPool;
+    private final ThreadLocal<CardNumberAttributeConverter> converters =
+            ThreadLocal.withInitial(CardNumberAttributeConverter::new);
+    private final int threads;
+    private final int blockSize;
+
+    public BulkLoadService(DataSource dataSource,
+                           @Value("${bankcards.bulk-load.block-size:10000}") int blockSize,
+                           @Value("${bankcards.bulk-load.encryption-threads:0}") int encryptionThreads) {
+        this.dataSource = dataSource;
+        this.blockSize = blockSize;
+        this.threads = encryptionThreads > 0 ? encryptionThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.encryptionPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-load-encrypt-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        encryptionPool.shutdownNow();
+    }
+
+    /**
+     * Loads users with already hashed passwords; an empty id or role becomes a new UUIDv7 or USER.
+     */
+    public BulkLoadResult loadUsers(Path file) throws IOException, SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        return copy(file, USER_COLUMNS, COPY_USERS, (block, out) -> {
+            for (Row row : block) {
+                out.startRow(9);
+                out.writeUuid(row.id());
+                out.writeText(row.required(1));
+                out.writeText(row.required(2));
+                out.writeText(row.required(3));
+                out.writeText(row.required(4));
+                out.writeText(row.required(5));
+                out.writeText(row.optional(6) == null ? UserRole.USER.name() : row.parse(6, UserRole::valueOf).name());
+                out.writeTimestamp(now);
+                out.writeTimestamp(now);
+            }
+        });
+    }
+
+    /**
+     * Loads cards with plain card numbers, which are encrypted and masked the way {@code Card} stores them; an empty
+     * created date or status becomes today or ACTIVE.
+     */
+    public BulkLoadResult loadCards(Path file) throws IOException, SQLException {
+        LocalDate today = LocalDate.now();
+        BulkLoadResult result = copy(file, CARD_COLUMNS, COPY_CARDS, (block, out) -> {
+            String[] cardNumbers = new String[block.size()];
+            for (int i = 0; i < block.size(); i++) {
+                cardNumbers[i] = block.get(i).parse(2, BulkLoadService::cardNumber);
+            }
+            String[] encrypted = encrypt(cardNumbers);
+            for (int i = 0; i < block.size(); i++) {
+                Row row = block.get(i);
+                out.startRow(10);
+                out.writeUuid(row.id());
+                out.writeText(encrypted[i]);
+                out.writeText(cardNumbers[i].substring(cardNumbers[i].length() - 4));
+                out.writeText(row.required(3));
+                out.writeNumeric(row.parse(4, BigDecimal::new));
+                out.writeUuid(row.parse(1, UUID::fromString));
+                out.writeDate(row.optional(5) == null ? today : row.parse(5, LocalDate::parse));
+                out.writeDate(row.parse(6, LocalDate::parse));
+                out.writeText(row.optional(7) == null ? CardStatus.ACTIVE.name() : row.parse(7, CardStatus::valueOf).name());
+                out.writeBoolean(false);
+            }
+        });
+        bumpCardsVersions();
+        return result;
+    }
+
+    /**
+     * Loads transfers between cards that already exist; the transfer date is ISO, with a {@code T} or a space.
+     */
+    public BulkLoadResult loadTransfers(Path file) throws IOException, SQLException {
+        BulkLoadResult result = copy(file, TRANSFER_COLUMNS, COPY_TRANSFERS, (block, out) -> {
+            for (Row row : block) {
+                out.startRow(6);
+                out.writeUuid(row.id());
+                out.writeUuid(row.parse(1, UUID::fromString));
+                out.writeUuid(row.parse(2, UUID::fromString));
+                out.writeNumeric(row.parse(3, BigDecimal::new));
+                out.writeText(row.optional(4));
+                out.writeTimestamp(row.parse(5, value -> LocalDateTime.parse(value.replace(' ', 'T'))));
+            }
+        });
+        bumpCardsVersions();
+        return result;
+    }
+
+    // COPY bypasses CardVersionRepository, so every user's card list and history ETags are retired at once
+    private void bumpCardsVersions() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("update users set cards_version = cards_version + 1");
+        }
+    }
+
+    private BulkLoadResult copy(Path file, List<String> columns, String target, BlockWriter blockWriter)
+            throws IOException, SQLException {
+        String table = target.substring(0, target.indexOf(' '));
+        log.info("Bulk loading {} from {}", table, file);
+        long started = System.nanoTime();
+        long rows;
+        try (MappedLineReader reader = new MappedLineReader(file);
+             Connection connection = dataSource.getConnection()) {
+            validateHeader(file, reader.readLine(), columns);
+            PGCopyOutputStream stream = new PGCopyOutputStream(connection.unwrap(PGConnection.class),
+                    "COPY " + target + " FROM STDIN (FORMAT binary)", COPY_BUFFER_SIZE);
+            try {
+                PgBinaryCopyWriter out = new PgBinaryCopyWriter(stream);
+                List<Row> block = new ArrayList<>(blockSize);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    block.add(Row.of(reader.lineNumber(), line, columns));
+                    if (block.size() == blockSize) {
+                        blockWriter.write(block, out);
+                        block.clear();
+                    }
+                }
+                if (!block.isEmpty()) {
+                    blockWriter.write(block, out);
+                }
+                rows = out.finish();
+                stream.endCopy();
+            } finally {
+                if (stream.isActive()) {
+                    stream.cancelCopy();
+                }
+            }
+        }
+        BulkLoadResult result = new BulkLoadResult(table, rows, (System.nanoTime() - started) / 1_000_000);
+        log.info("Bulk loaded {} rows into {} in {} ms ({} rows/min)",
+                result.rows(), table, result.millis(), result.rowsPerMinute());
+        return result;
+    }
+
+    private String[] encrypt(String[] cardNumbers) {
+        String[] encrypted = new String[cardNumbers.length];
+        int sliceSize = (cardNumbers.length + threads - 1) / threads;
+        CompletableFuture<?>[] slices = new CompletableFuture<?>[(cardNumbers.length + sliceSize - 1) / sliceSize];
+        for (int slice = 0; slice < slices.length; slice++) {
+            int from = slice * sliceSize;
+            int to = Math.min(from + sliceSize, cardNumbers.length);
+            slices[slice] = CompletableFuture.runAsync(() -> {
+                CardNumberAttributeConverter converter = converters.get();
+                for (int i = from; i < to; i++) {
+                    encrypted[i] = converter.convertToDatabaseColumn(cardNumbers[i]);
+                }
+            }, encryptionPool);
+        }
+        CompletableFuture.allOf(slices).join();
+        return encrypted;
+    }
+
+    private static String cardNumber(String value) {
+        String digits = WHITESPACE.matcher(value).replaceAll("");
+        if (!CARD_NUMBER.matcher(digits).matches()) {
+            throw new IllegalArgumentException();
+        }
+        return digits;
+    }
+
+    private static void validateHeader(Path file, String header, List<String> columns) {
+        if (header == null) {
+            throw new InvalidImportException(file + " is empty");
+        }
+        if (!Arrays.stream(header.split(",")).map(String::trim).toList().equals(columns)) {
+            throw new InvalidImportException(file + " header must be: " + String.join(",", columns));
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlockWriter {
+        void write(List<Row> block, PgBinaryCopyWriter out) throws IOException;
+    }
+
+    private record Row(long line, List<String> fields, List<String> columns) {
+
+        static Row of(long line, String text, List<String> columns) {
+            List<String> fields = CsvLines.split(text);
+            if (fields.size() != columns.size()) {
+                throw new InvalidImportException(
+                        "Line " + line + ": expected " + columns.size() + " columns, got " + fields.size());
+            }
+            return new Row(line, fields, columns);
+        }
+
+        UUID id() {
+            return optional(0) == null ? UuidV7.generate() : parse(0, UUID::fromString);
+        }
+
+        String optional(int column) {
+            String value = fields.get(column).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        String required(int column) {
+            String value = optional(column);
+            if (value == null) {
+                throw new InvalidImportException("Line " + line + ": " + columns.get(column) + " is required");
+            }
+            return value;
+        }
+
+        // the value is left out of the message, it may be a card number
+        <T> T parse(int column, Function<String, T> parser) {
+            String value = required(column);
+            try {
+                return parser.apply(value);
+            } catch (RuntimeException e) {
+                throw new InvalidImportException("Line " + line + ": invalid " + columns.get(column));
+            }
+        }
+    }
+}
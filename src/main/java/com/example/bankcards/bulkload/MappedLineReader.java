@@ -0,0 +1,86 @@
+package com.example.bankcards.bulkload;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a UTF-8 file line by line through a memory-mapped window that slides along the file, so files of any
+ * size are read with the window and one line buffer, without copying them onto the heap.
+ */
+final class MappedLineReader implements Closeable {
+
+    static final int DEFAULT_WINDOW = 64 << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int window;
+    private ByteBuffer buffer = ByteBuffer.allocate(0);
+    private long bufferStart;
+    private byte[] line = new byte[256];
+    private long lineNumber;
+
+    MappedLineReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW);
+    }
+
+    MappedLineReader(Path file, int window) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.window = window;
+    }
+
+    /**
+     * The next line without its {@code \n} or {@code \r\n}, or {@code null} at the end of the file.
+     */
+    String readLine() throws IOException {
+        int length = 0;
+        boolean read = false;
+        while (true) {
+            if (!buffer.hasRemaining() && !advance()) {
+                return read ? decode(length) : null;
+            }
+            byte next = buffer.get();
+            read = true;
+            if (next == '\n') {
+                return decode(length);
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = next;
+        }
+    }
+
+    long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean advance() throws IOException {
+        long next = bufferStart + buffer.limit();
+        if (next >= size) {
+            return false;
+        }
+        bufferStart = next;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, next, Math.min(window, size - next));
+        return true;
+    }
+
+    private String decode(int length) {
+        lineNumber++;
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.bankcards.bulkload;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes rows in the PostgreSQL binary COPY format: a header, then per row a field count and each field as
+ * its length and its binary value, then a trailer. Each value must be written with the writer method of its
+ * column type, since the server does not convert binary input.
+ */
+final class PgBinaryCopyWriter {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final LocalDate EPOCH_DATE = LocalDate.of(2000, 1, 1);
+    private static final LocalDateTime EPOCH = EPOCH_DATE.atStartOfDay();
+    private static final int NUMERIC_NEGATIVE = 0x4000;
+
+    private final DataOutputStream out;
+    private long rows;
+
+    PgBinaryCopyWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.out.write(SIGNATURE);
+        this.out.writeInt(0);
+        this.out.writeInt(0);
+    }
+
+    void startRow(int fields) throws IOException {
+        out.writeShort(fields);
+        rows++;
+    }
+
+    void writeUuid(UUID value) throws IOException {
+        out.writeInt(16);
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+
+    void writeText(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    void writeBoolean(boolean value) throws IOException {
+        out.writeInt(1);
+        out.writeByte(value ? 1 : 0);
+    }
+
+    void writeDate(LocalDate value) throws IOException {
+        out.writeInt(4);
+        out.writeInt((int) ChronoUnit.DAYS.between(EPOCH_DATE, value));
+    }
+
+    void writeTimestamp(LocalDateTime value) throws IOException {
+        out.writeInt(8);
+        out.writeLong(ChronoUnit.MICROS.between(EPOCH, value));
+    }
+
+    /**
+     * A numeric is its base 10000 digits, the weight of the first one, a sign and the decimal scale.
+     */
+    void writeNumeric(BigDecimal value) throws IOException {
+        String plain = value.abs().toPlainString();
+        int point = plain.indexOf('.');
+        String integer = point < 0 ? plain : plain.substring(0, point);
+        String fraction = point < 0 ? "" : plain.substring(point + 1);
+
+        List<Short> digits = new ArrayList<>();
+        int integerGroups = (integer.length() + 3) / 4;
+        String paddedInteger = "0".repeat(integerGroups * 4 - integer.length()) + integer;
+        for (int i = 0; i < paddedInteger.length(); i += 4) {
+            digits.add(Short.parseShort(paddedInteger.substring(i, i + 4)));
+        }
+        String paddedFraction = fraction + "0".repeat((4 - fraction.length() % 4) % 4);
+        for (int i = 0; i < paddedFraction.length(); i += 4) {
+            digits.add(Short.parseShort(paddedFraction.substring(i, i + 4)));
+        }
+        int weight = integerGroups - 1;
+        while (!digits.isEmpty() && digits.get(0) == 0) {
+            digits.remove(0);
+            weight--;
+        }
+        while (!digits.isEmpty() && digits.get(digits.size() - 1) == 0) {
+            digits.remove(digits.size() - 1);
+        }
+        if (digits.isEmpty()) {
+            weight = 0;
+        }
+
+        out.writeInt(8 + 2 * digits.size());
+        out.writeShort(digits.size());
+        out.writeShort(weight);
+        out.writeShort(value.signum() < 0 ? NUMERIC_NEGATIVE : 0);
+        out.writeShort(Math.max(value.scale(), 0));
+        for (short digit : digits) {
+            out.writeShort(digit);
+        }
+    }
+
+    /**
+     * Writes the trailer and flushes; returns the number of rows written.
+     */
+    long finish() throws IOException {
+        out.writeShort(-1);
+        out.flush();
+        return rows;
+    }
+}
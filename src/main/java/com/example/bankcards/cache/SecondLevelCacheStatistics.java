@@ -0,0 +1,36 @@
+package com.example.bankcards.cache;
+
+import com.example.bankcards.config.SecondLevelCacheConfig;
+import com.example.bankcards.dto.CacheStatsDto;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheStatistics {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public List<CacheStatsDto> regionStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // regions report zeros unless hibernate.generate_statistics is on
+        if (!statistics.isStatisticsEnabled()) {
+            return List.of();
+        }
+        return Stream.of(SecondLevelCacheConfig.USER_REGION, SecondLevelCacheConfig.CARD_REGION)
+                .map(region -> {
+                    CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+                    return regionStatistics == null ? null : new CacheStatsDto(region, regionStatistics);
+                })
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.bankcards.cache;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for {@link User} lookups by id and by login.
+ * <p>
+ * Cached users are copies taken outside any session, without their cards, and must be treated as read-only:
+ * write paths load a managed copy from {@link UserRepository} and call {@link #evict(UUID, String)} afterwards.
+ * <p>
+ * When read replicas are configured, misses are loaded in a read-write transaction, so that a lagging replica
+ * can never put a stale user into the cache. Without them the caller's transaction already reads the primary,
+ * and suspending it would hold a second pooled connection for the load.
+ * <p>
+ * A miss is loaded by the calling thread after it has claimed the key, not inside the cache's own lock, so
+ * a virtual thread waiting on the database never pins its carrier. Concurrent misses for the same key wait
+ * for the one load.
+ */
+@Component
+@Slf4j
+public class UserCache {
+
+    public static final String INVALIDATION_CHANNEL = "user_cache_invalidation";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate primaryRead;
+    private final boolean replicasConfigured;
+    private final boolean notifyEnabled;
+
+    private final AsyncCache<UUID, User> usersById;
+    private final AsyncCache<String, UUID> idsByLogin;
+
+    public UserCache(UserRepository userRepository,
+                     JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${bankcards.datasource.replica-urls:}") String replicaUrls,
+                     @Value("${bankcards.user-cache.maximum-size:10000}") long maximumSize,
+                     @Value("${bankcards.user-cache.ttl-minutes:10}") long ttlMinutes,
+                     @Value("${bankcards.user-cache.notify-enabled:true}") boolean notifyEnabled) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.primaryRead = new TransactionTemplate(transactionManager);
+        this.primaryRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.replicasConfigured = !replicaUrls.isBlank();
+        this.notifyEnabled = notifyEnabled;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .buildAsync();
+        this.idsByLogin = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .buildAsync();
+    }
+
+    public Optional<User> findById(UUID userId) {
+        return Optional.ofNullable(get(usersById, userId, () -> userRepository.findById(userId)
+                .filter(user -> !user.isDeleted())
+                .map(UserCache::detachedCopy)
+                .orElse(null)));
+    }
+
+    public Optional<User> findByLogin(String login) {
+        UUID userId = get(idsByLogin, login, () -> userRepository.findByLogin(login)
+                .map(user -> {
+                    usersById.put(user.getId(), CompletableFuture.completedFuture(detachedCopy(user)));
+                    return user.getId();
+                })
+                .orElse(null));
+        return userId == null ? Optional.empty() : findById(userId);
+    }
+
+    private <K, V> V get(AsyncCache<K, V> cache, K key, Supplier<V> loader) {
+        CompletableFuture<V> claim = new CompletableFuture<>();
+        CompletableFuture<V> value = cache.get(key, (k, executor) -> claim);
+        if (value == claim) {
+            // a null or failed load leaves the cache on its own; an eviction during the load drops the claim
+            try {
+                claim.complete(load(loader));
+            } catch (RuntimeException e) {
+                claim.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private <T> T load(Supplier<T> loader) {
+        if (!replicasConfigured) {
+            return loader.get();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.get();
+        }
+        // outside a transaction repository reads are read-only too, and may be routed to a replica
+        return primaryRead.execute(status -> loader.get());
+    }
+
+    // the loaded entity may belong to the caller's session, which must not be shared with other threads
+    private static User detachedCopy(User user) {
+        return User.builder()
+                .id(user.getId())
+                .login(user.getLogin())
+                .passwordHash(user.getPasswordHash())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .role(user.getRole())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .deletedAt(user.getDeletedAt())
+                .cardsVersion(user.getCardsVersion())
+                .build();
+    }
+
+    /**
+     * Drops the user from this node immediately and again once the surrounding transaction commits,
+     * so a concurrent reader cannot re-populate the cache with the pre-commit row. Other nodes are told
+     * through a Postgres NOTIFY, which is itself only delivered on commit.
+     */
+    public void evict(UUID userId, String login) {
+        evictLocally(userId, login);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocally(userId, login);
+                }
+            });
+        }
+        publish(userId, login);
+    }
+
+    public void evictLocally(UUID userId, String login) {
+        if (userId != null) {
+            usersById.synchronous().invalidate(userId);
+        }
+        if (login != null) {
+            idsByLogin.synchronous().invalidate(login);
+        }
+        log.debug("User cache entry evicted: id={}, login={}", userId, login);
+    }
+
+    public void evictAll() {
+        usersById.synchronous().invalidateAll();
+        idsByLogin.synchronous().invalidateAll();
+        log.info("User cache cleared");
+    }
+
+    public CacheStats byIdStats() {
+        return usersById.synchronous().stats();
+    }
+
+    public CacheStats byLoginStats() {
+        return idsByLogin.synchronous().stats();
+    }
+
+    public long byIdSize() {
+        return usersById.synchronous().estimatedSize();
+    }
+
+    public long byLoginSize() {
+        return idsByLogin.synchronous().estimatedSize();
+    }
+
+    static String toPayload(UUID userId, String login) {
+        return (userId == null ? "" : userId.toString()) + ":" + (login == null ? "" : login);
+    }
+
+    // null when the payload names a login only or is malformed
+    static UUID userIdFromPayload(String payload) {
+        int separator = payload.indexOf(':');
+        return separator > 0 ? UUID.fromString(payload.substring(0, separator)) : null;
+    }
+
+    void evictFromPayload(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0) {
+            log.warn("Ignoring malformed user cache invalidation payload '{}'", payload);
+            return;
+        }
+        String login = payload.substring(separator + 1);
+        evictLocally(userIdFromPayload(payload), login.isEmpty() ? null : login);
+    }
+
+    private void publish(UUID userId, String login) {
+        if (!notifyEnabled) {
+            return;
+        }
+        jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, INVALIDATION_CHANNEL, toPayload(userId, login));
+    }
+}
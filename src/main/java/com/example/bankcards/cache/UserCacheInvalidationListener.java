@@ -0,0 +1,105 @@
+package com.example.bankcards.cache;
+
+import com.example.bankcards.entity.User;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Applies user cache invalidations published by other nodes, to {@link UserCache} and to the
+ * {@link User} second-level cache region. Uses its own connection outside the pool,
+ * since a LISTEN session has to stay open for the lifetime of the application.
+ */
+@Component
+@ConditionalOnProperty(name = "bankcards.user-cache.notify-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class UserCacheInvalidationListener {
+
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final UserCache userCache;
+    private final DataSourceProperties dataSourceProperties;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = new Thread(this::listen, "user-cache-listener");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + UserCache.INVALIDATION_CHANNEL);
+                }
+                // notifications sent while we were disconnected are lost; the second-level cache goes first,
+                // or a user cache miss in between reloads the stale entity from it
+                entityManagerFactory.getCache().evict(User.class);
+                userCache.evictAll();
+                log.info("Listening for user cache invalidations on channel '{}'", UserCache.INVALIDATION_CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        String payload = notification.getParameter();
+                        UUID userId = UserCache.userIdFromPayload(payload);
+                        if (userId != null) {
+                            // the second-level cache is node-local as well, and is evicted first for the same reason
+                            entityManagerFactory.getCache().evict(User.class, userId);
+                        }
+                        userCache.evictFromPayload(payload);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("User cache listener connection lost: {}. Reconnecting in {} ms",
+                        e.getMessage(), RECONNECT_DELAY_MILLIS);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
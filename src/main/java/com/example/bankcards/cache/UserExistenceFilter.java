@@ -0,0 +1,149 @@
+package com.example.bankcards.cache;
+
+import com.example.bankcards.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory Bloom filters over all user logins and emails. A negative answer means the value is
+ * definitely not taken on this node's view of the {@code users} table, so the uniqueness query can be
+ * skipped; the unique constraints remain the final authority for values written by other nodes.
+ * <p>
+ * Until the filters have been warmed every value is reported as possibly present.
+ */
+@Component
+@Slf4j
+public class UserExistenceFilter {
+
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    // not a monitor: a virtual thread holding one across the table scan would pin its carrier
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile Filters current;
+    private volatile Filters rebuilding;
+
+    public UserExistenceFilter(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${bankcards.user-filter.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${bankcards.user-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public boolean mightContainLogin(String login) {
+        Filters filters = current;
+        return filters == null || filters.logins.mightContain(login);
+    }
+
+    public boolean mightContainEmail(String email) {
+        Filters filters = current;
+        return filters == null || filters.emails.mightContain(email);
+    }
+
+    public void addLogin(String login) {
+        Filters filters = current;
+        if (filters != null) {
+            filters.logins.put(login);
+        }
+        Filters next = rebuilding;
+        if (next != null) {
+            next.logins.put(login);
+        }
+    }
+
+    public void addEmail(String email) {
+        Filters filters = current;
+        if (filters != null) {
+            filters.emails.put(email);
+        }
+        Filters next = rebuilding;
+        if (next != null) {
+            next.emails.put(email);
+        }
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            log.warn("Could not warm user existence filter, uniqueness checks will query the database: {}",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Streams the {@code users} table into fresh filters and swaps them in. Values added while the
+     * rebuild is running are written to both generations.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            doRebuild();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void doRebuild() {
+        long started = System.nanoTime();
+        Filters next = new Filters(expectedInsertions, falsePositiveRate);
+        rebuilding = next;
+        try {
+            // Postgres only honours the fetch size inside a transaction
+            Long rows = transactionTemplate.execute(status -> {
+                long[] count = {0};
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement("select login, email from users");
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                }, rs -> {
+                    next.logins.put(rs.getString(1));
+                    next.emails.put(rs.getString(2));
+                    count[0]++;
+                });
+                return count[0];
+            });
+            current = next;
+            log.info("User existence filter warmed with {} users in {} ms", rows,
+                    (System.nanoTime() - started) / 1_000_000);
+            if (rows != null && rows > expectedInsertions) {
+                log.warn("User count {} exceeds bankcards.user-filter.expected-insertions={}, false positive rate will grow",
+                        rows, expectedInsertions);
+            }
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    private static final class Filters {
+        private final BloomFilter logins;
+        private final BloomFilter emails;
+
+        private Filters(long expectedInsertions, double falsePositiveRate) {
+            this.logins = new BloomFilter(expectedInsertions, falsePositiveRate);
+            this.emails = new BloomFilter(expectedInsertions, falsePositiveRate);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Responses are also written as CBOR ({@code application/cbor}) or Smile ({@code application/x-jackson-smile}) when
+ * the client asks for it in {@code Accept}. Spring MVC registers both after the JSON converter, so clients that
+ * accept anything still get JSON; they are rebuilt here from Spring Boot's object mapper builder, so the binary
+ * encodings follow the same {@code spring.jackson} settings as JSON.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class MessageConverterConfig implements WebMvcConfigurer {
+
+    // a prototype, a fresh builder per mapper
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(converter -> {
+            if (converter instanceof MappingJackson2CborHttpMessageConverter) {
+                return new MappingJackson2CborHttpMessageConverter(
+                        objectMapperBuilder.getObject().factory(new CBORFactory()).build());
+            }
+            if (converter instanceof MappingJackson2SmileHttpMessageConverter) {
+                return new MappingJackson2SmileHttpMessageConverter(
+                        objectMapperBuilder.getObject().factory(new SmileFactory()).build());
+            }
+            return converter;
+        });
+    }
+}
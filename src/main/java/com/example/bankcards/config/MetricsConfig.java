@@ -0,0 +1,34 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.metrics.EndpointTimingFilter;
+import com.example.bankcards.metrics.RepositoryTimingPostProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Latency histograms per endpoint ({@code bankcards.http.requests}) and per repository method
+ * ({@code bankcards.repository.invocations}), scraped from {@code /actuator/prometheus} with the counters of
+ * {@link com.example.bankcards.metrics.BankcardsMetrics} and the Hikari pool gauges. They replace Spring Boot's own
+ * request and repository observations, which build their tags on every call.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public static RepositoryTimingPostProcessor repositoryTimingPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new RepositoryTimingPostProcessor(registry);
+    }
+
+    // ahead of the security filters, so token checks are part of the measured latency
+    @Bean
+    public FilterRegistrationBean<EndpointTimingFilter> endpointTimingFilter(MeterRegistry registry) {
+        FilterRegistrationBean<EndpointTimingFilter> registration =
+                new FilterRegistrationBean<>(new EndpointTimingFilter(registry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Turns the application into a one-shot exporter when {@code bankcards.openapi.export} names a directory: the
+ * document springdoc builds from the controllers is written there as {@code openapi.json} and
+ * {@code openapi.json.gz}, and the application exits. The build runs it against H2 before packaging.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OpenApiExportRunner implements ApplicationRunner {
+
+    private final ConfigurableApplicationContext context;
+    private final Environment environment;
+
+    @Value("${bankcards.openapi.export:}")
+    private String export;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (export.isBlank()) {
+            return;
+        }
+        int exitCode = 0;
+        try {
+            URI uri = URI.create("http://localhost:" + environment.getProperty("local.server.port")
+                    + environment.getProperty("springdoc.api-docs.path", "/v3/api-docs"));
+            HttpResponse<byte[]> response = HttpClient.newHttpClient()
+                    .send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("springdoc answered " + response.statusCode()
+                        + ", is springdoc.api-docs.enabled set?");
+            }
+            Path directory = Files.createDirectories(Path.of(export));
+            String name = SwaggerConfig.DOCUMENT_PATH.substring(1);
+            Files.write(directory.resolve(name), response.body());
+            try (OutputStream gzip = new GZIPOutputStream(Files.newOutputStream(directory.resolve(name + ".gz")))) {
+                gzip.write(response.body());
+            }
+            log.info("OpenAPI document of {} bytes written to {}", response.body().length, directory);
+        } catch (Exception e) {
+            log.error("OpenAPI export failed", e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
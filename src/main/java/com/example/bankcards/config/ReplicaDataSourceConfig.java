@@ -0,0 +1,75 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.datasource.ReadYourWritesWindow;
+import com.example.bankcards.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to the replicas listed in {@code bankcards.datasource.replica-urls}.
+ * The connection is only fetched on the first statement, when Spring has already marked it read-only,
+ * so {@link LazyConnectionDataSourceProxy} can choose between the primary and the replicas.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "bankcards.datasource", name = "replica-urls")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            DataSourceProperties properties,
+            ReadYourWritesWindow readYourWritesWindow,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${bankcards.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${bankcards.datasource.replica-pool-size:10}") int poolSize,
+            @Value("${bankcards.datasource.max-replica-lag-ms:5000}") long maxLagMillis) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(replicaUrls.get(i));
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            // replica pools are not beans, so Spring Boot does not bind their pool metrics
+            meterRegistry.ifAvailable(registry -> replica.setMetricsTrackerFactory(
+                    new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(replica);
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas,
+                readYourWritesWindow, maxLagMillis);
+        routing.checkLag();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache regions, backed by Caffeine through JCache. Regions are node-local:
+ * card balances must be read with {@code CardRepository.findByIdForUpdate} or a query whenever they
+ * have to be current.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String USER_REGION = User.class.getName();
+    public static final String CARD_REGION = Card.class.getName();
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            @Value("${bankcards.second-level-cache.user.maximum-size:10000}") long userMaximumSize,
+            @Value("${bankcards.second-level-cache.user.ttl-seconds:600}") long userTtlSeconds,
+            @Value("${bankcards.second-level-cache.card.maximum-size:50000}") long cardMaximumSize,
+            @Value("${bankcards.second-level-cache.card.ttl-seconds:60}") long cardTtlSeconds) {
+        // a distinct uri per context, the provider otherwise hands the same manager to every context in the JVM
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("bankcards-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(USER_REGION, region(userMaximumSize, userTtlSeconds));
+        cacheManager.createCache(CARD_REGION, region(cardMaximumSize, cardTtlSeconds));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maximumSize, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(Duration.ofSeconds(ttlSeconds).toNanos()));
+        return configuration;
+    }
+}
@@ -43,10 +43,13 @@ public class SecurityConfig {
                                 "/api/login",
                                 "/api/logout",
                                 "/api/register",
+                                "/openapi.json",
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html"
                         ).permitAll()
+                        // only reachable on management.server.port, which the public port does not serve
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
 
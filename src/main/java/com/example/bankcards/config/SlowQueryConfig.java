@@ -0,0 +1,61 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.slowquery.QueryOrigin;
+import com.example.bankcards.slowquery.SlowQueryDataSource;
+import com.example.bankcards.slowquery.SlowQueryRecorder;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+
+/**
+ * Records statements slower than {@code bankcards.slow-query.threshold-ms} with the repository method that sent
+ * them, and explains a sample of them, for {@code /api/admin/slow-queries}.
+ */
+@Configuration
+public class SlowQueryConfig {
+
+    @Bean
+    public SlowQueryRecorder slowQueryRecorder(
+            @Value("${bankcards.slow-query.threshold-ms:100}") long thresholdMs,
+            @Value("${bankcards.slow-query.explain-sample-rate:0.1}") double explainSampleRate,
+            @Value("${bankcards.slow-query.explain-timeout-ms:5000}") long explainTimeoutMs,
+            @Value("${bankcards.slow-query.buffer-size:100}") int bufferSize) {
+        return new SlowQueryRecorder(thresholdMs, explainSampleRate, explainTimeoutMs, bufferSize);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor queryOriginAdvisor() {
+        ComposablePointcut pointcut = new ComposablePointcut(type ->
+                AnnotatedElementUtils.hasAnnotation(type, Service.class) || Repository.class.isAssignableFrom(type));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new QueryOrigin());
+        // outside the transaction interceptor, so statements flushed on commit keep their service method
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return advisor;
+    }
+
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryRecorder> recorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+                        ? new SlowQueryDataSource(dataSource, recorder.getObject())
+                        : bean;
+            }
+        };
+    }
+}
@@ -5,11 +5,35 @@ import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
+import io.swagger.v3.oas.models.servers.Server;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The OpenAPI document is generated from the controllers at build time, see {@link OpenApiExportRunner}, and served
+ * from {@value #DOCUMENT_PATH} with a content ETag and its precompressed gzip variant. Runtime scanning by springdoc
+ * is off unless {@code springdoc.api-docs.enabled} is set.
+ */
 @Configuration
-public class SwaggerConfig {
+public class SwaggerConfig implements WebMvcConfigurer {
+
+    public static final String DOCUMENT_PATH = "/openapi.json";
+
+    // keyed by resource, so the plain and gzip variants get different tags
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
 
     @Bean
     public OpenAPI bankcardsOpenAPI() {
@@ -20,6 +44,8 @@ public class SwaggerConfig {
                         .title("Bank Cards API")
                         .version("1.0.0")
                         .description("REST API for bank cards management"))
+                // relative, so the document generated at build time is right on every host
+                .servers(List.of(new Server().url("/")))
                 .addSecurityItem(new SecurityRequirement().addList(securitySchemeName))
                 .components(new Components()
                         .addSecuritySchemes(securitySchemeName,
@@ -29,4 +55,23 @@ public class SwaggerConfig {
                                         .scheme("bearer")
                                         .bearerFormat("JWT")));
     }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler(DOCUMENT_PATH)
+                .addResourceLocations("classpath:/openapi/")
+                .setCacheControl(CacheControl.noCache())
+                .setUseLastModified(false)
+                .setEtagGenerator(resource -> etags.computeIfAbsent(resource.getDescription(), key -> etag(resource)))
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+    }
+
+    private static String etag(Resource resource) {
+        try (InputStream content = resource.getInputStream()) {
+            return DigestUtils.md5DigestAsHex(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
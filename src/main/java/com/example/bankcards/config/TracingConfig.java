@@ -0,0 +1,76 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.tracing.TraceBuffer;
+import com.example.bankcards.tracing.TracingDataSource;
+import com.example.bankcards.tracing.TracingFilter;
+import com.example.bankcards.tracing.TracingInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+
+/**
+ * Request tracing without an external collector. {@code bankcards.tracing.sample-rate} of the requests are traced
+ * through the JWT filter, controllers, services, repositories, card number encryption and JDBC, and the last
+ * {@code bankcards.tracing.buffer-size} traces are kept in memory for {@code /api/admin/traces}. At the default
+ * rate of 0 nothing is traced, and each instrumented call costs one thread-local read.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public TraceBuffer traceBuffer(@Value("${bankcards.tracing.buffer-size:200}") int bufferSize) {
+        return new TraceBuffer(bufferSize);
+    }
+
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(
+            TraceBuffer traceBuffer,
+            @Value("${bankcards.tracing.sample-rate:0}") double sampleRate,
+            @Value("${bankcards.tracing.max-spans:500}") int maxSpans) {
+        FilterRegistrationBean<TracingFilter> registration =
+                new FilterRegistrationBean<>(new TracingFilter(sampleRate, maxSpans, traceBuffer));
+        // inside the endpoint timing filter, ahead of security
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    // an infrastructure advisor joins the proxies Spring already creates for transactions and method security
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor tracingAdvisor() {
+        ComposablePointcut pointcut = new ComposablePointcut(type ->
+                AnnotatedElementUtils.hasAnnotation(type, RestController.class) ||
+                        AnnotatedElementUtils.hasAnnotation(type, Service.class) ||
+                        Repository.class.isAssignableFrom(type));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new TracingInterceptor());
+        // outermost, so a service span includes its commit
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    @Bean
+    public static BeanPostProcessor tracingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+                        ? new TracingDataSource(dataSource)
+                        : bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.cache.SecondLevelCacheStatistics;
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.dto.CacheStatsDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("api/admin/caches")
+@RequiredArgsConstructor
+@Tag(name = "Caches", description = "Application cache statistics")
+@SecurityRequirement(name = "bearerAuth")
+public class CacheController {
+
+    private final UserCache userCache;
+    private final SecondLevelCacheStatistics secondLevelCacheStatistics;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get cache statistics",
+            description = "Returns hit ratio and load latency of the application caches and, when " +
+                    "hibernate.generate_statistics is on, the Hibernate second-level cache regions. " +
+                    "Available only for administrators.",
+            responses = @ApiResponse(
+                    responseCode = "200",
+                    description = "Cache statistics",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = CacheStatsDto.class)))
+            )
+    )
+    public ResponseEntity<List<CacheStatsDto>> getCacheStats() {
+        List<CacheStatsDto> stats = new ArrayList<>();
+        stats.add(new CacheStatsDto("users-by-id", userCache.byIdSize(), userCache.byIdStats()));
+        stats.add(new CacheStatsDto("users-by-login", userCache.byLoginSize(), userCache.byLoginStats()));
+        stats.addAll(secondLevelCacheStatistics.regionStats());
+        return ResponseEntity.ok(stats);
+    }
+}
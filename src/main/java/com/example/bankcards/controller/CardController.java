@@ -1,6 +1,8 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardEvent;
+import com.example.bankcards.dto.PageDto;
 import com.example.bankcards.dto.request.CardCreationRequest;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.service.CardService;
@@ -12,10 +14,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -28,6 +32,7 @@ import java.util.UUID;
 @SecurityRequirement(name = "bearerAuth")
 public class CardController {
     private final CardService cardService;
+    private final ConditionalResponses conditionalResponses;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -108,25 +113,29 @@ public class CardController {
     @Operation(
             summary = "Get cards of a specific user",
             description = "Retrieves a paginated list of all cards belonging to a specific user. " +
-                    "Users can view only their own cards. Supports filtering by status and search. ",
+                    "Users can view only their own cards. Supports filtering by status and search. " +
+                    "Answers If-None-Match with 304 while none of the user's cards has changed.",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "List of user's cards",
-                            content = @Content(schema = @Schema(implementation = CardDto.class))
+                            content = @Content(schema = @Schema(implementation = PageDto.class))
                     ),
+                    @ApiResponse(responseCode = "304", description = "Cards unchanged since the ETag"),
                     @ApiResponse(responseCode = "403", description = "Access denied")
             }
     )
-    public ResponseEntity<Page<CardDto>> getUserCards(
+    public ResponseEntity<PageDto<CardDto>> getUserCards(
             @Parameter(description = "User ID") @PathVariable("userId") UUID userId,
             @Parameter(description = "Page number (0..N)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
             @Parameter(description = "Filter by card status") @RequestParam(required = false) CardStatus status,
-            @Parameter(description = "Search term (card holder name)") @RequestParam(required = false) String search) {
+            @Parameter(description = "Search term (card holder name)") @RequestParam(required = false) String search,
+            WebRequest request) {
 
-        Page<CardDto> dtoPage = cardService.getUserCards(userId, status, search, page, size);
-        return ResponseEntity.ok(dtoPage);
+        return conditionalResponses.ofETag(request,
+                () -> cardService.getUserCardsETag(userId, status, search, page, size),
+                () -> PageDto.of(cardService.getUserCards(userId, status, search, page, size)));
     }
 
     @GetMapping("/all")
@@ -145,6 +154,24 @@ public class CardController {
         return ResponseEntity.ok(listDto);
     }
 
+    @GetMapping("/block-requests")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get pending block requests",
+            description = "Retrieves a paginated list of cards whose owners requested a block, oldest cards first. " +
+                    "Available only for administrators.",
+            responses = @ApiResponse(
+                    responseCode = "200",
+                    description = "Cards awaiting a block",
+                    content = @Content(schema = @Schema(implementation = PageDto.class))
+            )
+    )
+    public ResponseEntity<PageDto<CardDto>> getBlockRequests(
+            @Parameter(description = "Page number (0..N)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(PageDto.of(cardService.getBlockRequests(page, size)));
+    }
+
     @PutMapping("/request-block/{cardId}")
     @PreAuthorize("hasRole('USER')")
     @Operation(
@@ -169,19 +196,43 @@ public class CardController {
     @PreAuthorize("hasRole('USER')")
     @Operation(
             summary = "Get card balance",
-            description = "Retrieves the balance of a specific card. Users can only view their own card balance.",
+            description = "Retrieves the balance of a specific card. Users can only view their own card balance. " +
+                    "Answers If-None-Match with 304 while the card is unchanged.",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Balance retrieved successfully",
                             content = @Content(schema = @Schema(implementation = BigDecimal.class))
                     ),
+                    @ApiResponse(responseCode = "304", description = "Balance unchanged since the ETag"),
                     @ApiResponse(responseCode = "404", description = "Card not found"),
                     @ApiResponse(responseCode = "403", description = "Access denied")
             }
     )
     public ResponseEntity<BigDecimal> getBalance(
-            @Parameter(description = "Card ID") @PathVariable("cardId") UUID cardId) {
-        return ResponseEntity.ok(cardService.getBalance(cardId));
+            @Parameter(description = "Card ID") @PathVariable("cardId") UUID cardId,
+            WebRequest request) {
+        return conditionalResponses.ofETag(request, () -> cardService.getBalanceETag(cardId),
+                () -> cardService.getBalance(cardId));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    @Operation(
+            summary = "Subscribe to card events",
+            description = "Opens a server-sent event stream of committed changes to the current user's cards: " +
+                    "transfer, blocked, activated and block_requested events carrying a CardEvent. " +
+                    "Events missed while disconnected are not replayed; catch up with a conditional GET.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Event stream opened",
+                            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                                    schema = @Schema(implementation = CardEvent.class))
+                    )
+            }
+    )
+    public SseEmitter subscribeToCardEvents() {
+        return cardService.subscribeToCardEvents();
     }
 }
@@ -0,0 +1,52 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.util.ETags;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Answers a conditional GET from an ETag computed before the response body: a matching {@code If-None-Match} gets
+ * 304 without the body ever being read. Responses are private and must be revalidated, which also keeps Spring
+ * Security from marking them {@code no-store}. The tag covers {@code Accept} too, since JSON, CBOR and Smile
+ * encodings of one version are different representations.
+ * <p>
+ * The version and the body are read in one read-only transaction, so with replicas configured both come from the
+ * same replica; a body from a more lagging one would be cached under the newer tag.
+ */
+@Component
+class ConditionalResponses {
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final TransactionTemplate readOnly;
+
+    ConditionalResponses(PlatformTransactionManager transactionManager) {
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    <T> ResponseEntity<T> ofETag(WebRequest request, Supplier<Optional<String>> version, Supplier<T> body) {
+        return readOnly.execute(status -> respond(request, version.get(), body));
+    }
+
+    private static <T> ResponseEntity<T> respond(WebRequest request, Optional<String> version, Supplier<T> body) {
+        if (version.isEmpty()) {
+            return ResponseEntity.ok(body.get());
+        }
+        String etag = ETags.of(version.get(), request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE)
+                    .varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(body.get());
+    }
+}
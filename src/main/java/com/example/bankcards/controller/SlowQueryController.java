@@ -0,0 +1,63 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.SlowQueryDto;
+import com.example.bankcards.slowquery.SlowQueryRecorder;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/admin/slow-queries")
+@RequiredArgsConstructor
+@Tag(name = "Slow queries", description = "Recent statements over the slow query threshold")
+@SecurityRequirement(name = "bearerAuth")
+public class SlowQueryController {
+
+    private final SlowQueryRecorder slowQueryRecorder;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get recent slow queries",
+            description = "Returns the most recent statements that ran longer than " +
+                    "bankcards.slow-query.threshold-ms, newest first, with their parameter types, originating " +
+                    "repository method and, for a sample of them, the Postgres plan. Available only for administrators.",
+            responses = @ApiResponse(
+                    responseCode = "200",
+                    description = "Recent slow queries",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = SlowQueryDto.class)))
+            )
+    )
+    public ResponseEntity<List<SlowQueryDto>> getSlowQueries(
+            @Parameter(description = "Maximum number of queries") @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(slowQueryRecorder.recent(limit));
+    }
+
+    @DeleteMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Clear slow queries",
+            description = "Forgets the recorded slow queries, e.g. after deploying a fix. Available only for " +
+                    "administrators.",
+            responses = @ApiResponse(responseCode = "204", description = "Slow queries cleared")
+    )
+    public ResponseEntity<Void> clearSlowQueries() {
+        slowQueryRecorder.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
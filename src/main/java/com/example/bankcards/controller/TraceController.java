@@ -0,0 +1,71 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.TraceDto;
+import com.example.bankcards.tracing.TraceBuffer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("api/admin/traces")
+@RequiredArgsConstructor
+@Tag(name = "Traces", description = "Recently sampled request traces")
+@SecurityRequirement(name = "bearerAuth")
+public class TraceController {
+
+    private final TraceBuffer traceBuffer;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get recent traces",
+            description = "Returns the most recently sampled requests, newest first, with a span for each filter, " +
+                    "controller, service and repository call, card number cipher and JDBC statement. Requests are " +
+                    "sampled at bankcards.tracing.sample-rate. Available only for administrators.",
+            responses = @ApiResponse(
+                    responseCode = "200",
+                    description = "Recent traces",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = TraceDto.class)))
+            )
+    )
+    public ResponseEntity<List<TraceDto>> getRecentTraces(
+            @Parameter(description = "Maximum number of traces") @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(traceBuffer.recent(limit));
+    }
+
+    @GetMapping("/{traceId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get a trace",
+            description = "Returns the trace whose id a sampled response carried in the X-Trace-Id header, while " +
+                    "it is still buffered. Available only for administrators.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Trace found",
+                            content = @Content(schema = @Schema(implementation = TraceDto.class))
+                    ),
+                    @ApiResponse(responseCode = "404", description = "Trace not sampled or already overwritten")
+            }
+    )
+    public ResponseEntity<TraceDto> getTrace(
+            @Parameter(description = "Trace ID") @PathVariable("traceId") UUID traceId) {
+        return ResponseEntity.of(traceBuffer.find(traceId));
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.SlicePage;
 import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.dto.request.TransferRequest;
 import com.example.bankcards.service.TransferService;
@@ -12,10 +13,10 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.UUID;
 
@@ -27,6 +28,7 @@ import java.util.UUID;
 public class TransferController {
 
     private final TransferService transferService;
+    private final ConditionalResponses conditionalResponses;
 
     @PostMapping
     @PreAuthorize("hasRole('USER')")
@@ -50,18 +52,26 @@ public class TransferController {
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(
             summary = "Get transfer history",
-            description = "Retrieves paginated transfer history for the current user. Admins can see all transfers.",
+            description = "Retrieves transfer history for the current user, newest first. Admins can see all transfers. " +
+                    "Pages carry hasNext instead of a total; pass includeTotal to get one. A user's history answers " +
+                    "If-None-Match with 304 until one of their cards takes part in a transfer.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Transfer history retrieved successfully",
-                            content = @Content(schema = @Schema(implementation = TransferDto.class))),
+                            content = @Content(schema = @Schema(implementation = SlicePage.class))),
+                    @ApiResponse(responseCode = "304", description = "History unchanged since the ETag"),
                     @ApiResponse(responseCode = "403", description = "Access denied"),
                     @ApiResponse(responseCode = "404", description = "Card not found")}
     )
 
-    public ResponseEntity<Page<TransferDto>> getTransferHistory(
+    public ResponseEntity<SlicePage<TransferDto>> getTransferHistory(
             @Parameter(description = "Page number (0..N)") @RequestParam(defaultValue = "0") @Valid int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") @Valid int size,
-            @Parameter(description = "Filter by card ID") @RequestParam(required = false) UUID cardId) {
-        return ResponseEntity.ok(transferService.getTransferHistory(page, size, cardId));
+            @Parameter(description = "Filter by card ID") @RequestParam(required = false) UUID cardId,
+            @Parameter(description = "Also return the total; estimated when listing all transfers")
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest request) {
+        return conditionalResponses.ofETag(request,
+                () -> transferService.getTransferHistoryETag(page, size, cardId, includeTotal),
+                () -> transferService.getTransferHistory(page, size, cardId, includeTotal));
     }
 }
@@ -1,7 +1,13 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.dto.PageDto;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.UserImportReport;
+import com.example.bankcards.dto.UserPurgeProgress;
 import com.example.bankcards.dto.request.UserUpdateRequest;
+import com.example.bankcards.service.UserImportService;
+import com.example.bankcards.service.UserPurgeService;
 import com.example.bankcards.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,11 +19,15 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -28,7 +38,8 @@ import java.util.UUID;
 public class UserController {
 
     private final UserService userService;
-
+    private final UserImportService userImportService;
+    private final UserPurgeService userPurgeService;
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
@@ -57,21 +68,45 @@ public class UserController {
             responses = @ApiResponse(
                     responseCode = "200",
                     description = "List of users retrieved successfully",
-                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserDto.class)))
+                    content = @Content(schema = @Schema(implementation = PageDto.class))
             )
     )
-    public ResponseEntity<Page<UserDto>> getAllUsers(
+    public ResponseEntity<PageDto<UserDto>> getAllUsers(
             @Parameter(description = "Page number (0..N)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Number of users per page") @RequestParam(defaultValue = "20") int size,
             @Parameter(description = "Sort by field name") @RequestParam(defaultValue = "createdAt") String sortBy) {
-        return ResponseEntity.ok(userService.getAllUsers(page, size, sortBy));
+        return ResponseEntity.ok(PageDto.of(userService.getAllUsers(page, size, sortBy)));
+    }
+
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Scroll through users",
+            description = "Retrieves users page by page using a keyset cursor, so deep pages cost the same as the first one. " +
+                    "Pass nextCursor from the previous response to get the following page. Available only for administrators.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Page of users retrieved successfully",
+                            content = @Content(schema = @Schema(implementation = CursorPage.class))
+                    ),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor or cursor issued for another sort field")
+            }
+    )
+    public ResponseEntity<CursorPage<UserDto>> scrollUsers(
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Number of users per page") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Sort by field name") @RequestParam(defaultValue = "createdAt") String sortBy,
+            @Parameter(description = "Also count all users") @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(userService.getUsersByCursor(sortBy, cursor, size, includeTotal));
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
             summary = "Delete a user",
-            description = "Deletes a user by their ID. Available only for administrators.",
+            description = "Marks a user as deleted so they can no longer log in; their cards and transfers are " +
+                    "purged in the background. Available only for administrators.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "User deleted successfully"),
                     @ApiResponse(responseCode = "404", description = "User not found")
@@ -83,6 +118,22 @@ public class UserController {
         return ResponseEntity.ok().build();
     }
 
+    @GetMapping("/deletions")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get purge progress of deleted users",
+            description = "Returns how many transfers and cards have been removed for recently deleted users. " +
+                    "Available only for administrators.",
+            responses = @ApiResponse(
+                    responseCode = "200",
+                    description = "Purge progress",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserPurgeProgress.class)))
+            )
+    )
+    public ResponseEntity<List<UserPurgeProgress>> getDeletionProgress() {
+        return ResponseEntity.ok(userPurgeService.getProgress());
+    }
+
     @PatchMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
@@ -102,4 +153,28 @@ public class UserController {
             @Valid @RequestBody UserUpdateRequest request) {
         return ResponseEntity.ok(userService.updateUser(id, request));
     }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Bulk import users",
+            description = "Streams users from a CSV (login,password,email,firstName,lastName) or NDJSON body " +
+                    "and registers them in batches. Available only for administrators.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Per-row import report",
+                            content = @Content(schema = @Schema(implementation = UserImportReport.class))
+                    ),
+                    @ApiResponse(responseCode = "400", description = "Malformed import file")
+            }
+    )
+    public ResponseEntity<UserImportReport> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        UserImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? UserImportService.Format.NDJSON
+                : UserImportService.Format.CSV;
+        return ResponseEntity.ok(userImportService.importUsers(body, format));
+    }
 }
@@ -0,0 +1,39 @@
+package com.example.bankcards.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Remembers users who have just written, so that their own reads are served by the primary until
+ * the replicas have had time to catch up. The window is local to the node that handled the write.
+ */
+@Component
+public class ReadYourWritesWindow {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesWindow(@Value("${bankcards.datasource.read-your-writes-ms:5000}") long windowMillis) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(windowMillis))
+                .build();
+    }
+
+    public void markWrite(String login) {
+        recentWriters.put(login, Boolean.TRUE);
+    }
+
+    public boolean isActive(String login) {
+        return recentWriters.getIfPresent(login) != null;
+    }
+
+    public boolean isActiveForCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && isActive(authentication.getName());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.bankcards.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Target for read-only connections. Picks a replica round-robin among those whose replication lag is
+ * below the limit, and falls back to the primary when none is usable or the current user is inside
+ * their {@link ReadYourWritesWindow}.
+ * <p>
+ * Replicas start out unhealthy and are admitted by the first successful {@link #checkLag()}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    // zero when the replica has replayed everything it received, or when it is not in recovery at all
+    static final String LAG_SQL = """
+            select case
+                       when pg_is_in_recovery() and pg_last_wal_receive_lsn() is distinct from pg_last_wal_replay_lsn()
+                           then coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                       else 0
+                   end::bigint
+            """;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesWindow readYourWritesWindow;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<DataSource> replicas,
+                                    ReadYourWritesWindow readYourWritesWindow,
+                                    long maxLagMillis) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return determineTarget().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return determineTarget().getConnection(username, password);
+    }
+
+    DataSource determineTarget() {
+        if (readYourWritesWindow.isActiveForCurrentUser()) {
+            return primary;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.dataSource;
+            }
+        }
+        return primary;
+    }
+
+    @Scheduled(fixedDelayString = "${bankcards.datasource.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(i);
+            boolean healthy;
+            try {
+                Long lag = new JdbcTemplate(replica.dataSource).queryForObject(LAG_SQL, Long.class);
+                replica.lagMillis = lag == null ? 0 : lag;
+                healthy = replica.lagMillis <= maxLagMillis;
+            } catch (Exception e) {
+                log.debug("Replica {} lag check failed", i, e);
+                replica.lagMillis = -1;
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                if (healthy) {
+                    log.info("Replica {} is serving reads, lag {} ms", i, replica.lagMillis);
+                } else {
+                    log.warn("Replica {} is out of rotation, lag {} ms exceeds {} ms or check failed",
+                            i, replica.lagMillis, maxLagMillis);
+                }
+                replica.healthy = healthy;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagMillis;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
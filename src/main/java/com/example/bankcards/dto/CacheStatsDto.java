@@ -0,0 +1,45 @@
+package com.example.bankcards.dto;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.hibernate.stat.CacheRegionStatistics;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Cache statistics")
+public class CacheStatsDto {
+    private String name;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRatio;
+    private long loadCount;
+    private double averageLoadMillis;
+    private long evictionCount;
+
+    public CacheStatsDto(String name, long size, CacheStats stats) {
+        this.name = name;
+        this.size = size;
+        this.hitCount = stats.hitCount();
+        this.missCount = stats.missCount();
+        this.hitRatio = stats.hitRate();
+        this.loadCount = stats.loadCount();
+        this.averageLoadMillis = stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1);
+        this.evictionCount = stats.evictionCount();
+    }
+
+    public CacheStatsDto(String name, CacheRegionStatistics stats) {
+        long requests = stats.getHitCount() + stats.getMissCount();
+        this.name = name;
+        // JCache regions do not report their size
+        this.size = Math.max(stats.getElementCountInMemory(), -1);
+        this.hitCount = stats.getHitCount();
+        this.missCount = stats.getMissCount();
+        this.hitRatio = requests == 0 ? 1.0 : (double) stats.getHitCount() / requests;
+        this.loadCount = stats.getPutCount();
+    }
+}
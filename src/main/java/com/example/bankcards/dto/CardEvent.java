@@ -0,0 +1,43 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Committed change to one of the subscriber's cards")
+public class CardEvent {
+
+    public enum Type {
+        TRANSFER,
+        BLOCKED,
+        ACTIVATED,
+        BLOCK_REQUESTED
+    }
+
+    private Type type;
+    private UUID cardId;
+    private BigDecimal balance;
+    private CardStatus status;
+    private boolean blockRequested;
+
+    @Schema(description = "Card version after the change; events may arrive out of order, keep the highest")
+    private Long version;
+
+    public CardEvent(Type type, Card card) {
+        this.type = type;
+        this.cardId = card.getId();
+        this.balance = card.getBalance();
+        this.status = card.getStatus();
+        this.blockRequested = card.isBlockRequested();
+        this.version = card.getVersion();
+    }
+}
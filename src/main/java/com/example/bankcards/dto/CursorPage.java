@@ -0,0 +1,24 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Cursor-based page")
+public class CursorPage<T> {
+    private List<T> content;
+
+    @Schema(description = "Cursor of the next page, absent on the last page")
+    private String nextCursor;
+
+    private boolean hasNext;
+
+    @Schema(description = "Total number of elements, only present when requested")
+    private Long totalElements;
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Page that only knows whether another page follows")
+public class SlicePage<T> {
+    private List<T> content;
+
+    private int page;
+
+    private int size;
+
+    private boolean hasNext;
+
+    @Schema(description = "Total number of elements, only present when requested; " +
+            "the planner's estimate when listing all transfers")
+    private Long totalElements;
+}
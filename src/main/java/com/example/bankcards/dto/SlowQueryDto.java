@@ -0,0 +1,27 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A statement that ran longer than bankcards.slow-query.threshold-ms")
+public class SlowQueryDto {
+    private String sql;
+    @Schema(description = "Type of each bound parameter, in order; values are not recorded")
+    private List<String> parameterTypes;
+    @Schema(description = "Repository method that sent the statement, or the service method whose commit flushed it")
+    private String origin;
+    private long durationMicros;
+    private LocalDateTime executedAt;
+    @Schema(description = "Postgres plan, when the statement was sampled for EXPLAIN")
+    private String plan;
+    @Schema(description = "Whether the plan comes from EXPLAIN ANALYZE; writes and locking reads get the estimated plan")
+    private boolean planAnalyzed;
+}
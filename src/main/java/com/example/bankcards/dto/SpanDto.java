@@ -0,0 +1,20 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A timed step of a traced request")
+public class SpanDto {
+    private String name;
+    @Schema(description = "SQL of a JDBC span")
+    private String detail;
+    private int depth;
+    @Schema(description = "Start, relative to the start of the request")
+    private long offsetMicros;
+    private long durationMicros;
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A traced request")
+public class TraceDto {
+    private UUID id;
+    @Schema(description = "Method and path of the request")
+    private String name;
+    private LocalDateTime startedAt;
+    private long durationMicros;
+    @Schema(description = "Spans left out because the trace reached bankcards.tracing.max-spans")
+    private int droppedSpans;
+    @Schema(description = "Spans in the order they started; depth 0 is the whole request")
+    private List<SpanDto> spans;
+}
@@ -3,6 +3,7 @@ package com.example.bankcards.dto;
 import com.example.bankcards.entity.Transfer;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -12,6 +13,7 @@ import java.util.UUID;
 
 @Data
 @NoArgsConstructor
+@AllArgsConstructor
 @Schema(description = "Transfer information")
 public class TransferDto {
     private UUID id;
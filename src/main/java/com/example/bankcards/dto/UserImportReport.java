@@ -0,0 +1,30 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Bulk user import report")
+public class UserImportReport {
+    private long total;
+    private long created;
+    private long duplicates;
+    private long invalid;
+    private List<UserImportRowResult> results;
+
+    public UserImportReport(List<UserImportRowResult> results) {
+        this.results = results;
+        this.total = results.size();
+        for (UserImportRowResult result : results) {
+            switch (result.getStatus()) {
+                case CREATED -> created++;
+                case DUPLICATE -> duplicates++;
+                case INVALID -> invalid++;
+            }
+        }
+    }
+}
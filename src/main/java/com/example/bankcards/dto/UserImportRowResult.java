@@ -0,0 +1,24 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Result of importing a single user row")
+public class UserImportRowResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    private long line;
+    private String login;
+    private Status status;
+    private String message;
+}
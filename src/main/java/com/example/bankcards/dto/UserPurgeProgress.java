@@ -0,0 +1,34 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Progress of purging a deleted user's data")
+public class UserPurgeProgress {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private UUID userId;
+    private Status status;
+    private long transfersDeleted;
+    private long cardsDeleted;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+
+    public UserPurgeProgress(UUID userId) {
+        this.userId = userId;
+        this.status = Status.RUNNING;
+        this.startedAt = LocalDateTime.now();
+    }
+}
@@ -1,25 +1,31 @@
 package com.example.bankcards.entity;
 
 import com.example.bankcards.util.CardNumberAttributeConverter;
+import com.example.bankcards.util.GeneratedUuidV7;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
+// ddl-auto creates the plain owner index; the changelogs add its INCLUDE columns and the partial block request index
 @Table(name = "cards", indexes = {
-        @Index(name = "idx_card_owner", columnList = "user_id"),
-        @Index(name = "idx_card_status", columnList = "status")})
+        @Index(name = "idx_card_owner_status_created", columnList = "user_id, status, created_date DESC, id DESC")})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Getter
 @Setter
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
 public class Card {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
     private UUID id;
 
     @Convert(converter = CardNumberAttributeConverter.class)
@@ -54,6 +60,11 @@ public class Card {
     @Builder.Default
     private boolean blockRequested = false;
 
+    // bumped by Hibernate on every update, so it changes with the balance and the status; the card's ETag
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     public boolean isActive() {
         return (status == CardStatus.ACTIVE);
     }
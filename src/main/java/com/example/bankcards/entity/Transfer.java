@@ -1,5 +1,6 @@
 package com.example.bankcards.entity;
 
+import com.example.bankcards.util.GeneratedUuidV7;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -9,8 +10,9 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "transfers", indexes = {
-        @Index(name = "idx_transfer_from_card", columnList = "from_card_id"),
-        @Index(name = "idx_transfer_to_card", columnList = "to_card_id")
+        @Index(name = "idx_transfer_from_card_date", columnList = "from_card_id, transfer_date DESC"),
+        @Index(name = "idx_transfer_to_card_date", columnList = "to_card_id, transfer_date DESC"),
+        @Index(name = "idx_transfer_date", columnList = "transfer_date DESC")
 })
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +22,7 @@ import java.util.UUID;
 public class Transfer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,32 +1,45 @@
 package com.example.bankcards.entity;
 
+import com.example.bankcards.util.GeneratedUuidV7;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "users", indexes = {
-        @Index(name = "idx_user_email", columnList = "email")})
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.LOGIN_CONSTRAINT, columnNames = "login"),
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email")}, indexes = {
+        @Index(name = "idx_user_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_user_first_name_id", columnList = "first_name, id"),
+        @Index(name = "idx_user_last_name_id", columnList = "last_name, id"),
+        @Index(name = "idx_user_login_id", columnList = "login, id"),
+        @Index(name = "idx_user_email_id", columnList = "email, id")})
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class User {
+    public static final String LOGIN_CONSTRAINT = "uk_users_login";
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
     private UUID id;
 
-    @Column(unique = true, nullable = false, length = 50)
+    @Column(nullable = false, length = 50)
     private String login;
 
     @Column(name = "password_hash", nullable = false)
     private String passwordHash;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
     @Column(name = "first_name", nullable = false, length = 50)
@@ -48,6 +61,18 @@ public class User {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    // bumped with every change to the user's cards or transfers, see CardVersionRepository; never written from here
+    @Column(name = "cards_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "bigint default 0")
+    private long cardsVersion;
+
+    public boolean isDeleted() {
+        return deletedAt != null;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,124 @@
+package com.example.bankcards.events;
+
+import com.example.bankcards.dto.CardEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent event streams of the users connected to this node. A stream is an async request, so an idle
+ * subscriber holds a socket but no thread. Dispatch reads the subscriber sets without locking and hands each send
+ * to its own virtual thread, so a slow client delays only itself; sends to one stream may therefore overtake each
+ * other, which the card version in every event lets a client detect.
+ */
+@Component
+@Slf4j
+public class CardEventHub {
+
+    private final Map<UUID, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger streams = new AtomicInteger();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final long timeoutMillis;
+
+    public CardEventHub(MeterRegistry registry,
+                        @Value("${bankcards.card-events.timeout-ms:1800000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        Gauge.builder("bankcards.card.events.streams", streams, AtomicInteger::get)
+                .description("Open card event streams on this node")
+                .register(registry);
+    }
+
+    /**
+     * Ends every stream before graceful shutdown starts waiting for open requests, so clients reconnect to another
+     * node at once instead of the shutdown timing out.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void closeStreams() {
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    public SseEmitter subscribe(UUID userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        // compute rather than computeIfAbsent, so an unsubscribe cannot drop the set this emitter is added to
+        subscribers.compute(userId, (id, emitters) -> {
+            Set<SseEmitter> set = emitters == null ? ConcurrentHashMap.newKeySet() : emitters;
+            set.add(emitter);
+            return set;
+        });
+        streams.incrementAndGet();
+        emitter.onCompletion(() -> unsubscribe(userId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unsubscribe(userId, emitter));
+        // commits the response, so the client sees the stream open before the first event
+        send(userId, emitter, SseEmitter.event().comment("subscribed"));
+        return emitter;
+    }
+
+    public void dispatch(UUID userId, CardEvent event) {
+        Set<SseEmitter> emitters = subscribers.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            senders.execute(() -> send(userId, emitter, SseEmitter.event()
+                    .name(event.getType().name().toLowerCase())
+                    .data(event)));
+        }
+    }
+
+    /**
+     * Writes a comment to every stream, so proxies keep idle streams open and streams of clients that went away
+     * without closing are found and released.
+     */
+    @Scheduled(fixedDelayString = "${bankcards.card-events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach((userId, emitters) -> emitters.forEach(emitter ->
+                senders.execute(() -> send(userId, emitter, SseEmitter.event().comment("")))));
+    }
+
+    public int streams() {
+        return streams.get();
+    }
+
+    private void send(UUID userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Card event stream of user {} closed: {}", userId, e.getMessage());
+            unsubscribe(userId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(UUID userId, SseEmitter emitter) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(userId, (id, emitters) -> {
+            removed[0] = emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        if (removed[0]) {
+            streams.decrementAndGet();
+        }
+    }
+}
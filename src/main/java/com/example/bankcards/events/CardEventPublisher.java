@@ -0,0 +1,143 @@
+package com.example.bankcards.events;
+
+import com.example.bankcards.dto.CardEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Sends card events to the owner's streams once the change is committed: to this node's {@link CardEventHub} after
+ * commit, and, with {@code bankcards.card-events.relay-enabled}, to the other nodes through a Postgres NOTIFY, which
+ * is itself only delivered on commit. A rolled back transfer attempt sends nothing.
+ * <p>
+ * Every committing transaction that notified queues on one lock in Postgres, so the events of a transaction go out
+ * in a single notification, one line per event, and the relay stays off on a single node.
+ */
+@Component
+@Slf4j
+public class CardEventPublisher {
+
+    public static final String CHANNEL = "card_events";
+
+    // lets the relay skip the notifications this node sent, which it has already dispatched
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final CardEventHub hub;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean relayEnabled;
+
+    public CardEventPublisher(CardEventHub hub,
+                              JdbcTemplate jdbcTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${bankcards.card-events.relay-enabled:false}") boolean relayEnabled) {
+        this.hub = hub;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.relayEnabled = relayEnabled;
+    }
+
+    public void publish(UUID userId, CardEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            hub.dispatch(userId, event);
+            notifyOtherNodes(List.of(new AddressedEvent(userId, event)));
+            return;
+        }
+        TransactionEvents events = (TransactionEvents) TransactionSynchronizationManager.getResource(this);
+        if (events == null) {
+            events = new TransactionEvents();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(events);
+        }
+        events.add(new AddressedEvent(userId, event));
+    }
+
+    private void notifyOtherNodes(List<AddressedEvent> events) {
+        if (!relayEnabled || events.isEmpty()) {
+            return;
+        }
+        String payload = events.stream()
+                .map(addressed -> toPayload(addressed.userId(), addressed.event()))
+                .collect(Collectors.joining("\n"));
+        jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+    }
+
+    String toPayload(UUID userId, CardEvent event) {
+        try {
+            return nodeId + "|" + userId + "|" + objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Dispatches the events another node published; returns false for this node's own and malformed payloads.
+     */
+    boolean dispatchFromPayload(String payload) {
+        boolean dispatched = false;
+        for (String line : payload.split("\n")) {
+            dispatched |= dispatchFromLine(line);
+        }
+        return dispatched;
+    }
+
+    private boolean dispatchFromLine(String line) {
+        String[] parts = line.split("\\|", 3);
+        if (parts.length < 3) {
+            log.warn("Ignoring malformed card event payload '{}'", line);
+            return false;
+        }
+        if (parts[0].equals(nodeId)) {
+            return false;
+        }
+        try {
+            hub.dispatch(UUID.fromString(parts[1]), objectMapper.readValue(parts[2], CardEvent.class));
+            return true;
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.warn("Ignoring malformed card event payload '{}': {}", line, e.getMessage());
+            return false;
+        }
+    }
+
+    private record AddressedEvent(UUID userId, CardEvent event) {
+    }
+
+    /**
+     * The events of one transaction: sent to the other nodes just before it commits, and to this node's streams
+     * after.
+     */
+    private final class TransactionEvents implements TransactionSynchronization {
+
+        private final List<AddressedEvent> events = new ArrayList<>();
+
+        void add(AddressedEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            notifyOtherNodes(events);
+        }
+
+        @Override
+        public void afterCommit() {
+            events.forEach(addressed -> hub.dispatch(addressed.userId(), addressed.event()));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CardEventPublisher.this);
+        }
+    }
+}
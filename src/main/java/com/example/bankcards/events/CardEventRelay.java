@@ -0,0 +1,91 @@
+package com.example.bankcards.events;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Dispatches card events published by other nodes to the streams connected here. Uses its own connection outside
+ * the pool, since a LISTEN session has to stay open for the lifetime of the application; events sent while it is
+ * reconnecting are lost, and clients catch up with a conditional GET.
+ */
+@Component
+@ConditionalOnProperty(name = "bankcards.card-events.relay-enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class CardEventRelay {
+
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final CardEventPublisher publisher;
+    private final DataSourceProperties dataSourceProperties;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = new Thread(this::listen, "card-event-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CardEventPublisher.CHANNEL);
+                }
+                log.info("Relaying card events on channel '{}'", CardEventPublisher.CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        publisher.dispatchFromPayload(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Card event relay connection lost: {}. Reconnecting in {} ms",
+                        e.getMessage(), RECONNECT_DELAY_MILLIS);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
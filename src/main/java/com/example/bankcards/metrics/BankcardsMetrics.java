@@ -0,0 +1,84 @@
+package com.example.bankcards.metrics;
+
+import com.example.bankcards.util.CardNumberAttributeConverter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Business counters. Every counter is registered up front and kept in a field, so counting on the request
+ * path is a plain add, with no registry lookup and no tags built per call.
+ */
+@Component
+public class BankcardsMetrics {
+
+    public enum TransferRejection {
+        SAME_CARD, NOT_OWNER, CARD_INACTIVE, INSUFFICIENT_FUNDS, CARD_NOT_FOUND
+    }
+
+    public enum JwtFailure {
+        EXPIRED, INVALID
+    }
+
+    private final Counter transfers;
+    private final Counter retriedTransfers;
+    private final Map<TransferRejection, Counter> rejectedTransfers = new EnumMap<>(TransferRejection.class);
+    private final Map<JwtFailure, Counter> jwtFailures = new EnumMap<>(JwtFailure.class);
+
+    public BankcardsMetrics(MeterRegistry registry) {
+        transfers = Counter.builder("bankcards.transfers")
+                .description("Completed transfers")
+                .register(registry);
+        retriedTransfers = Counter.builder("bankcards.transfers.retries")
+                .description("Transfer attempts run again after a conflict with a concurrent transfer")
+                .register(registry);
+        for (TransferRejection reason : TransferRejection.values()) {
+            rejectedTransfers.put(reason, Counter.builder("bankcards.transfers.rejected")
+                    .description("Transfers rejected before any balance changed")
+                    .tag("reason", tagValue(reason))
+                    .register(registry));
+        }
+        for (JwtFailure reason : JwtFailure.values()) {
+            jwtFailures.put(reason, Counter.builder("bankcards.jwt.failures")
+                    .description("Requests refused for an expired or invalid token")
+                    .tag("reason", tagValue(reason))
+                    .register(registry));
+        }
+        // the converter is created by Hibernate, so it counts into static adders that are read on scrape
+        FunctionCounter.builder("bankcards.pan.cipher", CardNumberAttributeConverter.class,
+                        converter -> CardNumberAttributeConverter.encryptions())
+                .description("Card number encryptions and decryptions")
+                .tag("operation", "encrypt")
+                .register(registry);
+        FunctionCounter.builder("bankcards.pan.cipher", CardNumberAttributeConverter.class,
+                        converter -> CardNumberAttributeConverter.decryptions())
+                .description("Card number encryptions and decryptions")
+                .tag("operation", "decrypt")
+                .register(registry);
+    }
+
+    public void transferCompleted() {
+        transfers.increment();
+    }
+
+    public void transferRetried() {
+        retriedTransfers.increment();
+    }
+
+    public void transferRejected(TransferRejection reason) {
+        rejectedTransfers.get(reason).increment();
+    }
+
+    public void jwtFailed(JwtFailure reason) {
+        jwtFailures.get(reason).increment();
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
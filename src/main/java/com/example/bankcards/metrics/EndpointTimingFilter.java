@@ -0,0 +1,77 @@
+package com.example.bankcards.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every request, authentication included, into a latency histogram per method, uri template and outcome.
+ * Timers are created on the first request to an endpoint and looked up by the strings the container and the
+ * handler mapping already hold, so later requests record without allocating.
+ */
+@RequiredArgsConstructor
+public class EndpointTimingFilter implements Filter {
+
+    static final String UNMAPPED = "UNMAPPED";
+    static final String UNKNOWN_METHOD = "UNKNOWN";
+    private static final String[] OUTCOMES = {"INFORMATIONAL", "SUCCESS", "REDIRECTION", "CLIENT_ERROR", "SERVER_ERROR"};
+
+    private final MeterRegistry registry;
+    // method -> uri template -> timer per status class
+    private final ConcurrentMap<String, ConcurrentMap<String, Timer[]>> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        long started = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            Object pattern = httpRequest.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern instanceof String template ? template : UNMAPPED;
+            timer(method(httpRequest.getMethod()), uri, ((HttpServletResponse) response).getStatus())
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // the method comes from the client, so anything outside the standard set shares one tag instead of a timer each
+    private static String method(String method) {
+        return switch (method) {
+            case "GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE" -> method;
+            default -> UNKNOWN_METHOD;
+        };
+    }
+
+    private Timer timer(String method, String uri, int status) {
+        ConcurrentMap<String, Timer[]> byUri = timers.get(method);
+        if (byUri == null) {
+            byUri = timers.computeIfAbsent(method, key -> new ConcurrentHashMap<>());
+        }
+        Timer[] byOutcome = byUri.get(uri);
+        if (byOutcome == null) {
+            byOutcome = byUri.computeIfAbsent(uri, key -> new Timer[OUTCOMES.length]);
+        }
+        int outcome = Math.min(Math.max(status / 100 - 1, 0), OUTCOMES.length - 1);
+        Timer timer = byOutcome[outcome];
+        if (timer == null) {
+            timer = Timers.latency("bankcards.http.requests", registry,
+                    "method", method, "uri", uri, "outcome", OUTCOMES[outcome]);
+            byOutcome[outcome] = timer;
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.bankcards.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the calls to one repository, one latency histogram per method, keyed by the {@link Method} the proxy
+ * hands over on every call.
+ */
+class RepositoryTimingInterceptor implements MethodInterceptor {
+
+    private final MeterRegistry registry;
+    private final String repository;
+    private final ConcurrentMap<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    RepositoryTimingInterceptor(MeterRegistry registry, Class<?> repositoryInterface) {
+        this.registry = registry;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Timer timer = timers.get(invocation.getMethod());
+        if (timer == null) {
+            timer = timers.computeIfAbsent(invocation.getMethod(), method -> Timers.latency(
+                    "bankcards.repository.invocations", registry, "repository", repository, "method", method.getName()));
+        }
+        long started = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Adds a {@link RepositoryTimingInterceptor} to every Spring Data repository proxy. The registry is resolved
+ * when a repository is created rather than with this post processor, which has to exist before any other bean.
+ */
+@RequiredArgsConstructor
+public class RepositoryTimingPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, information) -> proxyFactory.addAdvice(new RepositoryTimingInterceptor(
+                            registry.getObject(), information.getRepositoryInterface()))));
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+final class Timers {
+
+    private Timers() {
+    }
+
+    /**
+     * A timer that keeps a decaying HdrHistogram and publishes its p50, p99 and p999. Prometheus drops these
+     * percentiles once bucket histograms are enabled, so none are published.
+     */
+    static Timer latency(String name, MeterRegistry registry, String... tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(registry);
+    }
+}
@@ -1,23 +1,59 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.util.CardNumberMasker;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface CardRepository extends JpaRepository<Card, UUID> {
 
-    Page<Card> findByOwner_Id(UUID userId, Pageable pageable);
+    // listings read only the card columns the dto shows, masked from last4, so no entity or pan is loaded
+    String CARD_DTO = "select new com.example.bankcards.dto.CardDto(c.id, " +
+            "concat('" + CardNumberMasker.MASK_PREFIX + "', c.last4), c.cardHolderName, c.owner.id, " +
+            "c.createdDate, c.expiryDate, c.status, c.blockRequested) from Card c ";
 
-    Page<Card> findByOwner_IdAndStatus(UUID userId, CardStatus status, Pageable pageable);
+    String HOLDER_NAME_CONTAINS =
+            "upper(c.cardHolderName) like upper(concat('%', :#{escape(#search)}, '%')) escape :#{escapeCharacter()}";
 
-    Page<Card> findByOwner_IdAndCardHolderNameContainingIgnoreCase(UUID userId, String search, Pageable pageable);
+    @Query(CARD_DTO + "where c.owner.id = :userId")
+    Page<CardDto> findDtoByOwnerId(UUID userId, Pageable pageable);
 
-    Page<Card> findByOwner_IdAndStatusAndCardHolderNameContainingIgnoreCase(UUID userId, CardStatus status, String search, Pageable pageable);
+    @Query(CARD_DTO + "where c.owner.id = :userId and c.status = :status")
+    Page<CardDto> findDtoByOwnerIdAndStatus(UUID userId, CardStatus status, Pageable pageable);
+
+    @Query(CARD_DTO + "where c.owner.id = :userId and " + HOLDER_NAME_CONTAINS)
+    Page<CardDto> searchDtoByOwnerId(UUID userId, String search, Pageable pageable);
+
+    @Query(CARD_DTO + "where c.owner.id = :userId and c.status = :status and " + HOLDER_NAME_CONTAINS)
+    Page<CardDto> searchDtoByOwnerIdAndStatus(UUID userId, CardStatus status, String search, Pageable pageable);
+
+    @Query(CARD_DTO)
+    List<CardDto> findAllDto();
+
+    @Query(CARD_DTO + "where c.blockRequested = true")
+    Page<CardDto> findDtoByBlockRequestedTrue(Pageable pageable);
+
+    boolean existsByOwner_IdAndBalanceGreaterThan(UUID userId, BigDecimal balance);
+
+    // queries always read the row, unlike findById which may be answered by the second-level cache
+    @Query("select c from Card c where c.id = :id")
+    Optional<Card> findUncachedById(UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id = :id")
+    Optional<Card> findByIdForUpdate(UUID id);
 
 }
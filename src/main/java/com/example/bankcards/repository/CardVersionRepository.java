@@ -0,0 +1,51 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The versions behind the ETags of card balances, card lists and transfer history. A card's {@code version} is
+ * bumped by Hibernate on every update of the card; a user's {@code cards_version} is bumped here whenever one of
+ * their cards is created, changed or deleted, or takes part in a transfer. Reads never load an entity.
+ * <p>
+ * Plain JDBC, so a bump does not make Hibernate evict the second-level user region the way a bulk JPQL update
+ * would. It runs in the caller's transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardVersionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<Long> findCardVersion(UUID cardId, UUID ownerId) {
+        return first("select version from cards where id = ? and user_id = ?", cardId, ownerId);
+    }
+
+    public Optional<Long> findCardsVersion(UUID userId) {
+        return first("select cards_version from users where id = ? and deleted_at is null", userId);
+    }
+
+    /**
+     * The {@code cards_version} of the card's owner, which moves with the card's transfers; only when the owner is
+     * {@code ownerId}, unless that is null.
+     */
+    public Optional<Long> findOwnerCardsVersion(UUID cardId, UUID ownerId) {
+        String sql = """
+                select u.cards_version from cards c join users u on u.id = c.user_id
+                where c.id = ? and u.deleted_at is null
+                """;
+        return ownerId == null ? first(sql, cardId) : first(sql + " and u.id = ?", cardId, ownerId);
+    }
+
+    public void bumpCardsVersion(UUID userId) {
+        jdbcTemplate.update("update users set cards_version = cards_version + 1 where id = ?", userId);
+    }
+
+    private Optional<Long> first(String sql, Object... args) {
+        return jdbcTemplate.queryForList(sql, Long.class, args).stream().findFirst();
+    }
+}
@@ -1,8 +1,9 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.entity.Transfer;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -11,19 +12,44 @@ import java.util.UUID;
 
 @Repository
 public interface TransferRepository extends JpaRepository<Transfer, UUID> {
-    @Query("""
-            select t
-            from Transfer t
+
+    // history reads the transfer row only; slices fetch one extra row instead of counting
+    String TRANSFER_DTO = "select new com.example.bankcards.dto.TransferDto(t.id, t.fromCard.id, t.toCard.id, " +
+            "t.amount, t.description, t.transferDate) from Transfer t ";
+
+    @Query(TRANSFER_DTO + """
             where t.fromCard.id = :cardId
                or t.toCard.id   = :cardId
             """)
-    Page<Transfer> findByCardId(UUID cardId, Pageable pageable);
+    Slice<TransferDto> findDtoByCardId(UUID cardId, Pageable pageable);
+
+    // the API only moves money between one owner's cards, but bulk-loaded transfers may cross owners, so both
+    // sides count; each branch walks the owner's cards into one side's card index, bounding the set to the user
+    String BY_USER = """
+            where t.id in (select f.id from Transfer f where f.fromCard.owner.id = :userId
+                           union all
+                           select r.id from Transfer r where r.toCard.owner.id = :userId)
+            """;
+
+    @Query(TRANSFER_DTO + BY_USER)
+    Slice<TransferDto> findDtoByUserId(UUID userId, Pageable pageable);
+
+    @Query(TRANSFER_DTO)
+    Slice<TransferDto> findAllDto(Pageable pageable);
 
     @Query("""
-            select t
+            select count(t)
             from Transfer t
-            where t.fromCard.owner.id = :userId
-               or t.toCard.owner.id   = :userId
+            where t.fromCard.id = :cardId
+               or t.toCard.id   = :cardId
             """)
-    Page<Transfer> findByUserId(UUID userId, Pageable pageable);
+    long countByCardId(UUID cardId);
+
+    @Query("select count(t) from Transfer t " + BY_USER)
+    long countByUserId(UUID userId);
+
+    // row count as of the last vacuum or analyze; -1 if the table has never been analyzed
+    @Query(value = "select cast(reltuples as bigint) from pg_class where oid = to_regclass('transfers')",
+            nativeQuery = true)
+    long estimateCount();
 }
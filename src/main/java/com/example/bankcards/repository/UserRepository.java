@@ -1,10 +1,22 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
@@ -12,7 +24,30 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     boolean existsByLogin(String login);
 
+    @Query("select u from User u where u.login = :login and u.deletedAt is null")
     Optional<User> findByLogin(String login);
 
+    @Override
+    @Query(value = "select u from User u where u.deletedAt is null",
+            countQuery = "select count(u) from User u where u.deletedAt is null")
+    Page<User> findAll(Pageable pageable);
+
     boolean existsByEmail(String email);
+
+    Window<User> findByDeletedAtIsNull(ScrollPosition position, Sort sort, Limit limit);
+
+    long countByDeletedAtIsNull();
+
+    @Modifying
+    @Query("update User u set u.deletedAt = :deletedAt where u.id = :id and u.deletedAt is null")
+    int markDeleted(UUID id, LocalDateTime deletedAt);
+
+    @Query("select u.id from User u where u.deletedAt is not null order by u.deletedAt")
+    List<UUID> findDeletedUserIds(Limit limit);
+
+    @Query("select u.login from User u where u.login in :logins")
+    Set<String> findExistingLogins(Collection<String> logins);
+
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(Collection<String> emails);
 }
@@ -1,5 +1,10 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.metrics.BankcardsMetrics;
+import com.example.bankcards.metrics.BankcardsMetrics.JwtFailure;
+import com.example.bankcards.tracing.Span;
+import com.example.bankcards.tracing.Tracing;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -25,6 +30,7 @@ import java.util.List;
 @Slf4j
 public class MyJwtFilter extends OncePerRequestFilter {
     private final JwtService jwt;
+    private final BankcardsMetrics metrics;
     @Value("${spring.security.jwt.header}")
     private String header;
 
@@ -42,7 +48,7 @@ public class MyJwtFilter extends OncePerRequestFilter {
 
         String token = resolveToken(request);
         if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
+            try (Span span = Tracing.span("MyJwtFilter.parse")) {
                 var claims = jwt.parse(token).getBody();
                 String username = claims.getSubject();
                 @SuppressWarnings("unchecked")
@@ -59,6 +65,7 @@ public class MyJwtFilter extends OncePerRequestFilter {
                 log.info("User '{}' authenticated successfully", username);
             } catch (JwtException | IllegalArgumentException e) {
                 log.warn("Invalid or expired JWT token: {}", e.getMessage());
+                metrics.jwtFailed(e instanceof ExpiredJwtException ? JwtFailure.EXPIRED : JwtFailure.INVALID);
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.setContentType("application/json");
                 response.getWriter().write("{\"code\":\"UNAUTHORIZED\",\"message\":\"Invalid or expired token\"}");
@@ -1,15 +1,20 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.cache.UserExistenceFilter;
 import com.example.bankcards.dto.LoginResponse;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.dto.request.LoginRequest;
 import com.example.bankcards.dto.request.UserRegistrationRequest;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.UserAlreadyExistsException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.util.ConstraintViolations;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +27,8 @@ import java.util.List;
 public class AuthService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final UserExistenceFilter existenceFilter;
     private final JwtService jwt;
     private final BCryptPasswordEncoder encoder;
 
@@ -30,7 +37,7 @@ public class AuthService {
         String rawPassword = request.getPassword();
 
         log.info("User '{}' is logging in", login);
-        User user = userRepository.findByLogin(login)
+        User user = userCache.findByLogin(login)
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
 
         if (!encoder.matches(rawPassword, user.getPasswordHash())) {
@@ -45,8 +52,11 @@ public class AuthService {
     public UserDto register(UserRegistrationRequest request) {
         log.info("Registering user with login: {}", request.getLogin());
 
-        if (userRepository.existsByLogin(request.getLogin())) {
-            throw new RuntimeException("User with login: " + request.getLogin() + " already exists");
+        if (existenceFilter.mightContainLogin(request.getLogin()) && userRepository.existsByLogin(request.getLogin())) {
+            throw new UserAlreadyExistsException("User with login: " + request.getLogin() + " already exists");
+        }
+        if (existenceFilter.mightContainEmail(request.getEmail()) && userRepository.existsByEmail(request.getEmail())) {
+            throw new UserAlreadyExistsException("Email '" + request.getEmail() + "' is already in use");
         }
 
         String hashedPassword = encoder.encode(request.getPassword());
@@ -59,7 +69,22 @@ public class AuthService {
                 .lastName(request.getLastName())
                 .build();
 
-        User savedUser = userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // the filter only knows this node's registrations, so the unique constraints have the last word
+            if (ConstraintViolations.violates(e, User.LOGIN_CONSTRAINT)) {
+                throw new UserAlreadyExistsException("User with login: " + request.getLogin() + " already exists");
+            }
+            if (ConstraintViolations.violates(e, User.EMAIL_CONSTRAINT)) {
+                throw new UserAlreadyExistsException("Email '" + request.getEmail() + "' is already in use");
+            }
+            throw e;
+        }
+        existenceFilter.addLogin(savedUser.getLogin());
+        existenceFilter.addEmail(savedUser.getEmail());
+        userCache.evict(savedUser.getId(), savedUser.getLogin());
         log.info("User registered with ID: {}", savedUser.getId());
 
         return new UserDto(savedUser);
@@ -1,31 +1,42 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.UserCache;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardEvent;
 import com.example.bankcards.dto.request.CardCreationRequest;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.events.CardEventHub;
+import com.example.bankcards.events.CardEventPublisher;
 import com.example.bankcards.exception.AccessDeniedException;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.CardOperationException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardVersionRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.tracing.Span;
+import com.example.bankcards.tracing.Tracing;
 import com.example.bankcards.util.CardNumberMasker;
+import com.example.bankcards.util.ETags;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -35,14 +46,19 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class CardService {
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
+    private final UserCache userCache;
     private static final AtomicInteger counter = new AtomicInteger(0);
     private final CardNumberMasker cardNumberMasker;
+    private final CardVersionRepository cardVersionRepository;
+    private final CardEventHub cardEventHub;
+    private final CardEventPublisher cardEventPublisher;
 
     @Transactional
     public CardDto createCard(UUID userId, CardCreationRequest request) {
         log.info("Creating card for user with ID: {}", userId);
 
         User user = userRepository.findById(userId)
+                .filter(owner -> !owner.isDeleted())
                 .orElseThrow(() -> new UserNotFoundException(userId));
 
         String plainCardNumber = generateUniqueCardNumber();
@@ -61,6 +77,7 @@ public class CardService {
                 .build();
 
         cardRepository.save(card);
+        cardVersionRepository.bumpCardsVersion(userId);
         log.info("Card created with ID: {}", card.getId());
 
         return convertCardToDto(card);
@@ -69,7 +86,7 @@ public class CardService {
     @Transactional
     public CardDto blockCard(UUID cardId) {
         log.info("Blocking card with ID: {}", cardId);
-        Card card = findCardById(cardId);
+        Card card = findCardForUpdate(cardId);
 
         if (!card.isActive() || card.isExpired()) {
             throw new CardOperationException("Cannot block card. Card must be ACTIVE and not expired. Current status: "
@@ -77,7 +94,10 @@ public class CardService {
         }
         card.setStatus(CardStatus.BLOCKED);
         card.setBlockRequested(false);
-        cardRepository.save(card);
+        // the card row before the user row, the order transfers lock them in
+        cardRepository.saveAndFlush(card);
+        cardVersionRepository.bumpCardsVersion(card.getOwner().getId());
+        cardEventPublisher.publish(card.getOwner().getId(), new CardEvent(CardEvent.Type.BLOCKED, card));
         log.info("Card blocked with ID: {}", card.getId());
 
         return convertCardToDto(card);
@@ -85,14 +105,16 @@ public class CardService {
 
     @Transactional
     public CardDto activateCard(UUID cardId) {
-        Card card = findCardById(cardId);
+        Card card = findCardForUpdate(cardId);
 
         if (!card.isBlocked() || card.isExpired()) {
             throw new CardOperationException("Cannot activate card. Card must be BLOCKED and not expired. Current status: "
                     + card.getStatus());
         }
         card.setStatus(CardStatus.ACTIVE);
-        cardRepository.save(card);
+        cardRepository.saveAndFlush(card);
+        cardVersionRepository.bumpCardsVersion(card.getOwner().getId());
+        cardEventPublisher.publish(card.getOwner().getId(), new CardEvent(CardEvent.Type.ACTIVATED, card));
 
         log.info("Card activated with ID: {}", card.getId());
         return convertCardToDto(card);
@@ -102,12 +124,14 @@ public class CardService {
     public void deleteCard(UUID cardId) {
         log.info("Deleting card with ID: {}", cardId);
 
-        Card card = findCardById(cardId);
+        Card card = cardRepository.findByIdForUpdate(cardId)
+                .orElseThrow(() -> new CardNotFoundException(cardId));
 
         if (card.getBalance().compareTo(BigDecimal.ZERO) > 0) {
             throw new CardOperationException("Cannot delete card with non-zero balance");
         }
         cardRepository.delete(card);
+        cardVersionRepository.bumpCardsVersion(card.getOwner().getId());
         log.info("Card deleted with ID: {}", cardId);
     }
 
@@ -115,10 +139,15 @@ public class CardService {
     public List<CardDto> getAllCards() {
         log.info("Getting all cards");
 
-        return cardRepository.findAll()
-                .stream()
-                .map(this::convertCardToDto)
-                .toList();
+        return cardRepository.findAllDto();
+    }
+
+    @Transactional(readOnly = true)
+    public Page<CardDto> getBlockRequests(int page, int size) {
+        log.info("Getting cards with pending block requests");
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate", "id"));
+        return cardRepository.findDtoByBlockRequestedTrue(pageable);
     }
 
     @Transactional(readOnly = true)
@@ -130,29 +159,37 @@ public class CardService {
             throw new AccessDeniedException("You can only view your own cards");
         }
 
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdDate", "id"));
 
         boolean hasSearch = search != null && !search.isBlank();
-        Page<Card> cards;
         if (!hasSearch) {
-            cards = (status == null)
-                    ? cardRepository.findByOwner_Id(userId, pageable)
-                    : cardRepository.findByOwner_IdAndStatus(userId, status, pageable);
-        } else {
-            cards = (status == null)
-                    ? cardRepository.findByOwner_IdAndCardHolderNameContainingIgnoreCase(
-                    userId, search, pageable)
-                    : cardRepository.findByOwner_IdAndStatusAndCardHolderNameContainingIgnoreCase(
-                    userId, status, search, pageable);
+            return (status == null)
+                    ? cardRepository.findDtoByOwnerId(userId, pageable)
+                    : cardRepository.findDtoByOwnerIdAndStatus(userId, status, pageable);
+        }
+        return (status == null)
+                ? cardRepository.searchDtoByOwnerId(userId, search, pageable)
+                : cardRepository.searchDtoByOwnerIdAndStatus(userId, status, search, pageable);
+    }
 
+    /**
+     * ETag of a page of {@link #getUserCards}, from the user's cards version alone; empty when the current user may
+     * not see the cards, or the user is gone, so the full read answers.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> getUserCardsETag(UUID userId, CardStatus status, String search, int page, int size) {
+        User currentUser = getCurrentUser();
+        if (currentUser.getRole() != UserRole.ADMIN && !currentUser.getId().equals(userId)) {
+            return Optional.empty();
         }
-        return cards.map(this::convertCardToDto);
+        return cardVersionRepository.findCardsVersion(userId)
+                .map(version -> ETags.of("cards", userId, version, status, search, page, size));
     }
 
     @Transactional
     public CardDto requestBlockCard(UUID cardId) {
         log.info("User requesting to block card with ID: {}", cardId);
-        Card card = findCardById(cardId);
+        Card card = findCardForUpdate(cardId);
         User currentUser = getCurrentUser();
 
         if (!card.getOwner().getId().equals(currentUser.getId())) {
@@ -168,16 +205,26 @@ public class CardService {
         }
 
         card.setBlockRequested(true);
-        cardRepository.save(card);
+        cardRepository.saveAndFlush(card);
+        cardVersionRepository.bumpCardsVersion(currentUser.getId());
+        cardEventPublisher.publish(currentUser.getId(), new CardEvent(CardEvent.Type.BLOCK_REQUESTED, card));
 
         return convertCardToDto(card);
     }
 
+    /**
+     * Opens a stream of events about the current user's cards, see {@link CardEventHub}.
+     */
+    public SseEmitter subscribeToCardEvents() {
+        return cardEventHub.subscribe(getCurrentUser().getId());
+    }
+
     @Transactional(readOnly = true)
     public BigDecimal getBalance(UUID cardId) {
         log.info("Getting balance for card with ID: {}", cardId);
 
-        Card card = findCardById(cardId);
+        Card card = cardRepository.findUncachedById(cardId)
+                .orElseThrow(() -> new CardNotFoundException(cardId));
         User currentUser = getCurrentUser();
 
         if (!card.getOwner().getId().equals(currentUser.getId())) {
@@ -186,7 +233,18 @@ public class CardService {
         return card.getBalance();
     }
 
-    private String generateUniqueCardNumber() {
+    /**
+     * ETag of {@link #getBalance}, from the card's version alone; empty when the card is missing or not the current
+     * user's, so the full read reports why.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> getBalanceETag(UUID cardId) {
+        User currentUser = getCurrentUser();
+        return cardVersionRepository.findCardVersion(cardId, currentUser.getId())
+                .map(version -> ETags.of("balance", cardId, version));
+    }
+
+    String generateUniqueCardNumber() {
 
         Instant now = Instant.now();
         long milliseconds = now.toEpochMilli();
@@ -202,19 +260,22 @@ public class CardService {
         return digitsOnly.length() <= 4 ? digitsOnly : digitsOnly.substring(digitsOnly.length() - 4);
     }
 
-    private Card findCardById(UUID cardId) {
-        return cardRepository.findById(cardId)
+    // read and lock the row: the second-level cache may hold a version another node's transfer has moved on
+    private Card findCardForUpdate(UUID cardId) {
+        return cardRepository.findByIdForUpdate(cardId)
                 .orElseThrow(() -> new CardNotFoundException(cardId));
     }
 
     private User getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String login = auth.getName();
-        return userRepository.findByLogin(login)
-                .orElseThrow(() -> new UserNotFoundException("User not found: " + login));
+        try (Span span = Tracing.span("CardService.getCurrentUser")) {
+            return userCache.findByLogin(login)
+                    .orElseThrow(() -> new UserNotFoundException("User not found: " + login));
+        }
     }
 
-    private CardDto convertCardToDto(Card card) {
+    CardDto convertCardToDto(Card card) {
         return CardDto.builder()
                 .id(card.getId())
                 .cardHolderName(card.getCardHolderName())
@@ -0,0 +1,49 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.repository.CardRepository;
+import org.springframework.transaction.annotation.Isolation;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * How a transfer keeps its two balance updates correct while other transfers touch the same cards. Chosen with
+ * {@code bankcards.transfer.concurrency}; {@code TransferConcurrencyStressTest} runs every constant.
+ */
+public enum TransferConcurrency {
+
+    /**
+     * Locks both cards with select for update, lower id first, so transfers over the same cards queue instead of
+     * deadlocking.
+     */
+    ORDERED_LOCKS(Isolation.DEFAULT) {
+        @Override
+        Optional<Card> findCard(CardRepository cardRepository, UUID id) {
+            return cardRepository.findByIdForUpdate(id);
+        }
+    },
+
+    /**
+     * Reads both cards without locks in a serializable transaction. When two transfers touch the same card, the
+     * database aborts one of them and it is run again.
+     */
+    SERIALIZABLE(Isolation.SERIALIZABLE) {
+        @Override
+        Optional<Card> findCard(CardRepository cardRepository, UUID id) {
+            return cardRepository.findUncachedById(id);
+        }
+    };
+
+    private final Isolation isolation;
+
+    TransferConcurrency(Isolation isolation) {
+        this.isolation = isolation;
+    }
+
+    Isolation isolation() {
+        return isolation;
+    }
+
+    abstract Optional<Card> findCard(CardRepository cardRepository, UUID id);
+}
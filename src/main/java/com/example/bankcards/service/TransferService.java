@@ -1,48 +1,124 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.datasource.ReadYourWritesWindow;
+import com.example.bankcards.dto.CardEvent;
+import com.example.bankcards.dto.SlicePage;
 import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.dto.request.TransferRequest;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.events.CardEventPublisher;
 import com.example.bankcards.exception.AccessDeniedException;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.CardOperationException;
 import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.metrics.BankcardsMetrics;
+import com.example.bankcards.metrics.BankcardsMetrics.TransferRejection;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardVersionRepository;
 import com.example.bankcards.repository.TransferRepository;
-import com.example.bankcards.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.bankcards.tracing.Span;
+import com.example.bankcards.tracing.Tracing;
+import com.example.bankcards.util.ETags;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class TransferService {
 
     private final TransferRepository transferRepository;
     private final CardRepository cardRepository;
-    private final UserRepository userRepository;
+    private final CardVersionRepository cardVersionRepository;
+    private final CardEventPublisher cardEventPublisher;
+    private final UserCache userCache;
+    private final ReadYourWritesWindow readYourWritesWindow;
+    private final BankcardsMetrics metrics;
+    private final TransferConcurrency concurrency;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
 
-    @Transactional
+    public TransferService(TransferRepository transferRepository,
+                           CardRepository cardRepository,
+                           CardVersionRepository cardVersionRepository,
+                           CardEventPublisher cardEventPublisher,
+                           UserCache userCache,
+                           ReadYourWritesWindow readYourWritesWindow,
+                           BankcardsMetrics metrics,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${bankcards.transfer.concurrency:ordered-locks}") TransferConcurrency concurrency,
+                           @Value("${bankcards.transfer.max-attempts:5}") int maxAttempts) {
+        this.transferRepository = transferRepository;
+        this.cardRepository = cardRepository;
+        this.cardVersionRepository = cardVersionRepository;
+        this.cardEventPublisher = cardEventPublisher;
+        this.userCache = userCache;
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.metrics = metrics;
+        this.concurrency = concurrency;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(concurrency.isolation().value());
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Runs the transfer in its own transaction, again from the start when it loses a conflict with a concurrent
+     * transfer, up to {@code bankcards.transfer.max-attempts} times.
+     */
     public TransferDto transferBetweenCards(TransferRequest request) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                TransferDto transfer = transactionTemplate.execute(status -> transfer(request));
+                // only once committed: a serialization failure at commit runs the whole transfer again
+                readYourWritesWindow.markWrite(SecurityContextHolder.getContext().getAuthentication().getName());
+                metrics.transferCompleted();
+                log.info("Transfer completed");
+                return transfer;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                metrics.transferRetried();
+                log.warn("Transfer attempt {} conflicted with a concurrent transfer, retrying: {}",
+                        attempt, e.getMessage());
+            }
+        }
+    }
+
+    private TransferDto transfer(TransferRequest request) {
         log.info("Transferring money from card with ID: {} to card with ID: {}",
                 request.getFromCardId(), request.getToCardId());
 
         User currentUser = getCurrentUser();
-        Card fromCard = findCardById(request.getFromCardId());
-        Card toCard = findCardById(request.getToCardId());
+        // load in id order so that opposite transfers cannot deadlock on row locks
+        UUID fromCardId = request.getFromCardId();
+        UUID toCardId = request.getToCardId();
+        Card fromCard;
+        Card toCard;
+        if (fromCardId.compareTo(toCardId) <= 0) {
+            fromCard = lockCardById(fromCardId);
+            toCard = fromCardId.equals(toCardId) ? fromCard : lockCardById(toCardId);
+        } else {
+            toCard = lockCardById(toCardId);
+            fromCard = lockCardById(fromCardId);
+        }
 
         validateCardsForTransfer(request, fromCard, toCard, currentUser);
 
@@ -60,18 +136,23 @@ public class TransferService {
                 .build();
 
         transferRepository.save(transfer);
-        log.info("Transfer completed");
+        // the card rows before the user row, the order every writer takes
+        transferRepository.flush();
+        cardVersionRepository.bumpCardsVersion(currentUser.getId());
+        cardEventPublisher.publish(currentUser.getId(), new CardEvent(CardEvent.Type.TRANSFER, fromCard));
+        cardEventPublisher.publish(currentUser.getId(), new CardEvent(CardEvent.Type.TRANSFER, toCard));
         return new TransferDto(transfer);
     }
 
     @Transactional(readOnly = true)
-    public Page<TransferDto> getTransferHistory(int page, int size, UUID cardId) {
+    public SlicePage<TransferDto> getTransferHistory(int page, int size, UUID cardId, boolean includeTotal) {
         log.info("Getting transfer history for card with ID: {}", cardId);
         User currentUser = getCurrentUser();
         boolean isAdmin = currentUser.getRole() == UserRole.ADMIN;
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("transferDate").descending());
-        Page<Transfer> transfers;
+        Slice<TransferDto> transfers;
+        Long total = null;
 
         if (cardId != null) {
             Card card = findCardById(cardId);
@@ -80,19 +161,64 @@ public class TransferService {
                 throw new AccessDeniedException("You can only view transfers for your own cards");
             }
 
-            transfers = transferRepository.findByCardId(cardId, pageable);
+            transfers = transferRepository.findDtoByCardId(cardId, pageable);
+            if (includeTotal) {
+                total = transferRepository.countByCardId(cardId);
+            }
             log.info("Transfer history for card with ID: {} retrieved", cardId);
         } else {
             if (isAdmin) {
-                transfers = transferRepository.findAll(pageable);
+                transfers = transferRepository.findAllDto(pageable);
+                if (includeTotal) {
+                    total = estimateTransferCount();
+                }
                 log.info("Transfer history for all cards retrieved");
             } else {
                 UUID userId = currentUser.getId();
-                transfers = transferRepository.findByUserId(userId, pageable);
+                transfers = transferRepository.findDtoByUserId(userId, pageable);
+                if (includeTotal) {
+                    total = transferRepository.countByUserId(userId);
+                }
                 log.info("Transfer history for user with ID: {} retrieved", userId);
             }
         }
-        return transfers.map(TransferDto::new);
+        return new SlicePage<>(transfers.getContent(), transfers.getNumber(), transfers.getSize(),
+                transfers.hasNext(), total);
+    }
+
+    /**
+     * ETag of a page of {@link #getTransferHistory}, from the cards version of the user whose transfers it lists;
+     * empty for an administrator listing everyone's transfers, and when the card is missing or not the current
+     * user's, so the full read answers.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> getTransferHistoryETag(int page, int size, UUID cardId, boolean includeTotal) {
+        User currentUser = getCurrentUser();
+        boolean isAdmin = currentUser.getRole() == UserRole.ADMIN;
+        Optional<Long> version;
+        if (cardId != null) {
+            version = cardVersionRepository.findOwnerCardsVersion(cardId, isAdmin ? null : currentUser.getId());
+        } else if (isAdmin) {
+            return Optional.empty();
+        } else {
+            version = cardVersionRepository.findCardsVersion(currentUser.getId());
+        }
+        UUID subject = cardId != null ? cardId : currentUser.getId();
+        return version.map(value -> ETags.of("transfers", subject, value, page, size, includeTotal));
+    }
+
+    // counting the whole table is a full scan; the planner's estimate is good enough for a pager
+    private long estimateTransferCount() {
+        long estimate = transferRepository.estimateCount();
+        return estimate >= 0 ? estimate : transferRepository.count();
+    }
+
+    private Card lockCardById(UUID cardId) {
+        return concurrency.findCard(cardRepository, cardId)
+                .orElseThrow(() -> {
+                    metrics.transferRejected(TransferRejection.CARD_NOT_FOUND);
+                    return new CardNotFoundException(cardId);
+                });
     }
 
     private Card findCardById(UUID cardId) {
@@ -102,19 +228,24 @@ public class TransferService {
 
     private void validateCardsForTransfer(TransferRequest request, Card fromCard, Card toCard, User currentUser) {
         if (fromCard.getId().equals(toCard.getId())) {
+            metrics.transferRejected(TransferRejection.SAME_CARD);
             throw new CardOperationException("Cannot transfer to the same card");
         }
 
+        // both cards belong to the current user: the owner's version bump and events rely on it
         if (!fromCard.getOwner().getId().equals(currentUser.getId()) ||
                 !toCard.getOwner().getId().equals(currentUser.getId())) {
+            metrics.transferRejected(TransferRejection.NOT_OWNER);
             throw new AccessDeniedException("You can only transfer between your own cards");
         }
 
         if (!fromCard.isActive() || !toCard.isActive()) {
+            metrics.transferRejected(TransferRejection.CARD_INACTIVE);
             throw new CardOperationException(String.format("Card is not active. Status fromCard: %s. Status toCard: %s",
                     fromCard.getStatus(), toCard));
         }
         if (fromCard.getBalance().compareTo(request.getAmount()) < 0) {
+            metrics.transferRejected(TransferRejection.INSUFFICIENT_FUNDS);
             throw new CardOperationException("Insufficient funds on source card");
         }
     }
@@ -123,7 +254,9 @@ public class TransferService {
         log.info("Getting current user");
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String login = auth.getName();
-        return userRepository.findByLogin(login)
-                .orElseThrow(() -> new UserNotFoundException("User not found: " + login));
+        try (Span span = Tracing.span("TransferService.getCurrentUser")) {
+            return userCache.findByLogin(login)
+                    .orElseThrow(() -> new UserNotFoundException("User not found: " + login));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,284 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.cache.UserExistenceFilter;
+import com.example.bankcards.dto.UserImportReport;
+import com.example.bankcards.dto.UserImportRowResult;
+import com.example.bankcards.dto.UserImportRowResult.Status;
+import com.example.bankcards.dto.request.UserRegistrationRequest;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.exception.InvalidImportException;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CsvLines;
+import com.example.bankcards.util.UuidV7;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class UserImportService {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private static final List<String> CSV_COLUMNS = List.of("login", "password", "email", "firstName", "lastName");
+
+    private static final String INSERT_USER_SQL = """
+            insert into users (id, login, password_hash, email, first_name, last_name, role, created_at, updated_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final UserRepository userRepository;
+    private final UserExistenceFilter existenceFilter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BCryptPasswordEncoder encoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService hashingPool;
+    private final int chunkSize;
+
+    public UserImportService(UserRepository userRepository,
+                             UserExistenceFilter existenceFilter,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             BCryptPasswordEncoder encoder,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             @Value("${bankcards.user-import.chunk-size:1000}") int chunkSize,
+                             @Value("${bankcards.user-import.hashing-threads:0}") int hashingThreads) {
+        this.userRepository = userRepository;
+        this.existenceFilter = existenceFilter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.encoder = encoder;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.hashingPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hash-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    public UserImportReport importUsers(InputStream input, Format format) throws IOException {
+        log.info("Importing users from {} stream", format);
+
+        List<UserImportRowResult> results = new ArrayList<>();
+        Set<String> seenLogins = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            if (format == Format.CSV) {
+                lineNumber++;
+                validateCsvHeader(reader.readLine());
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(parseRow(lineNumber, line, format));
+                if (chunk.size() == chunkSize) {
+                    results.addAll(processChunk(chunk, seenLogins, seenEmails));
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(processChunk(chunk, seenLogins, seenEmails));
+        }
+
+        UserImportReport report = new UserImportReport(results);
+        log.info("User import finished: total={}, created={}, duplicates={}, invalid={}",
+                report.getTotal(), report.getCreated(), report.getDuplicates(), report.getInvalid());
+        return report;
+    }
+
+    private List<UserImportRowResult> processChunk(List<ImportRow> chunk, Set<String> seenLogins, Set<String> seenEmails) {
+        List<UserImportRowResult> results = new ArrayList<>(chunk.size());
+        List<ImportRow> candidates = new ArrayList<>(chunk.size());
+
+        for (ImportRow row : chunk) {
+            if (row.error != null) {
+                results.add(row.result(Status.INVALID, row.error));
+            } else if (!seenLogins.add(row.request.getLogin())) {
+                results.add(row.result(Status.DUPLICATE, "Login is repeated in the import file"));
+            } else if (!seenEmails.add(row.request.getEmail())) {
+                results.add(row.result(Status.DUPLICATE, "Email is repeated in the import file"));
+            } else {
+                candidates.add(row);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return results;
+        }
+
+        Set<String> existingLogins = userRepository.findExistingLogins(
+                candidates.stream().map(row -> row.request.getLogin()).toList());
+        Set<String> existingEmails = userRepository.findExistingEmails(
+                candidates.stream().map(row -> row.request.getEmail()).toList());
+
+        List<ImportRow> toInsert = new ArrayList<>(candidates.size());
+        for (ImportRow row : candidates) {
+            if (existingLogins.contains(row.request.getLogin())) {
+                results.add(row.result(Status.DUPLICATE, "User with login: " + row.request.getLogin() + " already exists"));
+            } else if (existingEmails.contains(row.request.getEmail())) {
+                results.add(row.result(Status.DUPLICATE, "Email '" + row.request.getEmail() + "' is already in use"));
+            } else {
+                toInsert.add(row);
+            }
+        }
+
+        hashPasswords(toInsert);
+        results.addAll(insert(toInsert));
+        for (ImportRow row : toInsert) {
+            existenceFilter.addLogin(row.request.getLogin());
+            existenceFilter.addEmail(row.request.getEmail());
+        }
+        results.sort(Comparator.comparingLong(UserImportRowResult::getLine));
+        return results;
+    }
+
+    private void hashPasswords(List<ImportRow> rows) {
+        CompletableFuture.allOf(rows.stream()
+                        .map(row -> CompletableFuture.runAsync(
+                                () -> row.passwordHash = encoder.encode(row.request.getPassword()), hashingPool))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+    }
+
+    private List<UserImportRowResult> insert(List<ImportRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_USER_SQL, rows, rows.size(), (ps, row) -> bind(ps, row)));
+            return rows.stream().map(row -> row.result(Status.CREATED, null)).toList();
+        } catch (DuplicateKeyException e) {
+            // a concurrent registration took one of the logins or emails; find out which rows still fit
+            log.warn("Batch insert hit a unique constraint, retrying {} rows one by one", rows.size());
+            return rows.stream().map(this::insertSingle).toList();
+        }
+    }
+
+    private UserImportRowResult insertSingle(ImportRow row) {
+        try {
+            jdbcTemplate.update(INSERT_USER_SQL, ps -> bind(ps, row));
+            return row.result(Status.CREATED, null);
+        } catch (DuplicateKeyException e) {
+            return row.result(Status.DUPLICATE, "Login or email is already in use");
+        }
+    }
+
+    private void bind(PreparedStatement ps, ImportRow row) throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        ps.setObject(1, UuidV7.generate());
+        ps.setString(2, row.request.getLogin());
+        ps.setString(3, row.passwordHash);
+        ps.setString(4, row.request.getEmail());
+        ps.setString(5, row.request.getFirstName());
+        ps.setString(6, row.request.getLastName());
+        ps.setString(7, UserRole.USER.name());
+        ps.setTimestamp(8, now);
+        ps.setTimestamp(9, now);
+    }
+
+    private ImportRow parseRow(long lineNumber, String line, Format format) {
+        UserRegistrationRequest request;
+        try {
+            request = format == Format.CSV ? fromCsv(line) : objectMapper.readValue(line, UserRegistrationRequest.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return new ImportRow(lineNumber, null, "Malformed row: " + e.getMessage());
+        }
+        Set<ConstraintViolation<UserRegistrationRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return new ImportRow(lineNumber, request, message);
+        }
+        return new ImportRow(lineNumber, request, null);
+    }
+
+    private void validateCsvHeader(String header) {
+        if (header == null) {
+            throw new InvalidImportException("CSV import is empty");
+        }
+        List<String> columns = Arrays.stream(header.split(",")).map(String::trim).toList();
+        if (!columns.equals(CSV_COLUMNS)) {
+            throw new InvalidImportException("CSV header must be: " + String.join(",", CSV_COLUMNS));
+        }
+    }
+
+    private UserRegistrationRequest fromCsv(String line) {
+        List<String> fields = CsvLines.split(line);
+        if (fields.size() != CSV_COLUMNS.size()) {
+            throw new IllegalArgumentException("expected " + CSV_COLUMNS.size() + " columns, got " + fields.size());
+        }
+        UserRegistrationRequest request = new UserRegistrationRequest();
+        request.setLogin(fields.get(0).trim());
+        request.setPassword(fields.get(1));
+        request.setEmail(fields.get(2).trim());
+        request.setFirstName(fields.get(3).trim());
+        request.setLastName(fields.get(4).trim());
+        return request;
+    }
+
+    private static final class ImportRow {
+        private final long line;
+        private final UserRegistrationRequest request;
+        private final String error;
+        private String passwordHash;
+
+        private ImportRow(long line, UserRegistrationRequest request, String error) {
+            this.line = line;
+            this.request = request;
+            this.error = error;
+        }
+
+        private UserImportRowResult result(Status status, String message) {
+            return new UserImportRowResult(line, request == null ? null : request.getLogin(), status, message);
+        }
+    }
+}
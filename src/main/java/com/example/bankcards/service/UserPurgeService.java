@@ -0,0 +1,143 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.UserPurgeProgress;
+import com.example.bankcards.dto.UserPurgeProgress.Status;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+/**
+ * Removes the data of soft-deleted users. Every batch runs in its own short transaction so a purge
+ * never holds locks on {@code cards} or {@code transfers} for longer than one batch; an interrupted
+ * purge simply continues on the next run.
+ */
+@Service
+@Slf4j
+public class UserPurgeService {
+
+    private static final int PROGRESS_HISTORY = 100;
+
+    private static final String DELETE_OUTGOING_TRANSFERS_SQL = """
+            delete from transfers where id in (
+                select t.id from transfers t join cards c on c.id = t.from_card_id
+                where c.user_id = ? limit ?)
+            """;
+
+    private static final String DELETE_INCOMING_TRANSFERS_SQL = """
+            delete from transfers where id in (
+                select t.id from transfers t join cards c on c.id = t.to_card_id
+                where c.user_id = ? limit ?)
+            """;
+
+    private static final String DELETE_CARDS_SQL = """
+            delete from cards where id in (select id from cards where user_id = ? limit ?)
+            """;
+
+    private static final String DELETE_USER_SQL = "delete from users where id = ? and deleted_at is not null";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final int batchSize;
+    private final int usersPerRun;
+
+    private final Map<UUID, UserPurgeProgress> progress = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, UserPurgeProgress> eldest) {
+            return size() > PROGRESS_HISTORY && eldest.getValue().getStatus() != Status.RUNNING;
+        }
+    };
+
+    public UserPurgeService(UserRepository userRepository,
+                            JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            EntityManagerFactory entityManagerFactory,
+                            @Value("${bankcards.user-purge.batch-size:1000}") int batchSize,
+                            @Value("${bankcards.user-purge.users-per-run:10}") int usersPerRun) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.batchSize = batchSize;
+        this.usersPerRun = usersPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${bankcards.user-purge.interval-ms:10000}")
+    public void purgeDeletedUsers() {
+        List<UUID> userIds = userRepository.findDeletedUserIds(Limit.of(usersPerRun));
+        for (UUID userId : userIds) {
+            try {
+                purge(userId);
+            } catch (DataAccessException e) {
+                log.error("Purge of user {} failed, it will be retried on the next run", userId, e);
+            }
+        }
+    }
+
+    public UserPurgeProgress purge(UUID userId) {
+        UserPurgeProgress current = new UserPurgeProgress(userId);
+        synchronized (progress) {
+            progress.remove(userId);
+            progress.put(userId, current);
+        }
+        log.info("Purging data of deleted user: {}", userId);
+        try {
+            // transfers first, so deleting a card batch never cascades into an unbounded number of rows
+            deleteInBatches(DELETE_OUTGOING_TRANSFERS_SQL, userId,
+                    rows -> current.setTransfersDeleted(current.getTransfersDeleted() + rows));
+            deleteInBatches(DELETE_INCOMING_TRANSFERS_SQL, userId,
+                    rows -> current.setTransfersDeleted(current.getTransfersDeleted() + rows));
+            deleteInBatches(DELETE_CARDS_SQL, userId,
+                    rows -> current.setCardsDeleted(current.getCardsDeleted() + rows));
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(DELETE_USER_SQL, userId));
+            // rows were deleted behind Hibernate's back; the card ids are unknown, so drop the whole region
+            entityManagerFactory.getCache().evict(User.class, userId);
+            if (current.getCardsDeleted() > 0) {
+                entityManagerFactory.getCache().evict(Card.class);
+            }
+            current.setStatus(Status.COMPLETED);
+            log.info("User {} purged: {} transfers, {} cards", userId,
+                    current.getTransfersDeleted(), current.getCardsDeleted());
+        } catch (DataAccessException e) {
+            current.setStatus(Status.FAILED);
+            current.setError(e.getMostSpecificCause().getMessage());
+            throw e;
+        } finally {
+            current.setFinishedAt(LocalDateTime.now());
+        }
+        return current;
+    }
+
+    public List<UserPurgeProgress> getProgress() {
+        synchronized (progress) {
+            return new ArrayList<>(progress.values());
+        }
+    }
+
+    private void deleteInBatches(String sql, UUID userId, IntConsumer onBatch) {
+        int deleted;
+        do {
+            Integer rows = transactionTemplate.execute(status -> jdbcTemplate.update(sql, userId, batchSize));
+            deleted = rows == null ? 0 : rows;
+            onBatch.accept(deleted);
+        } while (deleted == batchSize);
+    }
+}
@@ -1,23 +1,39 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.cache.UserExistenceFilter;
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.dto.request.UserUpdateRequest;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidCursorException;
 import com.example.bankcards.exception.UserAlreadyExistsException;
 import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.ConstraintViolations;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -25,6 +41,9 @@ import java.util.UUID;
 @Slf4j
 public class UserService {
     private final UserRepository userRepository;
+    private final CardRepository cardRepository;
+    private final UserCache userCache;
+    private final UserExistenceFilter existenceFilter;
     private final BCryptPasswordEncoder encoder;
 
     private static final List<String> ALLOWED_SORT_FIELDS =
@@ -33,7 +52,7 @@ public class UserService {
     @Transactional(readOnly = true)
     public UserDto getUserById(UUID userId) {
         log.info("Getting user with ID: {}", userId);
-        User user = findUserById(userId);
+        User user = userCache.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
         return new UserDto(user);
     }
 
@@ -50,19 +69,42 @@ public class UserService {
         return userRepository.findAll(pageable).map(UserDto::new);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> getUsersByCursor(String sortBy, String cursor, int size, boolean includeTotal) {
+        log.info("Getting users by cursor - sortBy: {}, size: {}, includeTotal: {}", sortBy, size, includeTotal);
+
+        if (!ALLOWED_SORT_FIELDS.contains(sortBy)) {
+            sortBy = "createdAt";
+        }
+
+        Sort sort = Sort.by(Sort.Direction.DESC, sortBy, "id");
+        ScrollPosition position = cursor == null || cursor.isBlank()
+                ? ScrollPosition.keyset()
+                : decodeCursor(sortBy, cursor);
+
+        Window<User> window = userRepository.findByDeletedAtIsNull(position, sort, Limit.of(size));
+        List<UserDto> content = window.getContent().stream().map(UserDto::new).toList();
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            nextCursor = encodeCursor(sortBy, (KeysetScrollPosition) window.positionAt(window.size() - 1));
+        }
+        Long total = includeTotal ? userRepository.countByDeletedAtIsNull() : null;
+        return new CursorPage<>(content, nextCursor, window.hasNext(), total);
+    }
+
     @Transactional
     public void deleteUser(UUID userId) {
         log.info("Deleting user with ID: {}", userId);
 
         User user = findUserById(userId);
-        boolean hasCardsWithBalance = user.getCards().stream()
-                .anyMatch(card -> card.getBalance().compareTo(BigDecimal.ZERO) > 0);
-
-        if (hasCardsWithBalance) {
+        if (cardRepository.existsByOwner_IdAndBalanceGreaterThan(userId, BigDecimal.ZERO)) {
             throw new IllegalStateException("Cannot delete user with cards that have non-zero balance");
         }
-        userRepository.deleteById(userId);
-        log.info("User deleted successfully: {}", userId);
+        // cards and transfers are removed in batches by UserPurgeService
+        userRepository.markDeleted(userId, LocalDateTime.now());
+        userCache.evict(userId, user.getLogin());
+        log.info("User marked as deleted: {}", userId);
     }
 
     @Transactional
@@ -72,7 +114,7 @@ public class UserService {
         if (request.getEmail() != null && !request.getEmail().isBlank()) {
             String newEmail = request.getEmail().toLowerCase().trim();
             if (!newEmail.equals(user.getEmail())) {
-                if (userRepository.existsByEmail(newEmail)) {
+                if (existenceFilter.mightContainEmail(newEmail) && userRepository.existsByEmail(newEmail)) {
                     throw new UserAlreadyExistsException("Email '" + newEmail + "' is already in use");
                 }
                 user.setEmail(newEmail);
@@ -89,14 +131,54 @@ public class UserService {
             user.setRole(request.getRole());
         }
 
-        User updatedUser = userRepository.save(user);
+        User updatedUser;
+        try {
+            updatedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.violates(e, User.EMAIL_CONSTRAINT)) {
+                throw new UserAlreadyExistsException("Email '" + user.getEmail() + "' is already in use");
+            }
+            throw e;
+        }
+        existenceFilter.addEmail(updatedUser.getEmail());
+        userCache.evict(userId, updatedUser.getLogin());
         log.info("User updated successfully: {}", userId);
 
         return new UserDto(updatedUser);
     }
 
+    private static String encodeCursor(String sortBy, KeysetScrollPosition position) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        Object value = position.getKeys().get(sortBy);
+        Object id = position.getKeys().get("id");
+        return encoder.encodeToString(sortBy.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(String.valueOf(value).getBytes(StandardCharsets.UTF_8)) + "."
+                + id;
+    }
+
+    private static ScrollPosition decodeCursor(String sortBy, String cursor) {
+        String[] parts = cursor.split("\\.");
+        if (parts.length != 3) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            String cursorSortBy = new String(decoder.decode(parts[0]), StandardCharsets.UTF_8);
+            if (!cursorSortBy.equals(sortBy)) {
+                throw new InvalidCursorException("Cursor was issued for sortBy=" + cursorSortBy);
+            }
+            String rawValue = new String(decoder.decode(parts[1]), StandardCharsets.UTF_8);
+            Object value = sortBy.equals("createdAt") ? LocalDateTime.parse(rawValue) : rawValue;
+            return ScrollPosition.forward(Map.of(sortBy, value, "id", UUID.fromString(parts[2])));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
     private User findUserById(UUID userId) {
-        return userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
+        return userRepository.findById(userId)
+                .filter(user -> !user.isDeleted())
+                .orElseThrow(() -> new UserNotFoundException(userId));
     }
 
 }
\ No newline at end of file
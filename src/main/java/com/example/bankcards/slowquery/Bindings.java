@@ -0,0 +1,76 @@
+package com.example.bankcards.slowquery;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The parameter setter calls made on one prepared statement, by parameter index, so they can be described
+ * without their values and replayed onto the EXPLAIN of the statement.
+ */
+final class Bindings {
+
+    private Method[] setters = new Method[8];
+    private Object[][] arguments = new Object[8][];
+    private int count;
+
+    void set(Method setter, Object[] args) {
+        int index = (Integer) args[0];
+        if (index >= setters.length) {
+            int length = Math.max(index + 1, setters.length * 2);
+            setters = Arrays.copyOf(setters, length);
+            arguments = Arrays.copyOf(arguments, length);
+        }
+        setters[index] = setter;
+        arguments[index] = args;
+        count = Math.max(count, index);
+    }
+
+    void clear() {
+        Arrays.fill(setters, null);
+        Arrays.fill(arguments, null);
+        count = 0;
+    }
+
+    Bindings copy() {
+        Bindings copy = new Bindings();
+        copy.setters = Arrays.copyOf(setters, count + 1);
+        copy.arguments = Arrays.copyOf(arguments, count + 1);
+        copy.count = count;
+        return copy;
+    }
+
+    /**
+     * The type of each bound value, {@code null} for SQL nulls; the values stay out, they hold card and user data.
+     */
+    List<String> shapes() {
+        List<String> shapes = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Object value = arguments[i] == null || setters[i].getName().equals("setNull") ? null : arguments[i][1];
+            shapes.add(value == null ? "null" : value.getClass().getSimpleName());
+        }
+        return shapes;
+    }
+
+    void bindTo(PreparedStatement statement) throws SQLException {
+        for (int i = 1; i <= count; i++) {
+            if (setters[i] == null) {
+                continue;
+            }
+            try {
+                setters[i].invoke(statement, arguments[i]);
+            } catch (InvocationTargetException e) {
+                if (e.getTargetException() instanceof SQLException sqlException) {
+                    throw sqlException;
+                }
+                throw new SQLException(e.getTargetException());
+            } catch (IllegalAccessException e) {
+                throw new SQLException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bankcards.slowquery;
+
+import com.example.bankcards.util.InvocationNames;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Remembers the innermost service or repository call on the current thread, so a slow statement can be traced
+ * back to the repository method that sent it, or to the service method whose commit flushed it.
+ */
+public class QueryOrigin implements MethodInterceptor {
+
+    private static final ThreadLocal<MethodInvocation> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MethodInvocation previous = CURRENT.get();
+        CURRENT.set(invocation);
+        try {
+            return invocation.proceed();
+        } finally {
+            // set rather than remove, so the thread keeps its map entry and the next call allocates nothing
+            CURRENT.set(previous);
+        }
+    }
+
+    static String current() {
+        MethodInvocation invocation = CURRENT.get();
+        return invocation == null ? null : InvocationNames.of(invocation);
+    }
+}
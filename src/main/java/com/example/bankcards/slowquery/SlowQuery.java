@@ -0,0 +1,42 @@
+package com.example.bankcards.slowquery;
+
+import com.example.bankcards.dto.SlowQueryDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A recorded slow statement; its plan is filled in later by the EXPLAIN thread, if it was sampled.
+ */
+final class SlowQuery {
+
+    private final String sql;
+    private final List<String> parameterTypes;
+    private final String origin;
+    private final long durationMicros;
+    private final LocalDateTime executedAt = LocalDateTime.now();
+    private volatile String plan;
+    private volatile boolean planAnalyzed;
+
+    SlowQuery(String sql, List<String> parameterTypes, String origin, long durationMicros) {
+        this.sql = sql;
+        this.parameterTypes = parameterTypes;
+        this.origin = origin;
+        this.durationMicros = durationMicros;
+    }
+
+    String sql() {
+        return sql;
+    }
+
+    void plan(String plan, boolean analyzed) {
+        this.planAnalyzed = analyzed;
+        this.plan = plan;
+    }
+
+    SlowQueryDto toDto() {
+        String explained = plan;
+        return new SlowQueryDto(sql, parameterTypes, origin, durationMicros, executedAt, explained,
+                explained != null && planAnalyzed);
+    }
+}
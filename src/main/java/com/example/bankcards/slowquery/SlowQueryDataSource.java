@@ -0,0 +1,115 @@
+package com.example.bankcards.slowquery;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands out connections whose statements time every execution and pass the ones over the threshold to the
+ * {@link SlowQueryRecorder}, with the parameters that were bound for it.
+ */
+public class SlowQueryDataSource extends DelegatingDataSource {
+
+    private final SlowQueryRecorder recorder;
+
+    public SlowQueryDataSource(DataSource target, SlowQueryRecorder recorder) {
+        super(target);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timed(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timed(super.getConnection(username, password));
+    }
+
+    private Connection timed(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(SlowQueryDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = call(target, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement", "prepareCall" -> statement(method, result, (String) args[0], new Bindings());
+                case "createStatement" -> statement(method, result, null, null);
+                default -> result;
+            };
+        }
+
+        private Object statement(Method method, Object statement, String sql, Bindings bindings) {
+            return Proxy.newProxyInstance(SlowQueryDataSource.class.getClassLoader(),
+                    new Class<?>[]{method.getReturnType()}, new StatementHandler((Statement) statement, sql, bindings));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String sql;
+        private final Bindings bindings;
+
+        StatementHandler(Statement target, String sql, Bindings bindings) {
+            this.target = target;
+            this.sql = sql;
+            this.bindings = bindings;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (bindings != null && name.startsWith("set") && args != null && args.length >= 2 &&
+                    args[0] instanceof Integer) {
+                bindings.set(method, args);
+            } else if (bindings != null && name.equals("clearParameters")) {
+                bindings.clear();
+            } else if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            return call(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            // Statement.execute(sql) and friends carry their own SQL and no bound parameters
+            boolean inline = args != null && args.length > 0 && args[0] instanceof String;
+            long started = System.nanoTime();
+            try {
+                return call(target, method, args);
+            } finally {
+                long elapsed = System.nanoTime() - started;
+                if (recorder.isSlow(elapsed)) {
+                    recorder.record(inline ? (String) args[0] : sql, inline ? null : bindings, elapsed,
+                            getTargetDataSource());
+                }
+            }
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.bankcards.slowquery;
+
+import com.example.bankcards.dto.SlowQueryDto;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the most recent statements that ran longer than the threshold, and fetches the Postgres plan of a sample
+ * of them on a background thread. Plain reads are explained with {@code ANALYZE, BUFFERS}, running them once more;
+ * writes and locking reads only get the estimated plan, so the EXPLAIN never changes data or waits on the locks
+ * of the transaction that was slow.
+ */
+@Slf4j
+public class SlowQueryRecorder implements AutoCloseable {
+
+    private static final Pattern EXPLAINABLE = Pattern.compile(
+            "\\s*(select|with|insert|update|delete)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern READ = Pattern.compile("\\s*(select|with)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LOCKING = Pattern.compile(
+            "\\bfor\\s+(update|share|no\\s+key\\s+update|key\\s+share)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final long thresholdNanos;
+    private final double explainSampleRate;
+    private final long explainTimeoutMs;
+    private final AtomicReferenceArray<SlowQuery> queries;
+    private final AtomicLong written = new AtomicLong();
+    private final ThreadPoolExecutor explainer;
+
+    public SlowQueryRecorder(long thresholdMs, double explainSampleRate, long explainTimeoutMs, int bufferSize) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.explainSampleRate = explainSampleRate;
+        this.explainTimeoutMs = explainTimeoutMs;
+        this.queries = new AtomicReferenceArray<>(bufferSize);
+        // one EXPLAIN at a time, and plans that cannot be queued are skipped rather than slowing requests down
+        this.explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16),
+                task -> {
+                    Thread thread = new Thread(task, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    void record(String sql, Bindings bindings, long nanos, DataSource dataSource) {
+        SlowQuery query = new SlowQuery(sql, bindings == null ? List.of() : bindings.shapes(), QueryOrigin.current(),
+                TimeUnit.NANOSECONDS.toMicros(nanos));
+        queries.set((int) (written.getAndIncrement() % queries.length()), query);
+        if (EXPLAINABLE.matcher(sql).lookingAt() && sampled()) {
+            Bindings replay = bindings == null ? null : bindings.copy();
+            explainer.execute(() -> explain(query, replay, dataSource));
+        }
+    }
+
+    public List<SlowQueryDto> recent(int limit) {
+        long last = written.get();
+        long first = Math.max(0, last - Math.min(limit, queries.length()));
+        List<SlowQueryDto> recent = new ArrayList<>();
+        for (long i = last - 1; i >= first; i--) {
+            SlowQuery query = queries.get((int) (i % queries.length()));
+            if (query != null) {
+                recent.add(query.toDto());
+            }
+        }
+        return recent;
+    }
+
+    public void clear() {
+        for (int i = 0; i < queries.length(); i++) {
+            queries.set(i, null);
+        }
+    }
+
+    @Override
+    public void close() {
+        explainer.shutdownNow();
+    }
+
+    private boolean sampled() {
+        return explainSampleRate > 0 &&
+                (explainSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < explainSampleRate);
+    }
+
+    private void explain(SlowQuery query, Bindings bindings, DataSource dataSource) {
+        boolean analyze = READ.matcher(query.sql()).lookingAt() && !LOCKING.matcher(query.sql()).find();
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("set local statement_timeout = " + explainTimeoutMs);
+                }
+                String explain = (analyze ? "explain (analyze, buffers) " : "explain ") + query.sql();
+                try (PreparedStatement statement = connection.prepareStatement(explain)) {
+                    if (bindings != null) {
+                        bindings.bindTo(statement);
+                    }
+                    StringJoiner plan = new StringJoiner("\n");
+                    try (ResultSet rows = statement.executeQuery()) {
+                        while (rows.next()) {
+                            plan.add(rows.getString(1));
+                        }
+                    }
+                    query.plan(plan.toString(), analyze);
+                }
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            log.warn("Could not explain slow query {}: {}", query.sql(), e.getMessage());
+            query.plan("EXPLAIN failed: " + e.getMessage(), false);
+        }
+    }
+}
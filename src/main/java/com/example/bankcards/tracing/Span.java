@@ -0,0 +1,32 @@
+package com.example.bankcards.tracing;
+
+/**
+ * A timed step of a sampled request, closed with try-with-resources. Outside a sampled request
+ * {@link Tracing#span} hands out the shared {@link #NOOP} span, so instrumented code allocates nothing.
+ */
+public final class Span implements AutoCloseable {
+
+    static final Span NOOP = new Span(null, null, null, 0, 0);
+
+    private final Trace trace;
+    final String name;
+    final String detail;
+    final int depth;
+    final long startNanos;
+    long endNanos;
+
+    Span(Trace trace, String name, String detail, int depth, long startNanos) {
+        this.trace = trace;
+        this.name = name;
+        this.detail = detail;
+        this.depth = depth;
+        this.startNanos = startNanos;
+    }
+
+    @Override
+    public void close() {
+        if (trace != null) {
+            trace.close(this);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bankcards.tracing;
+
+import com.example.bankcards.dto.SpanDto;
+import com.example.bankcards.dto.TraceDto;
+import com.example.bankcards.util.UuidV7;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The spans of one sampled request, in the order they were opened. Only the request thread touches it.
+ */
+final class Trace {
+
+    private final UUID id = UuidV7.generate();
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final int maxSpans;
+    private final List<Span> spans = new ArrayList<>();
+    private int depth;
+    private int droppedSpans;
+
+    Trace(int maxSpans) {
+        this.maxSpans = maxSpans;
+    }
+
+    UUID id() {
+        return id;
+    }
+
+    Span open(String name, String detail) {
+        if (spans.size() >= maxSpans) {
+            droppedSpans++;
+            return Span.NOOP;
+        }
+        Span span = new Span(this, name, detail, depth++, System.nanoTime());
+        spans.add(span);
+        return span;
+    }
+
+    void close(Span span) {
+        span.endNanos = System.nanoTime();
+        depth--;
+    }
+
+    TraceDto toDto() {
+        Span root = spans.get(0);
+        List<SpanDto> spanDtos = new ArrayList<>(spans.size());
+        for (Span span : spans) {
+            // a span still open when the request ended, e.g. a statement whose result set was never closed
+            long end = span.endNanos == 0 ? root.endNanos : span.endNanos;
+            spanDtos.add(new SpanDto(span.name, span.detail, span.depth,
+                    micros(span.startNanos - root.startNanos), micros(end - span.startNanos)));
+        }
+        return new TraceDto(id, root.name, startedAt, micros(root.endNanos - root.startNanos), droppedSpans, spanDtos);
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1_000;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bankcards.tracing;
+
+import com.example.bankcards.dto.TraceDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the most recent traces; each new trace overwrites the oldest one.
+ */
+public class TraceBuffer {
+
+    private final AtomicReferenceArray<TraceDto> traces;
+    private final AtomicLong written = new AtomicLong();
+
+    public TraceBuffer(int capacity) {
+        this.traces = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(TraceDto trace) {
+        traces.set((int) (written.getAndIncrement() % traces.length()), trace);
+    }
+
+    public List<TraceDto> recent(int limit) {
+        long last = written.get();
+        long first = Math.max(0, last - Math.min(limit, traces.length()));
+        List<TraceDto> recent = new ArrayList<>();
+        for (long i = last - 1; i >= first; i--) {
+            TraceDto trace = traces.get((int) (i % traces.length()));
+            if (trace != null) {
+                recent.add(trace);
+            }
+        }
+        return recent;
+    }
+
+    public Optional<TraceDto> find(UUID traceId) {
+        for (int i = 0; i < traces.length(); i++) {
+            TraceDto trace = traces.get(i);
+            if (trace != null && trace.getId().equals(traceId)) {
+                return Optional.of(trace);
+            }
+        }
+        return Optional.empty();
+    }
+}
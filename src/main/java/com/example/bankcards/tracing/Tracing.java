@@ -0,0 +1,34 @@
+package com.example.bankcards.tracing;
+
+/**
+ * Opens spans in the trace of the current request. A trace exists only while {@link TracingFilter} handles a
+ * sampled request, on that request's thread; everywhere else this is a thread-local read.
+ */
+public final class Tracing {
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private Tracing() {
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    public static Span span(String name) {
+        return span(name, null);
+    }
+
+    public static Span span(String name, String detail) {
+        Trace trace = CURRENT.get();
+        return trace == null ? Span.NOOP : trace.open(name, detail);
+    }
+
+    static void begin(Trace trace) {
+        CURRENT.set(trace);
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.bankcards.tracing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands out connections that open a span per statement execution, detailed with its SQL, and per commit and
+ * rollback. Connections are only wrapped while the calling thread is tracing a sampled request.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+    public TracingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return traced(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return traced(super.getConnection(username, password));
+    }
+
+    private static Connection traced(Connection connection) {
+        if (!Tracing.isActive()) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private record ConnectionHandler(Connection target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "commit", "rollback" -> {
+                    try (Span span = Tracing.span("jdbc." + method.getName())) {
+                        return call(target, method, args);
+                    }
+                }
+                case "prepareStatement", "prepareCall", "createStatement" -> {
+                    Object statement = call(target, method, args);
+                    String sql = method.getName().equals("createStatement") ? null : (String) args[0];
+                    return Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(),
+                            new Class<?>[]{method.getReturnType()}, new StatementHandler((Statement) statement, sql));
+                }
+                default -> {
+                    return call(target, method, args);
+                }
+            }
+        }
+    }
+
+    private record StatementHandler(Statement target, String sql) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return call(target, method, args);
+            }
+            String executed = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+            try (Span span = Tracing.span("jdbc." + method.getName(), executed)) {
+                return call(target, method, args);
+            }
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
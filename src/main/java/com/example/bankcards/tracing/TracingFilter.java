@@ -0,0 +1,57 @@
+package com.example.bankcards.tracing;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples requests and traces the sampled ones from the first filter to the response. Finished traces go to
+ * the {@link TraceBuffer}, and the trace id is returned in {@value #TRACE_ID_HEADER}, so a slow response can be
+ * looked up afterwards.
+ */
+public class TracingFilter implements Filter {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private final double sampleRate;
+    private final int maxSpans;
+    private final TraceBuffer buffer;
+
+    public TracingFilter(double sampleRate, int maxSpans, TraceBuffer buffer) {
+        this.sampleRate = sampleRate;
+        this.maxSpans = maxSpans;
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!sampled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        Trace trace = new Trace(maxSpans);
+        ((HttpServletResponse) response).setHeader(TRACE_ID_HEADER, trace.id().toString());
+        Tracing.begin(trace);
+        Span root = trace.open(httpRequest.getMethod() + " " + httpRequest.getRequestURI(), null);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            root.close();
+            Tracing.end();
+            buffer.add(trace.toDto());
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.tracing;
+
+import com.example.bankcards.util.InvocationNames;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Opens a span named {@code Type.method} around controller, service and repository calls of sampled requests.
+ */
+public class TracingInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!Tracing.isActive()) {
+            return invocation.proceed();
+        }
+        try (Span span = Tracing.span(InvocationNames.of(invocation))) {
+            return invocation.proceed();
+        }
+    }
+}
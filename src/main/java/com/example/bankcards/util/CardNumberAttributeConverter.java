@@ -1,5 +1,7 @@
 package com.example.bankcards.util;
 
+import com.example.bankcards.tracing.Span;
+import com.example.bankcards.tracing.Tracing;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +12,7 @@ import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.concurrent.atomic.LongAdder;
 
 @Converter
 @Slf4j
@@ -18,6 +21,8 @@ public class CardNumberAttributeConverter implements AttributeConverter<String,
     private static final String ALGO = "AES/GCM/NoPadding";
     private static final int GCM_TAG_LENGTH = 16;
     private static final int NONCE_LENGTH = 12;
+    private static final LongAdder ENCRYPTIONS = new LongAdder();
+    private static final LongAdder DECRYPTIONS = new LongAdder();
 
     private final SecretKey secretKey;
     private final SecureRandom secureRandom = new SecureRandom();
@@ -37,10 +42,19 @@ public class CardNumberAttributeConverter implements AttributeConverter<String,
         this.secretKey = new SecretKeySpec(keyBytes, "AES");
     }
 
+    public static long encryptions() {
+        return ENCRYPTIONS.sum();
+    }
+
+    public static long decryptions() {
+        return DECRYPTIONS.sum();
+    }
+
     @Override
     public String convertToDatabaseColumn(String attribute) {
         if (attribute == null) return null;
-        try {
+        ENCRYPTIONS.increment();
+        try (Span span = Tracing.span("pan.encrypt")) {
             // nonce (IV)
             byte[] nonce = new byte[NONCE_LENGTH];
             secureRandom.nextBytes(nonce);
@@ -65,7 +79,8 @@ public class CardNumberAttributeConverter implements AttributeConverter<String,
     @Override
     public String convertToEntityAttribute(String dbData) {
         if (dbData == null) return null;
-        try {
+        DECRYPTIONS.increment();
+        try (Span span = Tracing.span("pan.decrypt")) {
             byte[] combined = Base64.getDecoder().decode(dbData);
             if (combined.length < NONCE_LENGTH + GCM_TAG_LENGTH) {
                 throw new IllegalArgumentException("Invalid ciphertext");
@@ -5,6 +5,8 @@ import org.springframework.stereotype.Component;
 @Component
 public class CardNumberMasker {
 
+    public static final String MASK_PREFIX = "**** **** **** ";
+
     public String maskCardNumber(String last4) {
         if (last4 == null || last4.isEmpty()) {
             return "**** **** **** ****";
@@ -14,6 +16,6 @@ public class CardNumberMasker {
             visible = visible.substring(visible.length() - 4);
         }
 
-        return "**** **** **** " + visible;
+        return MASK_PREFIX + visible;
     }
 }
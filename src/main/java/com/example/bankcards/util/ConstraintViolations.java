@@ -0,0 +1,26 @@
+package com.example.bankcards.util;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Tells which constraint a JPA write violated. Spring reports every integrity violation from Hibernate as a
+ * {@link DataIntegrityViolationException}, and drivers decorate the name differently, so it is matched by substring.
+ */
+public final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    public static boolean violates(DataIntegrityViolationException e, String constraintName) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String name = violation.getConstraintName();
+                return name != null && name.toLowerCase(Locale.ROOT).contains(constraintName);
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.util;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Strong entity tags from a version and the request parameters that shape the response, hashed so that
+ * user-supplied parameters never reach the header.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Object... parts) {
+        String key = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("|"));
+        return DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.bankcards.util;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Names an intercepted call {@code Type.method}, after the bean type rather than its proxy or, for repositories,
+ * after the repository interface rather than {@code SimpleJpaRepository}.
+ */
+public final class InvocationNames {
+
+    private InvocationNames() {
+    }
+
+    public static String of(MethodInvocation invocation) {
+        Class<?> type = invocation.getThis() == null
+                ? invocation.getMethod().getDeclaringClass()
+                : AopUtils.getTargetClass(invocation.getThis());
+        // repositories are JDK proxies around SimpleJpaRepository, implementing the repository interface first
+        if (invocation instanceof ProxyMethodInvocation proxied && Proxy.isProxyClass(proxied.getProxy().getClass())) {
+            type = proxied.getProxy().getClass().getInterfaces()[0];
+        }
+        return ClassUtils.getUserClass(type).getSimpleName() + "." + invocation.getMethod().getName();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bankcards.util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered UUIDs as specified in RFC 9562, version 7: 48 bits of Unix milliseconds, a 12 bit
+ * counter and 62 random bits. Ids issued by one thread are strictly increasing; ids from different
+ * threads are ordered by millisecond. Counter state is kept per thread, so generation never
+ * synchronizes between threads.
+ */
+public final class UuidV7 {
+
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long RAND_B_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private static final ThreadLocal<long[]> LAST = ThreadLocal.withInitial(() -> new long[1]);
+
+    private UuidV7() {
+    }
+
+    public static UUID generate() {
+        return generate(System.currentTimeMillis(), LAST.get());
+    }
+
+    static UUID generate(long epochMillis, long[] last) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // upper 48 bits hold the timestamp, lower 12 bits the counter
+        long state = epochMillis << 12;
+        if (state > last[0]) {
+            // start each millisecond at a random counter in the lower half, leaving room to increment
+            state |= random.nextLong(0x800);
+        } else {
+            // same millisecond or clock moved back: keep counting, borrowing from the next millisecond on overflow
+            state = last[0] + 1;
+        }
+        last[0] = state;
+
+        long mostSigBits = (state >>> 12) << 16 | VERSION | (state & 0xFFF);
+        long leastSigBits = VARIANT | (random.nextLong() & RAND_B_MASK);
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
@@ -0,0 +1,3 @@
+-- Versions behind the ETags of balances, card lists and transfer history
+ALTER TABLE cards ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS cards_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,4 @@
+-- Soft-delete marker: set by the admin delete, the row is removed later by the purge job
+ALTER TABLE users ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_user_deleted_at ON users (deleted_at) WHERE deleted_at IS NOT NULL;
@@ -0,0 +1,27 @@
+-- Card listings filter by owner and optionally status, newest first. The payload columns of a card
+-- row ride along so the listing can be answered from the index alone; balance is deliberately left
+-- out so that transfers keep updating cards as HOT updates. Owners hold a handful of cards, so the
+-- owner-only listing sorts them after the user_id prefix scan rather than paying for a second index.
+CREATE INDEX IF NOT EXISTS idx_card_owner_status_created
+    ON cards (user_id, status, created_date DESC, id DESC)
+    INCLUDE (last4, card_holder_name, expiry_date, block_requested);
+
+DROP INDEX IF EXISTS idx_card_owner;
+DROP INDEX IF EXISTS idx_card_status;
+
+-- Pending block requests are a tiny slice of all cards
+CREATE INDEX IF NOT EXISTS idx_card_block_requested
+    ON cards (created_date, id)
+    WHERE block_requested;
+
+-- Card history pages come newest first; the card id prefix still serves the cascading foreign keys
+CREATE INDEX IF NOT EXISTS idx_transfer_from_card_date ON transfers (from_card_id, transfer_date DESC);
+CREATE INDEX IF NOT EXISTS idx_transfer_to_card_date ON transfers (to_card_id, transfer_date DESC);
+
+DROP INDEX IF EXISTS idx_transfer_from_card;
+DROP INDEX IF EXISTS idx_transfer_to_card;
+
+CREATE INDEX IF NOT EXISTS idx_transfer_date ON transfers (transfer_date DESC);
+
+-- The unique constraint on users.email already indexes it
+DROP INDEX IF EXISTS idx_user_email;
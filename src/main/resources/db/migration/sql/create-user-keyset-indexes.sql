@@ -0,0 +1,6 @@
+-- Keyset pagination over users: every sortable column is paired with id as a tiebreaker
+CREATE INDEX IF NOT EXISTS idx_user_created_at_id ON users (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_user_first_name_id ON users (first_name, id);
+CREATE INDEX IF NOT EXISTS idx_user_last_name_id ON users (last_name, id);
+CREATE INDEX IF NOT EXISTS idx_user_login_id ON users (login, id);
+CREATE INDEX IF NOT EXISTS idx_user_email_id ON users (email, id);
@@ -0,0 +1,11 @@
+-- Named so that a duplicate registration can be told apart from other integrity violations, see ConstraintViolations.
+-- Schemas first built by ddl-auto carry Hibernate's generated names instead, and gain these from the entity.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'users'::regclass AND conname = 'users_login_key') THEN
+        ALTER TABLE users RENAME CONSTRAINT users_login_key TO uk_users_login;
+    END IF;
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'users'::regclass AND conname = 'users_email_key') THEN
+        ALTER TABLE users RENAME CONSTRAINT users_email_key TO uk_users_email;
+    END IF;
+END $$;
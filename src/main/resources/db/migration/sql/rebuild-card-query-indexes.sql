@@ -0,0 +1,11 @@
+-- Schemas first built by ddl-auto got plain indexes under these names, which create-query-indexes.sql then
+-- left in place; recreate them with the covering columns and the partial predicate
+DROP INDEX IF EXISTS idx_card_owner_status_created;
+CREATE INDEX idx_card_owner_status_created
+    ON cards (user_id, status, created_date DESC, id DESC)
+    INCLUDE (last4, card_holder_name, expiry_date, block_requested);
+
+DROP INDEX IF EXISTS idx_card_block_requested;
+CREATE INDEX idx_card_block_requested
+    ON cards (created_date, id)
+    WHERE block_requested;
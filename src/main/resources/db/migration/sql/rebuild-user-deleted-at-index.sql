@@ -0,0 +1,3 @@
+-- Schemas first built by ddl-auto got a full index under this name; only soft-deleted users belong in it
+DROP INDEX IF EXISTS idx_user_deleted_at;
+CREATE INDEX idx_user_deleted_at ON users (deleted_at) WHERE deleted_at IS NOT NULL;
@@ -0,0 +1,20 @@
+-- Time-ordered ids for rows inserted outside the application, matching UuidV7 in the Java code
+CREATE OR REPLACE FUNCTION uuid_generate_v7() RETURNS UUID AS
+$$
+BEGIN
+    -- overwrite the first 48 bits of a v4 uuid with the Unix epoch in milliseconds, then flip version 4 to 7
+    RETURN encode(
+            set_bit(
+                    set_bit(
+                            overlay(uuid_send(gen_random_uuid())
+                                    PLACING substring(int8send(floor(extract(EPOCH FROM clock_timestamp()) * 1000)::BIGINT) FROM 3)
+                                    FROM 1 FOR 6),
+                            52, 1),
+                    53, 1),
+            'hex')::UUID;
+END
+$$ LANGUAGE plpgsql VOLATILE;
+
+ALTER TABLE users ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE cards ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE transfers ALTER COLUMN id SET DEFAULT uuid_generate_v7();
@@ -0,0 +1,113 @@
+package com.example.bankcards;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Records the statements executed on the calling thread, so a test can hold a request to an exact query budget.
+ * It wraps the application's data source, so statements sent through {@code JdbcTemplate} count alongside
+ * Hibernate's; register {@link #postProcessor()} as a bean. A batch counts once, as one round trip. Only the
+ * calling thread is recorded, so scheduled jobs running alongside the test do not skew the count.
+ */
+public class QueryCounter extends DelegatingDataSource {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    public QueryCounter(DataSource target) {
+        super(target);
+    }
+
+    /**
+     * Wraps the application's data source.
+     */
+    public static BeanPostProcessor postProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+                        ? new QueryCounter(dataSource)
+                        : bean;
+            }
+        };
+    }
+
+    public static List<String> record(Call call) throws Exception {
+        List<String> statements = new ArrayList<>();
+        STATEMENTS.set(statements);
+        try {
+            call.run();
+        } finally {
+            STATEMENTS.remove();
+        }
+        return statements;
+    }
+
+    /**
+     * Fails when the call sends more or fewer statements than budgeted, listing what it sent. A lower count
+     * is worth keeping, so lower the budget with it.
+     */
+    public static void assertQueryBudget(int budget, Call call) throws Exception {
+        List<String> statements = record(call);
+        assertEquals(budget, statements.size(),
+                () -> "query budget " + budget + ", sent " + statements.size() + ":\n" + String.join("\n", statements));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counted(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counted(super.getConnection(username, password));
+    }
+
+    private Connection counted(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(QueryCounter.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement") || method.getName().equals("prepareCall")
+                            || method.getName().equals("createStatement")) {
+                        Object statement = call(connection, method, args);
+                        String sql = method.getName().equals("createStatement") ? null : (String) args[0];
+                        return Proxy.newProxyInstance(QueryCounter.class.getClassLoader(),
+                                new Class<?>[]{method.getReturnType()}, statementHandler(statement, sql));
+                    }
+                    return call(connection, method, args);
+                });
+    }
+
+    private static InvocationHandler statementHandler(Object statement, String preparedSql) {
+        return (proxy, method, args) -> {
+            List<String> statements = STATEMENTS.get();
+            if (statements != null && method.getName().startsWith("execute")) {
+                statements.add(args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql);
+            }
+            return call(statement, method, args);
+        };
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Call {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.bankcards;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Makes the in-memory database behave like one across a network: every statement execution, commit and rollback
+ * parks the calling thread for a round trip first. A virtual thread parks the way it would on a Postgres socket
+ * read, so a database call made while holding a monitor shows up as pinning.
+ */
+public class RoundTripDataSource extends DelegatingDataSource {
+
+    private final long roundTripNanos;
+
+    public RoundTripDataSource(DataSource target, long roundTripNanos) {
+        super(target);
+        this.roundTripNanos = roundTripNanos;
+    }
+
+    /**
+     * Wraps the application's data source.
+     */
+    public static BeanPostProcessor postProcessor(long roundTripNanos) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+                        ? new RoundTripDataSource(dataSource, roundTripNanos)
+                        : bean;
+            }
+        };
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return delayed(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return delayed(super.getConnection(username, password));
+    }
+
+    private Connection delayed(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(RoundTripDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "commit", "rollback" -> LockSupport.parkNanos(roundTripNanos);
+                        case "prepareStatement", "prepareCall", "createStatement" -> {
+                            Object statement = call(connection, method, args);
+                            return Proxy.newProxyInstance(RoundTripDataSource.class.getClassLoader(),
+                                    new Class<?>[]{method.getReturnType()}, statementHandler(statement));
+                        }
+                        default -> {
+                        }
+                    }
+                    return call(connection, method, args);
+                });
+    }
+
+    private InvocationHandler statementHandler(Object statement) {
+        return (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                LockSupport.parkNanos(roundTripNanos);
+            }
+            return call(statement, method, args);
+        };
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
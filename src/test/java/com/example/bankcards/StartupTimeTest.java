@@ -0,0 +1,118 @@
+package com.example.bankcards;
+
+import org.h2.Driver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Starts the {@code -Pfast-startup} jar the way the README runs it, with AOT and the AppCDS archive, in a fresh JVM
+ * and fails when the first request is answered later than {@code bankcards.startup.budget-seconds} after launch. The
+ * plain boot of the same jar misses the default budget, so a change that loses AOT or the archive fails here. The
+ * profile's verify phase runs it; the changelogs are Postgres SQL, so against H2 the schema step is left out.
+ */
+@Tag("startup")
+class StartupTimeTest {
+
+    private static final long BUDGET_SECONDS = Long.getLong("bankcards.startup.budget-seconds", 20);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should answer the first request within the startup budget")
+    void firstRequest_WhenStartedWithFastStartupProfile_ThenWithinBudget() throws Exception {
+        Path jar = Paths.get(System.getProperty("bankcards.startup.jar", "target/fast-startup/missing.jar"));
+        Path archive = Paths.get(System.getProperty("bankcards.startup.archive", "target/fast-startup/application.jsa"));
+        assumeTrue(Files.exists(jar) && Files.exists(archive), "Run with ./mvnw -Pfast-startup verify");
+        // H2 is a test dependency, so it is appended after the jar; the archive still maps the classes it recorded
+        Path h2 = Paths.get(Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        int managementPort = freePort();
+        Path log = directory.resolve("startup.log");
+        HttpClient httpClient = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + managementPort + "/actuator/health"))
+                .timeout(Duration.ofSeconds(1))
+                .build();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-XX:SharedArchiveFile=" + archive,
+                "-Dspring.aot.enabled=true",
+                "-cp", jar + File.pathSeparator + h2,
+                BankCardsApplication.class.getName(),
+                "--spring.profiles.active=fast-startup",
+                "--server.port=" + freePort(),
+                "--management.server.port=" + managementPort,
+                "--spring.datasource.url=jdbc:h2:mem:startup",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.liquibase.enabled=false",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--bankcards.user-cache.notify-enabled=false",
+                "--bankcards.card-events.relay-enabled=false"))
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long deadline = started + TimeUnit.SECONDS.toNanos(BUDGET_SECONDS);
+            while (!answers(httpClient, health)) {
+                if (!process.isAlive()) {
+                    fail("Application exited with " + process.exitValue() + ":\n" + tail(log));
+                }
+                if (System.nanoTime() > deadline) {
+                    fail("No answer within " + BUDGET_SECONDS + " s:\n" + tail(log));
+                }
+                Thread.sleep(50);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            System.out.printf("First request answered %d ms after launch (budget %d s)%n", millis, BUDGET_SECONDS);
+            assertTrue(millis <= TimeUnit.SECONDS.toMillis(BUDGET_SECONDS));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static boolean answers(HttpClient httpClient, HttpRequest request) throws InterruptedException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String tail(Path log) throws IOException {
+        List<String> lines = Files.readAllLines(log);
+        return String.join("\n", lines.subList(Math.max(0, lines.size() - 30), lines.size()));
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.bankcards;
+
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Serves concurrent card, balance, transfer and history requests on virtual threads while JFR records every
+ * time a virtual thread blocks pinned to its carrier, and fails with the pinned stacks. Each statement parks for
+ * a simulated database round trip, so a lock held around a database call pins the way it would against Postgres.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.jpa.show-sql=false",
+        "bankcards.user-cache.notify-enabled=false",
+        "bankcards.card-events.relay-enabled=false"})
+@AutoConfigureTestDatabase
+class VirtualThreadPinningTest {
+
+    private static final int CLIENTS = 8;
+    private static final int ROUNDS = 10;
+
+    @TestConfiguration
+    static class RoundTrips {
+        @Bean
+        static BeanPostProcessor roundTripDataSource() {
+            return RoundTripDataSource.postProcessor(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @TempDir
+    Path directory;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+
+    @Test
+    @DisplayName("Should serve requests on virtual threads without pinning a carrier")
+    void requests_WhenServedOnVirtualThreads_ThenNoCarrierPinned() throws Exception {
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            User user = userRepository.save(user("pinning-" + i + "-" + UUID.randomUUID().toString().substring(0, 8)));
+            clients.add(new Client(jwtService.generateAccessToken(user.getLogin(), List.of(UserRole.USER.name())),
+                    user.getId(), cardRepository.save(card(user)).getId(), cardRepository.save(card(user)).getId()));
+        }
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.enable("jdk.VirtualThreadStart");
+            recording.start();
+            // platform client threads, so every virtual thread started belongs to the server
+            ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+            for (int round = 0; round < ROUNDS; round++) {
+                // users are loaded again on every round, with the request's database calls inside
+                userCache.evictAll();
+                clients.forEach(client -> pool.execute(() -> requests(client)));
+            }
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+            recording.stop();
+            Path file = directory.resolve("pinning.jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        }
+
+        assertTrue(failures.isEmpty(), () -> failures.size() + " failed requests, first: " + failures.peek());
+        long virtualThreads = events.stream()
+                .filter(event -> event.getEventType().getName().equals("jdk.VirtualThreadStart"))
+                .count();
+        assertTrue(virtualThreads >= CLIENTS, "Requests were not served on virtual threads");
+        List<String> pinned = events.stream()
+                .filter(event -> event.getEventType().getName().equals("jdk.VirtualThreadPinned"))
+                .map(VirtualThreadPinningTest::stack)
+                .distinct()
+                .toList();
+        assertTrue(pinned.isEmpty(), () -> pinned.size() + " pinned stacks:\n\n" + String.join("\n\n", pinned));
+    }
+
+    private void requests(Client client) {
+        send(client, HttpRequest.newBuilder(uri("/api/cards/user/" + client.userId)).GET());
+        send(client, HttpRequest.newBuilder(uri("/api/cards/balance/" + client.fromCard)).GET());
+        send(client, HttpRequest.newBuilder(uri("/api/transfers")).POST(HttpRequest.BodyPublishers.ofString("""
+                {"fromCardId": "%s", "toCardId": "%s", "amount": 1.00, "description": "pinning"}
+                """.formatted(client.fromCard, client.toCard))).header("Content-Type", "application/json"));
+        send(client, HttpRequest.newBuilder(uri("/api/transfers/history?cardId=" + client.toCard)).GET());
+    }
+
+    private void send(Client client, HttpRequest.Builder request) {
+        try {
+            HttpResponse<String> response = httpClient.send(
+                    request.header("Authorization", "Bearer " + client.token).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                failures.add(response.statusCode() + " " + response.uri() + " " + response.body());
+            }
+        } catch (Exception e) {
+            failures.add(e.toString());
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String stack(RecordedEvent event) {
+        return event.getStackTrace() == null ? "(no stack)" : event.getStackTrace().getFrames().stream()
+                .map(VirtualThreadPinningTest::frame)
+                .collect(Collectors.joining("\n    at ", "    at ", ""));
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private record Client(String token, UUID userId, UUID fromCard, UUID toCard) {
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .login(login)
+                .passwordHash("hash")
+                .email(login + "@example.com")
+                .firstName("First")
+                .lastName("Last")
+                .role(UserRole.USER)
+                .build();
+    }
+
+    private static Card card(User owner) {
+        String number = String.format("%016d", Math.abs(UUID.randomUUID().getMostSignificantBits() % 10_000_000_000_000_000L));
+        return Card.builder()
+                .cardNumberEncrypted(number)
+                .last4(number.substring(12))
+                .cardHolderName("PINNING TEST")
+                .balance(BigDecimal.valueOf(1000))
+                .owner(owner)
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardNumberMasker;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Heap allocated per card listing page: full {@code Card} entities mapped to dtos, as the listing used to
+ * work, against the dto projection. Runs on H2 with PAN encryption enabled, so it needs
+ * {@code PAN_ENCRYPTION_KEY_BASE64}:
+ * <pre>
+ * mvn test -Dgroups=benchmark -DexcludedGroups=none -Dtest=CardListingAllocationBenchmarkTest
+ * </pre>
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CardListingAllocationBenchmarkTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final CardNumberMasker masker = new CardNumberMasker();
+
+    @Test
+    @DisplayName("Bytes allocated per card listing page, entities versus dto projection")
+    void cardListingAllocation() {
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        UUID ownerId = readWrite.execute(status -> seed());
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        PageRequest page = PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdDate", "id"));
+
+        Result entities = measure(() -> readOnly.execute(status -> entityPage(ownerId, page)));
+        Result projection = measure(() -> readOnly.execute(status -> cardRepository.findDtoByOwnerId(ownerId, page)));
+
+        System.out.printf("%d cards per page, %d iterations%n", PAGE_SIZE, ITERATIONS);
+        System.out.printf("%-12s %14s %12s%n", "listing", "bytes/page", "pages/s");
+        System.out.printf("%-12s %14d %12.0f%n", "entities", entities.bytesPerOp, entities.opsPerSecond);
+        System.out.printf("%-12s %14d %12.0f%n", "projection", projection.bytesPerOp, projection.opsPerSecond);
+        System.out.printf("projection allocates %.1f%% of the entity listing%n",
+                100.0 * projection.bytesPerOp / entities.bytesPerOp);
+    }
+
+    private UUID seed() {
+        User owner = User.builder()
+                .login("bench")
+                .passwordHash("hash")
+                .email("bench@example.com")
+                .firstName("Bench")
+                .lastName("Mark")
+                .build();
+        entityManager.persist(owner);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            String number = String.format("4000%012d", i);
+            entityManager.persist(Card.builder()
+                    .cardNumberEncrypted(number)
+                    .last4(number.substring(12))
+                    .cardHolderName("BENCH MARK")
+                    .owner(owner)
+                    .build());
+        }
+        return owner.getId();
+    }
+
+    // the listing before projections: hydrate entities, decrypting every pan, then copy them into dtos
+    private PageImpl<CardDto> entityPage(UUID ownerId, PageRequest page) {
+        List<CardDto> content = entityManager.createQuery(
+                        "select c from Card c where c.owner.id = :userId order by c.createdDate desc, c.id desc", Card.class)
+                .setParameter("userId", ownerId)
+                .setMaxResults(page.getPageSize())
+                .getResultStream()
+                .map(card -> CardDto.builder()
+                        .id(card.getId())
+                        .cardHolderName(card.getCardHolderName())
+                        .maskedCardNumber(masker.maskCardNumber(card.getLast4()))
+                        .ownerId(card.getOwner().getId())
+                        .createdDate(card.getCreatedDate())
+                        .expiryDate(card.getExpiryDate())
+                        .status(card.getStatus())
+                        .blockRequested(card.isBlockRequested())
+                        .build())
+                .toList();
+        long total = entityManager.createQuery("select count(c) from Card c where c.owner.id = :userId", Long.class)
+                .setParameter("userId", ownerId)
+                .getSingleResult();
+        return new PageImpl<>(content, page, total);
+    }
+
+    private static Result measure(Supplier<?> listing) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            listing.get();
+        }
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            listing.get();
+        }
+        long elapsed = System.nanoTime() - started;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        return new Result(bytes / ITERATIONS, ITERATIONS / (elapsed / 1e9));
+    }
+
+    private record Result(long bytesPerOp, double opsPerSecond) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.tracing.Span;
+import com.example.bankcards.tracing.TraceBuffer;
+import com.example.bankcards.tracing.Tracing;
+import com.example.bankcards.tracing.TracingFilter;
+import com.example.bankcards.tracing.TracingInterceptor;
+import jakarta.servlet.FilterChain;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Cost of tracing per request of {@value #CALLS} proxied service calls, each decrypting a card number: an
+ * advised proxy without tracing, the tracing advice with sampling off, and a sampled request. Runs without
+ * Spring or a database:
+ * <pre>
+ * mvn test -Dgroups=benchmark -DexcludedGroups=none -Dtest=TracingOverheadBenchmarkTest
+ * </pre>
+ */
+@Tag("benchmark")
+class TracingOverheadBenchmarkTest {
+
+    private static final int CALLS = 50;
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 100_000;
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cards");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    @DisplayName("Nanoseconds and bytes per request with tracing absent, sampled out and sampled")
+    void tracingOverhead() throws Exception {
+        MethodInterceptor passThrough = invocation -> invocation.proceed();
+
+        Result untraced = measure(new TracingFilter(0, 500, new TraceBuffer(16)), service(passThrough));
+        Result off = measure(new TracingFilter(0, 500, new TraceBuffer(16)), service(new TracingInterceptor()));
+        Result sampled = measure(new TracingFilter(1, 500, new TraceBuffer(16)), service(new TracingInterceptor()));
+
+        System.out.printf("%d proxied calls per request, %d requests%n", CALLS, ITERATIONS);
+        System.out.printf("%-12s %14s %14s%n", "tracing", "ns/request", "bytes/request");
+        System.out.printf("%-12s %14.0f %14d%n", "absent", untraced.nanosPerOp, untraced.bytesPerOp);
+        System.out.printf("%-12s %14.0f %14d%n", "sampled out", off.nanosPerOp, off.bytesPerOp);
+        System.out.printf("%-12s %14.0f %14d%n", "sampled", sampled.nanosPerOp, sampled.bytesPerOp);
+        System.out.printf("sampling off adds %.1f ns per call%n", (off.nanosPerOp - untraced.nanosPerOp) / CALLS);
+    }
+
+    private Result measure(TracingFilter filter, Lookup lookup) throws Exception {
+        FilterChain chain = (req, resp) -> {
+            for (int i = 0; i < CALLS; i++) {
+                lookup.find(i);
+            }
+        };
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            filter.doFilter(request, response, chain);
+        }
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            filter.doFilter(request, response, chain);
+        }
+        long elapsed = System.nanoTime() - started;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        return new Result(bytes / ITERATIONS, (double) elapsed / ITERATIONS);
+    }
+
+    private static Lookup service(MethodInterceptor advice) {
+        ProxyFactory proxyFactory = new ProxyFactory(new CardLookup());
+        proxyFactory.addInterface(Lookup.class);
+        proxyFactory.addAdvice(advice);
+        return (Lookup) proxyFactory.getProxy();
+    }
+
+    public interface Lookup {
+        int find(int id);
+    }
+
+    static class CardLookup implements Lookup {
+
+        @Override
+        public int find(int id) {
+            // stands in for the span around card number decryption
+            try (Span span = Tracing.span("pan.decrypt")) {
+                return id * 31;
+            }
+        }
+    }
+
+    private record Result(long bytesPerOp, double nanosPerOp) {
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.UuidV7;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Random (v4) versus time-ordered (v7) primary keys for {@code transfers}. The B-tree simulation and the
+ * generator throughput run anywhere; the Postgres comparison runs only when {@code benchmark.jdbc-url} is set:
+ * <pre>
+ * mvn test -Dgroups=benchmark -DexcludedGroups=none -Dtest=UuidInsertBenchmarkTest \
+ *     -Dbenchmark.jdbc-url=jdbc:postgresql://localhost:5432/bankcards?reWriteBatchedInserts=true \
+ *     -Dbenchmark.jdbc-user=postgres -Dbenchmark.jdbc-password=postgres -Dbenchmark.rows=10000000
+ * </pre>
+ */
+@Tag("benchmark")
+class UuidInsertBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 10_000_000);
+    private static final int THREADS = 16;
+    private static final int BATCH_SIZE = 1000;
+
+    // a uuid index tuple is 16 bytes of key, 8 bytes of tuple header and a 4 byte line pointer
+    private static final int TUPLES_PER_LEAF = (8192 - 24 - 16) / 28;
+    private static final int RIGHTMOST_SPLIT_FILL = TUPLES_PER_LEAF * 90 / 100;
+    private static final int WORKING_SET_WINDOW = 100_000;
+
+    @Test
+    @DisplayName("Id generation throughput under parallel load")
+    void generatorThroughput() throws Exception {
+        int perThread = 1_000_000;
+        double v4 = generate(UUID::randomUUID, perThread);
+        double v7 = generate(UuidV7::generate, perThread);
+
+        System.out.printf("%-8s %14s%n", "ids", "ids/s");
+        System.out.printf("%-8s %14.0f%n", "v4", v4);
+        System.out.printf("%-8s %14.0f%n", "v7", v7);
+    }
+
+    @Test
+    @DisplayName("Primary key leaf pages after inserting transfers, simulated B-tree")
+    void simulatedIndexSize() {
+        LeafLevel v4 = new LeafLevel();
+        LeafLevel v7 = new LeafLevel();
+        for (int i = 0; i < ROWS; i++) {
+            v4.insert(UUID.randomUUID().getMostSignificantBits(), i >= ROWS - WORKING_SET_WINDOW);
+            v7.insert(UuidV7.generate().getMostSignificantBits(), i >= ROWS - WORKING_SET_WINDOW);
+        }
+
+        System.out.printf("%d inserts, %d tuples per leaf page%n", ROWS, TUPLES_PER_LEAF);
+        System.out.printf("%-4s %12s %10s %10s %10s %22s%n", "ids", "leaf pages", "size MB", "avg fill", "splits",
+                "pages hit by last 100k");
+        print("v4", v4);
+        print("v7", v7);
+    }
+
+    @Test
+    @DisplayName("Insert throughput, primary key size and WAL volume on Postgres")
+    void postgresInsert() throws Exception {
+        String url = System.getProperty("benchmark.jdbc-url");
+        assumeTrue(url != null, "benchmark.jdbc-url is not set");
+
+        try (Connection connection = DriverManager.getConnection(url,
+                System.getProperty("benchmark.jdbc-user", "postgres"),
+                System.getProperty("benchmark.jdbc-password", "postgres"))) {
+            System.out.printf("%d inserts in batches of %d%n", ROWS, BATCH_SIZE);
+            System.out.printf("%-4s %12s %14s %14s %12s%n", "ids", "rows/s", "pkey MB", "table MB", "WAL MB");
+            insert(connection, "v4", UUID::randomUUID);
+            insert(connection, "v7", UuidV7::generate);
+        }
+    }
+
+    private void insert(Connection connection, String name, Supplier<UUID> ids) throws Exception {
+        String table = "bench_transfers_" + name;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + table);
+            statement.execute("create table " + table + " (id uuid primary key, from_card_id uuid not null, " +
+                    "to_card_id uuid not null, amount numeric(18, 2) not null, description varchar(500), " +
+                    "transfer_date timestamp not null)");
+            statement.execute("checkpoint");
+        }
+        String walBefore = walPosition(connection);
+        UUID fromCard = UUID.randomUUID();
+        UUID toCard = UUID.randomUUID();
+
+        long started = System.nanoTime();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("insert into " + table +
+                " (id, from_card_id, to_card_id, amount, description, transfer_date) values (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= ROWS; i++) {
+                insert.setObject(1, ids.get());
+                insert.setObject(2, fromCard);
+                insert.setObject(3, toCard);
+                insert.setBigDecimal(4, BigDecimal.TEN);
+                insert.setString(5, "benchmark");
+                insert.setTimestamp(6, new Timestamp(System.currentTimeMillis()));
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        double rowsPerSecond = ROWS / ((System.nanoTime() - started) / 1e9);
+
+        try (PreparedStatement sizes = connection.prepareStatement(
+                "select pg_relation_size(?::regclass), pg_relation_size(?::regclass), " +
+                        "pg_wal_lsn_diff(pg_current_wal_lsn(), ?::pg_lsn)")) {
+            sizes.setString(1, table + "_pkey");
+            sizes.setString(2, table);
+            sizes.setString(3, walBefore);
+            try (ResultSet rs = sizes.executeQuery()) {
+                rs.next();
+                System.out.printf("%-4s %12.0f %14.1f %14.1f %12.1f%n", name, rowsPerSecond,
+                        rs.getLong(1) / 1048576.0, rs.getLong(2) / 1048576.0, rs.getDouble(3) / 1048576.0);
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table " + table);
+        }
+    }
+
+    private static String walPosition(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select pg_current_wal_lsn()::text")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private static double generate(Supplier<UUID> ids, int perThread) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long started = System.nanoTime();
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                long sink = 0;
+                for (int i = 0; i < perThread; i++) {
+                    sink ^= ids.get().getLeastSignificantBits();
+                }
+                return sink;
+            }));
+        }
+        for (Future<Long> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - started;
+        pool.shutdown();
+        return (double) THREADS * perThread / (elapsed / 1e9);
+    }
+
+    private static void print(String name, LeafLevel leaves) {
+        int pages = leaves.pages.size();
+        System.out.printf("%-4s %12d %10.1f %9.1f%% %10d %22d%n", name, pages, pages * 8192 / 1048576.0,
+                100.0 * leaves.tuples / ((long) pages * TUPLES_PER_LEAF), leaves.splits, leaves.recentlyTouched.size());
+    }
+
+    /**
+     * Leaf level of a Postgres B-tree keyed by the upper 64 bits of the uuid. Full pages split in half,
+     * except the rightmost page which keeps 90% on the left, as nbtree does for ascending inserts.
+     */
+    private static final class LeafLevel {
+        private final TreeMap<Long, Leaf> pages = new TreeMap<>();
+        private final Set<Long> recentlyTouched = new HashSet<>();
+        private long tuples;
+        private long splits;
+
+        private LeafLevel() {
+            pages.put(Long.MIN_VALUE, new Leaf());
+        }
+
+        private void insert(long key, boolean track) {
+            Map.Entry<Long, Leaf> entry = pages.floorEntry(key);
+            Leaf page = entry.getValue();
+            if (page.size == TUPLES_PER_LEAF) {
+                boolean rightmost = pages.higherKey(entry.getKey()) == null;
+                int keep = rightmost && key > page.keys[page.size - 1] ? RIGHTMOST_SPLIT_FILL : page.size / 2;
+                Leaf right = new Leaf();
+                right.size = page.size - keep;
+                System.arraycopy(page.keys, keep, right.keys, 0, right.size);
+                page.size = keep;
+                pages.put(right.keys[0], right);
+                splits++;
+                insert(key, track);
+                return;
+            }
+            int found = Arrays.binarySearch(page.keys, 0, page.size, key);
+            int position = found >= 0 ? found : -found - 1;
+            System.arraycopy(page.keys, position, page.keys, position + 1, page.size - position);
+            page.keys[position] = key;
+            page.size++;
+            tuples++;
+            if (track) {
+                recentlyTouched.add(entry.getKey());
+            }
+        }
+    }
+
+    private static final class Leaf {
+        private final long[] keys = new long[TUPLES_PER_LEAF];
+        private int size;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankCardsApplication;
+import com.example.bankcards.RoundTripDataSource;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Balance lookups over HTTP from a growing number of concurrent connections, against the application served on
+ * Tomcat's platform thread pool and on virtual threads. Every statement and commit parks for a simulated
+ * {@value #ROUND_TRIP_MILLIS} ms database round trip, and the connection pool is larger than Tomcat's 200 threads,
+ * so the thread model is what limits the platform mode. Runs against H2:
+ * <pre>
+ * mvn test -Dgroups=benchmark -DexcludedGroups=none -Dtest=VirtualThreadThroughputBenchmarkTest
+ * </pre>
+ */
+@Tag("benchmark")
+class VirtualThreadThroughputBenchmarkTest {
+
+    private static final int[] CONNECTIONS = {50, 200, 800};
+    private static final long ROUND_TRIP_MILLIS = 10;
+    private static final int POOL_SIZE = 400;
+    private static final long WARMUP_MILLIS = 2_000;
+    private static final long MEASURE_MILLIS = 5_000;
+
+    @Test
+    @DisplayName("Requests per second and latency on platform and virtual threads")
+    void virtualThreadThroughput() throws Exception {
+        List<String> rows = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(virtual)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                URI uri = URI.create("http://localhost:" + port + "/api/cards/balance/" + seedCard(context));
+                String token = context.getBean(JwtService.class)
+                        .generateAccessToken("throughput", List.of(UserRole.USER.name()));
+                for (int connections : CONNECTIONS) {
+                    Result result = drive(uri, token, connections);
+                    rows.add(String.format("%-9s %12d %10.0f %9.1f %9.1f %8d", virtual ? "virtual" : "platform",
+                            connections, result.requestsPerSecond, result.p50Millis, result.p99Millis, result.errors));
+                }
+            }
+        }
+
+        System.out.printf("%d ms per database round trip, %d pooled connections%n", ROUND_TRIP_MILLIS, POOL_SIZE);
+        System.out.printf("%-9s %12s %10s %9s %9s %8s%n", "threads", "connections", "req/s", "p50 ms", "p99 ms", "errors");
+        rows.forEach(System.out::println);
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual) {
+        return new SpringApplicationBuilder(BankCardsApplication.class)
+                .initializers(context -> context.addBeanFactoryPostProcessor(beanFactory -> beanFactory.addBeanPostProcessor(
+                        RoundTripDataSource.postProcessor(TimeUnit.MILLISECONDS.toNanos(ROUND_TRIP_MILLIS)))))
+                // arguments, so they win over application.yml
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--spring.datasource.url=jdbc:h2:mem:throughput-" + virtual + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--bankcards.user-cache.notify-enabled=false",
+                        "--bankcards.card-events.relay-enabled=false",
+                        "--logging.level.root=warn");
+    }
+
+    private static UUID seedCard(ConfigurableApplicationContext context) {
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .login("throughput")
+                .passwordHash("hash")
+                .email("throughput@example.com")
+                .firstName("Throughput")
+                .lastName("Bench")
+                .role(UserRole.USER)
+                .build());
+        return context.getBean(CardRepository.class).save(Card.builder()
+                .cardNumberEncrypted("4000000000000002")
+                .last4("0002")
+                .cardHolderName("THROUGHPUT BENCH")
+                .balance(BigDecimal.valueOf(1000))
+                .owner(user)
+                .build()).getId();
+    }
+
+    private static Result drive(URI uri, String token, int connections) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).header("Authorization", "Bearer " + token).GET().build();
+        AtomicInteger errors = new AtomicInteger();
+        long warmupEnds = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+        long ends = warmupEnds + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+        // platform client threads, so the client never competes with the server for carriers
+        ExecutorService clients = Executors.newFixedThreadPool(connections);
+        try (HttpClient httpClient = HttpClient.newHttpClient()) {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                futures.add(clients.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    for (long now = System.nanoTime(); now < ends; now = System.nanoTime()) {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        long finished = System.nanoTime();
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        } else if (now >= warmupEnds) {
+                            if (count == latencies.length) {
+                                latencies = Arrays.copyOf(latencies, count * 2);
+                            }
+                            latencies[count++] = finished - now;
+                        }
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            long[] all = new long[0];
+            for (Future<long[]> future : futures) {
+                long[] latencies = future.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            }
+            Arrays.sort(all);
+            return new Result(all.length / (MEASURE_MILLIS / 1000.0), percentile(all, 0.50), percentile(all, 0.99),
+                    errors.get());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, sorted.length * quantile)] / 1e6;
+    }
+
+    private record Result(double requestsPerSecond, double p50Millis, double p99Millis, int errors) {
+    }
+}
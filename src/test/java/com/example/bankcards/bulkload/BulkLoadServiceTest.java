@@ -0,0 +1,160 @@
+package com.example.bankcards.bulkload;
+
+import com.example.bankcards.exception.InvalidImportException;
+import com.example.bankcards.util.CardNumberAttributeConverter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Copies files into Postgres with the migration schema, which binary COPY has to match type for type.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class BulkLoadServiceTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static DriverManagerDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    private final BulkLoadService bulkLoadService = new BulkLoadService(dataSource, 2, 2);
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void createSchema() {
+        dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(
+                new ClassPathResource("db/migration/sql/create-users-table.sql"),
+                new ClassPathResource("db/migration/sql/create-cards-table.sql"),
+                new ClassPathResource("db/migration/sql/create-transfers-table.sql"),
+                new ClassPathResource("db/migration/sql/add-etag-versions.sql")
+        ).execute(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkLoadService.shutdown();
+        jdbcTemplate.execute("truncate users cascade");
+    }
+
+    @Test
+    @DisplayName("Should copy users, cards with encrypted card numbers and transfers")
+    void load_WhenValidFiles_ThenRowsCopied() throws IOException, SQLException {
+        UUID userId = UUID.randomUUID();
+        UUID fromCard = UUID.randomUUID();
+        UUID toCard = UUID.randomUUID();
+        Path users = write("users.csv", """
+                id,login,password_hash,email,first_name,last_name,role
+                %s,legacy-1,$2a$10$hash,legacy-1@example.com,Anna,"O'Brien, Jr",
+                ,legacy-2,$2a$10$hash,legacy-2@example.com,Boris,Ivanov,ADMIN
+                """.formatted(userId));
+        Path cards = write("cards.csv", """
+                id,user_id,card_number,card_holder_name,balance,created_date,expiry_date,status
+                %s,%s,4000 0000 0000 1234,ANNA OBRIEN,-1234567.89,2020-01-31,2030-01-31,BLOCKED
+                %s,%s,5500000000009876,ANNA OBRIEN,0.05,,2031-02-28,
+                ,%s,5500000000004321,ANNA OBRIEN,1000000,,2032-03-31,
+                """.formatted(fromCard, userId, toCard, userId, userId));
+        Path transfers = write("transfers.csv", """
+                id,from_card_id,to_card_id,amount,description,transfer_date
+                ,%s,%s,10.50,Rent,2024-05-01 10:15:30.123456
+                ,%s,%s,0.01,,2024-05-02T00:00
+                """.formatted(fromCard, toCard, toCard, fromCard));
+
+        assertEquals(2, bulkLoadService.loadUsers(users).rows());
+        assertEquals(3, bulkLoadService.loadCards(cards).rows());
+        assertEquals(2, bulkLoadService.loadTransfers(transfers).rows());
+
+        Map<String, Object> user = jdbcTemplate.queryForMap("select * from users where id = ?", userId);
+        assertEquals("O'Brien, Jr", user.get("last_name"));
+        assertEquals("USER", user.get("role"));
+        assertEquals("ADMIN", jdbcTemplate.queryForObject(
+                "select role from users where login = 'legacy-2'", String.class));
+
+        Map<String, Object> card = jdbcTemplate.queryForMap("select * from cards where id = ?", fromCard);
+        assertEquals("4000000000001234",
+                new CardNumberAttributeConverter().convertToEntityAttribute((String) card.get("card_number_encrypted")));
+        assertEquals("1234", card.get("last4"));
+        assertEquals(new BigDecimal("-1234567.89"), card.get("balance"));
+        assertEquals(Date.valueOf("2020-01-31"), card.get("created_date"));
+        assertEquals("BLOCKED", card.get("status"));
+        assertEquals(false, card.get("block_requested"));
+        Map<String, Object> defaulted = jdbcTemplate.queryForMap("select * from cards where id = ?", toCard);
+        assertEquals(new BigDecimal("0.05"), defaulted.get("balance"));
+        assertEquals(Date.valueOf(LocalDate.now()), defaulted.get("created_date"));
+        assertEquals("ACTIVE", defaulted.get("status"));
+        assertEquals(new BigDecimal("1000000.00"), jdbcTemplate.queryForObject(
+                "select balance from cards where last4 = '4321'", BigDecimal.class));
+
+        Map<String, Object> transfer = jdbcTemplate.queryForMap("select * from transfers where from_card_id = ?", fromCard);
+        assertEquals(new BigDecimal("10.50"), transfer.get("amount"));
+        assertEquals("Rent", transfer.get("description"));
+        assertEquals(Timestamp.valueOf(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_456_000)), transfer.get("transfer_date"));
+        assertNull(jdbcTemplate.queryForObject(
+                "select description from transfers where from_card_id = ?", String.class, toCard));
+    }
+
+    @Test
+    @DisplayName("Should copy nothing from a file with an invalid row")
+    void loadCards_WhenInvalidCardNumber_ThenNothingCopied() throws IOException, SQLException {
+        UUID userId = UUID.randomUUID();
+        bulkLoadService.loadUsers(write("users.csv", """
+                id,login,password_hash,email,first_name,last_name,role
+                %s,legacy-1,$2a$10$hash,legacy-1@example.com,Anna,Smith,
+                """.formatted(userId)));
+        Path cards = write("cards.csv", """
+                id,user_id,card_number,card_holder_name,balance,created_date,expiry_date,status
+                ,%s,4000000000001234,ANNA SMITH,1.00,,2030-01-31,
+                ,%s,4000000000005678,ANNA SMITH,1.00,,2030-01-31,
+                ,%s,4000-0000-0000-9999,ANNA SMITH,1.00,,2030-01-31,
+                """.formatted(userId, userId, userId));
+
+        InvalidImportException exception =
+                assertThrows(InvalidImportException.class, () -> bulkLoadService.loadCards(cards));
+
+        assertEquals("Line 4: invalid card_number", exception.getMessage());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from cards", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should reject a file whose header does not match the expected columns")
+    void loadTransfers_WhenWrongHeader_ThenRejected() throws IOException {
+        Path transfers = write("transfers.csv", "from_card_id,to_card_id,amount\n");
+
+        InvalidImportException exception =
+                assertThrows(InvalidImportException.class, () -> bulkLoadService.loadTransfers(transfers));
+
+        assertTrue(exception.getMessage().endsWith(
+                "header must be: id,from_card_id,to_card_id,amount,description,transfer_date"));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+}
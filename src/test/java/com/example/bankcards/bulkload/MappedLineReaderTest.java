@@ -0,0 +1,65 @@
+package com.example.bankcards.bulkload;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLineReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should read lines that cross window boundaries, with CRLF and without a final newline")
+    void readLine_WhenLinesCrossWindows_ThenWholeLines() throws IOException {
+        List<String> expected = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            String line = "line-" + i + "-" + "ж".repeat(i % 7) + "x".repeat(i % 13);
+            expected.add(line);
+            content.append(line).append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        expected.add("");
+        expected.add("last");
+        content.append("\nlast");
+
+        assertEquals(expected, readAll(content.toString(), 7));
+        assertEquals(expected, readAll(content.toString(), MappedLineReader.DEFAULT_WINDOW));
+    }
+
+    @Test
+    @DisplayName("Should read a line longer than the window")
+    void readLine_WhenLineLongerThanWindow_ThenWholeLine() throws IOException {
+        String line = "y".repeat(1000);
+
+        assertEquals(List.of(line, "z"), readAll(line + "\nz\n", 16));
+    }
+
+    @Test
+    @DisplayName("Should return no lines for an empty file")
+    void readLine_WhenEmptyFile_ThenNull() throws IOException {
+        assertEquals(List.of(), readAll("", 16));
+    }
+
+    private List<String> readAll(String content, int window) throws IOException {
+        Path file = Files.writeString(directory.resolve("lines-" + window + ".csv"), content, StandardCharsets.UTF_8);
+        List<String> lines = new ArrayList<>();
+        try (MappedLineReader reader = new MappedLineReader(file, window)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                assertEquals(lines.size(), reader.lineNumber());
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.bankcards.bulkload;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgBinaryCopyWriterTest {
+
+    private static final int HEADER_LENGTH = 19;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    @Test
+    @DisplayName("Should frame rows with the COPY signature, field counts and the end of data marker")
+    void finish_WhenRowsWritten_ThenHeaderRowsAndTrailer() throws IOException {
+        PgBinaryCopyWriter writer = new PgBinaryCopyWriter(bytes);
+        writer.startRow(2);
+        writer.writeText("é");
+        writer.writeText(null);
+
+        assertEquals(1, writer.finish());
+        ByteBuffer out = ByteBuffer.wrap(bytes.toByteArray());
+        byte[] signature = new byte[11];
+        out.get(signature);
+        assertArrayEquals(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0}, signature);
+        assertEquals(0, out.getInt());
+        assertEquals(0, out.getInt());
+        assertEquals(2, out.getShort());
+        assertEquals(2, out.getInt());
+        assertEquals((byte) 0xC3, out.get());
+        assertEquals((byte) 0xA9, out.get());
+        assertEquals(-1, out.getInt());
+        assertEquals(-1, out.getShort());
+        assertFalse(out.hasRemaining());
+    }
+
+    @Test
+    @DisplayName("Should write uuids, booleans, dates and timestamps in their binary form")
+    void write_WhenFixedWidthValues_ThenBinaryForm() throws IOException {
+        UUID id = UUID.randomUUID();
+        ByteBuffer out = fields(writer -> {
+            writer.writeUuid(id);
+            writer.writeBoolean(true);
+            writer.writeDate(LocalDate.of(1999, 12, 31));
+            writer.writeTimestamp(LocalDateTime.of(2000, 1, 2, 0, 0, 0, 1_000));
+        });
+
+        assertEquals(16, out.getInt());
+        assertEquals(id, new UUID(out.getLong(), out.getLong()));
+        assertEquals(1, out.getInt());
+        assertEquals(1, out.get());
+        assertEquals(4, out.getInt());
+        assertEquals(-1, out.getInt());
+        assertEquals(8, out.getInt());
+        assertEquals(86_400_000_001L, out.getLong());
+    }
+
+    @Test
+    @DisplayName("Should write numerics as base 10000 digits with weight, sign and scale")
+    void writeNumeric_WhenValues_ThenBase10000Digits() throws IOException {
+        assertNumeric(new BigDecimal("1234.50"), 2, 0, 0, 2, 1234, 5000);
+        assertNumeric(new BigDecimal("-0.05"), 1, -1, 0x4000, 2, 500);
+        assertNumeric(new BigDecimal("1000000"), 1, 1, 0, 0, 100);
+        assertNumeric(new BigDecimal("123456789.01"), 4, 2, 0, 2, 1, 2345, 6789, 100);
+        assertNumeric(BigDecimal.ZERO, 0, 0, 0, 0);
+    }
+
+    private void assertNumeric(BigDecimal value, int... expected) throws IOException {
+        bytes.reset();
+        ByteBuffer out = fields(writer -> writer.writeNumeric(value));
+
+        assertEquals(2 * expected.length, out.getInt(), value.toPlainString());
+        for (int word : expected) {
+            assertEquals(word, out.getShort(), value.toPlainString());
+        }
+    }
+
+    private ByteBuffer fields(FieldWriter fieldWriter) throws IOException {
+        PgBinaryCopyWriter writer = new PgBinaryCopyWriter(bytes);
+        writer.startRow(1);
+        fieldWriter.write(writer);
+        ByteBuffer out = ByteBuffer.wrap(bytes.toByteArray());
+        out.position(HEADER_LENGTH + 2);
+        return out;
+    }
+
+    private interface FieldWriter {
+        void write(PgBinaryCopyWriter writer) throws IOException;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.bankcards.cache;
+
+import com.example.bankcards.config.SecondLevelCacheConfig;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every block of work runs in its own transaction, as a request would, since read-write cache entries
+ * only become visible to sessions started after they were stored.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private UUID userId;
+    private UUID cardId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.save(User.builder()
+                    .login("jdoe")
+                    .passwordHash("hash")
+                    .email("john@example.com")
+                    .firstName("John")
+                    .lastName("Doe")
+                    .build());
+            Card card = cardRepository.save(Card.builder()
+                    .cardNumberEncrypted("4000001234567899")
+                    .last4("7899")
+                    .cardHolderName("JOHN DOE")
+                    .balance(BigDecimal.TEN)
+                    .owner(user)
+                    .createdDate(LocalDate.now())
+                    .expiryDate(LocalDate.now().plusYears(3))
+                    .build());
+            userId = user.getId();
+            cardId = card.getId();
+        });
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from cards");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    @DisplayName("Should serve card and owner lookups without statements once the regions are warm")
+    void findById_WhenRegionsWarm_ThenNoStatements() {
+        long cold = statementsFor(this::loadCardAndOwner);
+        long warm = statementsFor(this::loadCardAndOwner);
+
+        assertEquals(2, cold);
+        assertEquals(0, warm);
+        assertTrue(statistics.getDomainDataRegionStatistics(SecondLevelCacheConfig.CARD_REGION).getHitCount() > 0);
+        assertTrue(statistics.getDomainDataRegionStatistics(SecondLevelCacheConfig.USER_REGION).getHitCount() > 0);
+    }
+
+    @Test
+    @DisplayName("Should read the current balance for transfers even when the cached card is stale")
+    void findByIdForUpdate_WhenCachedCardStale_ThenReadCurrentBalance() {
+        loadCardAndOwner();
+        // another node moves money; this node's cache does not know about it
+        jdbcTemplate.update("update cards set balance = ? where id = ?", new BigDecimal("999.00"), cardId);
+
+        BigDecimal cached = transactionTemplate.execute(status -> cardRepository.findById(cardId).orElseThrow().getBalance());
+        BigDecimal locked = transactionTemplate.execute(status -> cardRepository.findByIdForUpdate(cardId).orElseThrow().getBalance());
+        BigDecimal queried = transactionTemplate.execute(status -> cardRepository.findUncachedById(cardId).orElseThrow().getBalance());
+
+        assertEquals(0, BigDecimal.TEN.compareTo(cached));
+        assertEquals(0, new BigDecimal("999.00").compareTo(locked));
+        assertEquals(0, new BigDecimal("999.00").compareTo(queried));
+    }
+
+    private void loadCardAndOwner() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Card card = cardRepository.findById(cardId).orElseThrow();
+            User owner = userRepository.findById(userId).orElseThrow();
+            assertEquals(owner.getId(), card.getOwner().getId());
+        });
+    }
+
+    private long statementsFor(Runnable work) {
+        long before = statistics.getPrepareStatementCount();
+        work.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.bankcards.cache;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserCacheTest {
+
+    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private UserCache userCache;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        userCache = new UserCache(userRepository, jdbcTemplate, transactionManager, "", 100, 10, true);
+
+        user = User.builder()
+                .id(UUID.randomUUID())
+                .login("jdoe")
+                .email("john@example.com")
+                .role(UserRole.USER)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should query repository only once for repeated lookups by login")
+    void findByLogin_WhenCalledTwice_ThenLoadOnce() {
+        when(userRepository.findByLogin("jdoe")).thenReturn(Optional.of(user));
+
+        User cached = userCache.findByLogin("jdoe").orElseThrow();
+        assertSame(cached, userCache.findByLogin("jdoe").orElseThrow());
+
+        verify(userRepository, times(1)).findByLogin("jdoe");
+        assertEquals(1, userCache.byLoginStats().hitCount());
+    }
+
+    @Test
+    @DisplayName("Should serve lookups by id from entries loaded by login")
+    void findById_WhenLoadedByLogin_ThenNoRepositoryCall() {
+        when(userRepository.findByLogin("jdoe")).thenReturn(Optional.of(user));
+        User cached = userCache.findByLogin("jdoe").orElseThrow();
+
+        assertSame(cached, userCache.findById(user.getId()).orElseThrow());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should cache a copy of the loaded user without its cards")
+    void findById_WhenLoaded_ThenCacheDetachedCopy() {
+        user.setCards(new ArrayList<>());
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        User cached = userCache.findById(user.getId()).orElseThrow();
+
+        assertNotSame(user, cached);
+        assertEquals(user.getId(), cached.getId());
+        assertEquals(user.getLogin(), cached.getLogin());
+        assertEquals(user.getRole(), cached.getRole());
+        assertNull(cached.getCards());
+    }
+
+    @Test
+    @DisplayName("Should load a miss in the caller's context when there are no replicas")
+    void findById_WhenNoReplicas_ThenNoNewTransaction() {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        userCache.findById(user.getId());
+
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should load a miss in its own read-write transaction when replicas are configured")
+    void findById_WhenReplicasConfigured_ThenLoadOnPrimary() {
+        UserCache routed = new UserCache(userRepository, jdbcTemplate, transactionManager,
+                "jdbc:postgresql://replica/bankcards", 100, 10, true);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        routed.findById(user.getId());
+
+        verify(transactionManager).getTransaction(argThat(definition -> !definition.isReadOnly()
+                && definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    @Test
+    @DisplayName("Should not cache missing users")
+    void findByLogin_WhenUserMissing_ThenQueryEveryTime() {
+        when(userRepository.findByLogin("ghost")).thenReturn(Optional.empty());
+
+        assertTrue(userCache.findByLogin("ghost").isEmpty());
+        assertTrue(userCache.findByLogin("ghost").isEmpty());
+
+        verify(userRepository, times(2)).findByLogin("ghost");
+    }
+
+    @Test
+    @DisplayName("Should reload user after eviction and notify other nodes")
+    void evict_WhenUserCached_ThenReloadAndPublish() {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        userCache.findById(user.getId());
+
+        userCache.evict(user.getId(), user.getLogin());
+        userCache.findById(user.getId());
+
+        verify(userRepository, times(2)).findById(user.getId());
+        verify(jdbcTemplate).query(eq("select pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq(UserCache.INVALIDATION_CHANNEL), eq(user.getId() + ":jdoe"));
+    }
+
+    @Test
+    @DisplayName("Should evict entry described by notification payload")
+    void evictFromPayload_WhenValidPayload_ThenEvictLocally() {
+        when(userRepository.findByLogin("jdoe")).thenReturn(Optional.of(user));
+        userCache.findByLogin("jdoe");
+
+        userCache.evictFromPayload(UserCache.toPayload(user.getId(), "jdoe"));
+
+        assertEquals(0, userCache.byIdSize());
+        assertEquals(0, userCache.byLoginSize());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should read the user id of a payload ahead of eviction")
+    void userIdFromPayload_WhenPayloadParsed_ThenIdOrNull() {
+        assertEquals(user.getId(), UserCache.userIdFromPayload(UserCache.toPayload(user.getId(), "jdoe")));
+        assertNull(UserCache.userIdFromPayload(UserCache.toPayload(null, "jdoe")));
+        assertNull(UserCache.userIdFromPayload("malformed"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bankcards.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserExistenceFilterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserExistenceFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        filter = new UserExistenceFilter(jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 1000, 0.01);
+    }
+
+    private void givenUsersTable(String... loginEmailPairs) {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (int i = 0; i < loginEmailPairs.length; i += 2) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString(1)).thenReturn(loginEmailPairs[i]);
+                when(rs.getString(2)).thenReturn(loginEmailPairs[i + 1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    @DisplayName("Should report every value as possibly present before warm up")
+    void mightContain_WhenNotWarmed_ThenReturnTrue() {
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContainLogin("anyone"));
+        assertTrue(filter.mightContainEmail("anyone@bank.com"));
+    }
+
+    @Test
+    @DisplayName("Should rule out values missing from the users table after warm up")
+    void mightContain_WhenWarmed_ThenReflectUsersTable() {
+        givenUsersTable("admin", "admin@bankcards.local");
+
+        filter.warmUp();
+
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightContainLogin("admin"));
+        assertTrue(filter.mightContainEmail("admin@bankcards.local"));
+        assertFalse(filter.mightContainLogin("newcomer"));
+        assertFalse(filter.mightContainEmail("newcomer@bank.com"));
+    }
+
+    @Test
+    @DisplayName("Should include values added after warm up")
+    void addLogin_WhenWarmed_ThenMightContain() {
+        givenUsersTable();
+        filter.warmUp();
+
+        filter.addLogin("newcomer");
+        filter.addEmail("newcomer@bank.com");
+
+        assertTrue(filter.mightContainLogin("newcomer"));
+        assertTrue(filter.mightContainEmail("newcomer@bank.com"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.bankcards.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringJUnitWebConfig({SwaggerConfig.class, SwaggerConfigTest.Mvc.class})
+class SwaggerConfigTest {
+
+    @Configuration
+    @EnableWebMvc
+    static class Mvc {
+    }
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp(@Autowired WebApplicationContext context) {
+        assumeTrue(new ClassPathResource("openapi/openapi.json").exists(),
+                "OpenAPI document not exported, was the build run with -Dexec.skip?");
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    @DisplayName("Should serve the build-time document with an ETag that must be revalidated")
+    void getDocument_WhenRequested_ThenReturnDocumentWithEtag() throws Exception {
+        mockMvc.perform(get(SwaggerConfig.DOCUMENT_PATH))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.servers[0].url").value("/"))
+                .andExpect(jsonPath("$.paths['/api/cards']").exists())
+                .andExpect(jsonPath("$.paths['/api/transfers']").exists());
+    }
+
+    @Test
+    @DisplayName("Should return 304 Not Modified when the ETag matches")
+    void getDocument_WhenEtagMatches_ThenReturnNotModified() throws Exception {
+        String etag = mockMvc.perform(get(SwaggerConfig.DOCUMENT_PATH))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(SwaggerConfig.DOCUMENT_PATH).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("Should serve the precompressed variant to gzip clients under its own ETag")
+    void getDocument_WhenGzipAccepted_ThenReturnCompressedVariant() throws Exception {
+        MvcResult plain = mockMvc.perform(get(SwaggerConfig.DOCUMENT_PATH)).andReturn();
+
+        MvcResult gzip = mockMvc.perform(get(SwaggerConfig.DOCUMENT_PATH).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, "Accept-Encoding"))
+                .andReturn();
+
+        assertNotEquals(plain.getResponse().getHeader(HttpHeaders.ETAG), gzip.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+}
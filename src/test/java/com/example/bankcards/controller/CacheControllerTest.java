@@ -0,0 +1,80 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.SecurityTestConfig;
+import com.example.bankcards.cache.SecondLevelCacheStatistics;
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.dto.CacheStatsDto;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.MyJwtFilter;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CacheController.class)
+@Import(SecurityTestConfig.class)
+@AutoConfigureMockMvc(addFilters = false)
+class CacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserCache userCache;
+
+    @MockBean
+    private SecondLevelCacheStatistics secondLevelCacheStatistics;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private MyJwtFilter myJwtFilter;
+
+    @Test
+    @DisplayName("Should return 200 OK with user cache statistics")
+    @WithMockUser(roles = "ADMIN")
+    void getCacheStats_WhenAdmin_ThenReturnStats() throws Exception {
+        when(userCache.byIdSize()).thenReturn(2L);
+        when(userCache.byIdStats()).thenReturn(CacheStats.of(3, 1, 1, 0, 2_000_000, 0, 0));
+        when(userCache.byLoginStats()).thenReturn(CacheStats.empty());
+        CacheStatsDto cardRegion = new CacheStatsDto();
+        cardRegion.setName("com.example.bankcards.entity.Card");
+        cardRegion.setHitCount(9);
+        when(secondLevelCacheStatistics.regionStats()).thenReturn(List.of(cardRegion));
+
+        mockMvc.perform(get("/api/admin/caches"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("users-by-id"))
+                .andExpect(jsonPath("$[0].size").value(2))
+                .andExpect(jsonPath("$[0].hitRatio").value(0.75))
+                .andExpect(jsonPath("$[0].averageLoadMillis").value(2.0))
+                .andExpect(jsonPath("$[1].name").value("users-by-login"))
+                .andExpect(jsonPath("$[2].name").value("com.example.bankcards.entity.Card"))
+                .andExpect(jsonPath("$[2].hitCount").value(9));
+    }
+
+    @Test
+    @DisplayName("Should return 403 Forbidden when user is not admin")
+    @WithMockUser(roles = "USER")
+    void getCacheStats_WhenUserIsNotAdmin_ThenReturnForbidden() throws Exception {
+        mockMvc.perform(get("/api/admin/caches"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userCache);
+    }
+}
@@ -2,10 +2,15 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.SecurityTestConfig;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.PageDto;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.security.JwtService;
 import com.example.bankcards.security.MyJwtFilter;
 import com.example.bankcards.service.CardService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,11 +24,14 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -31,7 +39,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(CardController.class)
-@Import(SecurityTestConfig.class)
+@Import({SecurityTestConfig.class, ConditionalResponses.class})
 @AutoConfigureMockMvc(addFilters = false)
 class CardControllerTest {
 
@@ -41,6 +49,10 @@ class CardControllerTest {
     @MockBean
     private CardService cardService;
 
+    // conditional responses read in a transaction
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
     @MockBean
     private JwtService jwtService;
     @MockBean
@@ -167,6 +179,64 @@ class CardControllerTest {
                 .andExpect(jsonPath("$[0].cardHolderName").value("Admin Card"));
     }
 
+    @Test
+    @DisplayName("Should return 200 OK with the page of pending block requests")
+    @WithMockUser(roles = "ADMIN")
+    void getBlockRequests_returnsPage() throws Exception {
+        CardDto dto = CardDto.builder()
+                .id(UUID.randomUUID())
+                .cardHolderName("John Doe")
+                .blockRequested(true)
+                .build();
+        when(cardService.getBlockRequests(0, 20)).thenReturn(new PageImpl<>(List.of(dto), PageRequest.of(0, 20), 1));
+
+        mockMvc.perform(get("/api/cards/block-requests").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].blockRequested").value(true))
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Should encode the page as CBOR or Smile when the client asks for it")
+    @WithMockUser(roles = "ADMIN")
+    void getBlockRequests_WhenBinaryAccepted_ThenReturnBinaryPage() throws Exception {
+        CardDto dto = CardDto.builder()
+                .id(UUID.randomUUID())
+                .cardHolderName("John Doe")
+                .expiryDate(LocalDate.of(2030, 1, 31))
+                .blockRequested(true)
+                .build();
+        when(cardService.getBlockRequests(0, 20)).thenReturn(new PageImpl<>(List.of(dto), PageRequest.of(0, 20), 1));
+
+        for (ObjectMapper mapper : List.of(CBORMapper.builder().findAndAddModules().build(),
+                SmileMapper.builder().findAndAddModules().build())) {
+            MediaType mediaType = mapper instanceof CBORMapper
+                    ? MediaType.APPLICATION_CBOR : MediaType.valueOf("application/x-jackson-smile");
+            byte[] body = mockMvc.perform(get("/api/cards/block-requests").param("size", "20").accept(mediaType))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(mediaType))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            PageDto<CardDto> page = mapper.readValue(body, new TypeReference<>() {
+            });
+            assertEquals(1, page.getTotalElements());
+            assertEquals(dto, page.getContent().get(0));
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer JSON to clients that accept anything")
+    @WithMockUser(roles = "ADMIN")
+    void getBlockRequests_WhenAnyAccepted_ThenReturnJson() throws Exception {
+        when(cardService.getBlockRequests(0, 20)).thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 20), 0));
+
+        mockMvc.perform(get("/api/cards/block-requests").param("size", "20").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.pageable").doesNotExist())
+                .andExpect(jsonPath("$.totalPages").value(0));
+    }
+
     @Test
     @DisplayName("Should return 200 OK when card balance is returned")
     @WithMockUser(roles = "USER")
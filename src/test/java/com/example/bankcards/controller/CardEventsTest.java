@@ -0,0 +1,190 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Subscribes over a real connection, through the security filters, and checks that committed card changes reach
+ * the stream and rejected ones do not.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "bankcards.user-cache.notify-enabled=false",
+        "bankcards.card-events.relay-enabled=false"})
+@AutoConfigureTestDatabase
+class CardEventsTest {
+
+    private static final long EVENT_TIMEOUT_SECONDS = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private String token;
+    private UUID fromCard;
+    private UUID toCard;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(User.builder()
+                .login("jdoe")
+                .passwordHash("hash")
+                .email("jdoe@example.com")
+                .firstName("John")
+                .lastName("Doe")
+                .role(UserRole.USER)
+                .build());
+        fromCard = cardRepository.save(card(owner, "4000000000000001")).getId();
+        toCard = cardRepository.save(card(owner, "4000000000000002")).getId();
+        token = jwtService.generateAccessToken(owner.getLogin(), List.of(UserRole.USER.name()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from transfers");
+        jdbcTemplate.update("delete from cards");
+        jdbcTemplate.update("delete from users");
+        userCache.evictAll();
+    }
+
+    @Test
+    @DisplayName("Should push the new balances of both cards once a transfer commits")
+    void subscribe_WhenTransferCommitted_ThenReceiveBothCards() throws Exception {
+        BlockingQueue<String> events = subscribe();
+
+        assertEquals(200, send(transfer(fromCard, toCard, "25.00")));
+
+        assertEquals("transfer", nextEventName(events));
+        String first = events.poll(EVENT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals("transfer", nextEventName(events));
+        String second = events.poll(EVENT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        String both = first + second;
+        assertTrue(both.contains(fromCard.toString()) && both.contains("\"balance\":975.00"), both);
+        assertTrue(both.contains(toCard.toString()) && both.contains("\"balance\":1025.00"), both);
+    }
+
+    @Test
+    @DisplayName("Should push nothing for a transfer that is rejected")
+    void subscribe_WhenTransferRejected_ThenNoEvent() throws Exception {
+        BlockingQueue<String> events = subscribe();
+
+        assertNotEquals(200, send(transfer(fromCard, toCard, "5000.00")));
+        assertEquals(200, send(HttpRequest.newBuilder(uri("/api/cards/request-block/" + fromCard))
+                .header("Authorization", "Bearer " + token)
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build()));
+
+        assertEquals("block_requested", nextEventName(events));
+        String data = events.poll(EVENT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(data.contains("\"blockRequested\":true") && data.contains("\"balance\":1000"), data);
+    }
+
+    private BlockingQueue<String> subscribe() throws Exception {
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        HttpResponse<InputStream> response = httpClient.send(HttpRequest.newBuilder(uri("/api/cards/events"))
+                        .header("Authorization", "Bearer " + token)
+                        .header("Accept", "text/event-stream")
+                        .build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        // the status arrives once the stream is registered
+        assertEquals(200, response.statusCode());
+        Thread reader = new Thread(() -> {
+            try (BufferedReader body = new BufferedReader(
+                    new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = body.readLine()) != null) {
+                    if (line.startsWith("event:") || line.startsWith("data:")) {
+                        lines.add(line.substring(line.indexOf(':') + 1));
+                    }
+                }
+            } catch (Exception e) {
+                // the stream is closed when the application stops
+            }
+        }, "card-events-reader");
+        reader.setDaemon(true);
+        reader.start();
+        return lines;
+    }
+
+    private static String nextEventName(BlockingQueue<String> events) throws InterruptedException {
+        String name = events.poll(EVENT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(name, "no event within " + EVENT_TIMEOUT_SECONDS + " s");
+        return name;
+    }
+
+    private HttpRequest transfer(UUID from, UUID to, String amount) {
+        return HttpRequest.newBuilder(uri("/api/transfers"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(EVENT_TIMEOUT_SECONDS))
+                .POST(HttpRequest.BodyPublishers.ofString("""
+                        {"fromCardId": "%s", "toCardId": "%s", "amount": %s}
+                        """.formatted(from, to, amount)))
+                .build();
+    }
+
+    private int send(HttpRequest request) throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static Card card(User owner, String number) {
+        return Card.builder()
+                .cardNumberEncrypted(number)
+                .last4(number.substring(12))
+                .cardHolderName("JOHN DOE")
+                .balance(BigDecimal.valueOf(1000))
+                .owner(owner)
+                .build();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "bankcards.user-cache.notify-enabled=false",
+        "bankcards.card-events.relay-enabled=false"})
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc(addFilters = false)
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private UUID fromCard;
+    private UUID toCard;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder()
+                .login("jdoe")
+                .passwordHash("hash")
+                .email("jdoe@example.com")
+                .firstName("John")
+                .lastName("Doe")
+                .role(UserRole.USER)
+                .build());
+        fromCard = cardRepository.save(card("4000000000000001")).getId();
+        toCard = cardRepository.save(card("4000000000000002")).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from transfers");
+        jdbcTemplate.update("delete from cards");
+        jdbcTemplate.update("delete from users");
+        userCache.evictAll();
+    }
+
+    @Test
+    @DisplayName("Should answer 304 while the balance is unchanged")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getBalance_WhenEtagMatches_ThenReturnNotModified() throws Exception {
+        String etag = etag(get("/api/cards/balance/{cardId}", fromCard));
+
+        mockMvc.perform(get("/api/cards/balance/{cardId}", fromCard).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    @DisplayName("Should retire balance and history ETags when a transfer moves money")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getBalanceAndHistory_WhenTransferred_ThenReturnNewBody() throws Exception {
+        String balance = etag(get("/api/cards/balance/{cardId}", fromCard));
+        String history = etag(get("/api/transfers/history"));
+
+        mockMvc.perform(post("/api/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"fromCardId": "%s", "toCardId": "%s", "amount": 25.00}
+                                """.formatted(fromCard, toCard)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/cards/balance/{cardId}", fromCard).header(HttpHeaders.IF_NONE_MATCH, balance))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/transfers/history").header(HttpHeaders.IF_NONE_MATCH, history))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should retire the card list ETag when a card is blocked")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getUserCards_WhenBlockRequested_ThenReturnNewBody() throws Exception {
+        MockHttpServletRequestBuilder cards = get("/api/cards/user/{userId}", owner.getId());
+        String etag = etag(cards);
+
+        mockMvc.perform(put("/api/cards/request-block/{cardId}", fromCard)).andExpect(status().isOk());
+
+        mockMvc.perform(cards.header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should block a card whose cached version a transfer on another node has moved on")
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void blockCard_WhenCachedVersionStale_ThenBlock() throws Exception {
+        // puts the card into the second-level cache, then changes the row the way another node would
+        cardRepository.findById(fromCard).orElseThrow();
+        jdbcTemplate.update("update cards set balance = balance - 25, version = version + 1 where id = ?", fromCard);
+
+        mockMvc.perform(put("/api/cards/block/{cardId}", fromCard)).andExpect(status().isOk());
+        mockMvc.perform(put("/api/cards/activate/{cardId}", fromCard)).andExpect(status().isOk());
+    }
+
+    private String etag(MockHttpServletRequestBuilder request) throws Exception {
+        String etag = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private Card card(String number) {
+        return Card.builder()
+                .cardNumberEncrypted(number)
+                .last4(number.substring(12))
+                .cardHolderName("JOHN DOE")
+                .balance(BigDecimal.valueOf(1000))
+                .owner(owner)
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class ConditionalResponsesTest {
+
+    @Test
+    @DisplayName("Should read the version and the body in one read-only transaction")
+    @SuppressWarnings("unchecked")
+    void ofETag_WhenModified_ThenReadVersionAndBodyTogether() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        Supplier<Optional<String>> version = mock(Supplier.class);
+        Supplier<String> body = mock(Supplier.class);
+        when(version.get()).thenReturn(Optional.of("7"));
+        when(body.get()).thenReturn("balance");
+        ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/cards/balance"),
+                new MockHttpServletResponse());
+
+        ResponseEntity<String> response = new ConditionalResponses(transactionManager).ofETag(request, version, body);
+
+        assertEquals("balance", response.getBody());
+        InOrder inOrder = inOrder(transactionManager, version, body);
+        inOrder.verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
+        inOrder.verify(version).get();
+        inOrder.verify(body).get();
+        inOrder.verify(transactionManager).commit(any());
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.QueryCounter;
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Holds every card, transfer and user endpoint to the number of statements it sends today, through the real
+ * services and repositories on an in-memory database. Caches are emptied before each request, so a budget is
+ * the cold cost, and listings run over several rows, so a lazy association walked per row shows up as extra
+ * statements. When a change moves a budget, the failure lists the statements the request sent.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "bankcards.user-cache.notify-enabled=false",
+        "bankcards.card-events.relay-enabled=false"})
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc(addFilters = false)
+class QueryBudgetTest {
+
+    private static final int CARDS = 3;
+
+    @TestConfiguration
+    static class Counting {
+        @Bean
+        static BeanPostProcessor queryCounter() {
+            return QueryCounter.postProcessor();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private final List<Card> cards = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(user("admin", UserRole.ADMIN));
+        owner = userRepository.save(user("jdoe", UserRole.USER));
+        userRepository.save(user("asmith", UserRole.USER));
+        for (int i = 0; i < CARDS; i++) {
+            String number = String.format("4000%012d", i);
+            cards.add(cardRepository.save(Card.builder()
+                    .cardNumberEncrypted(number)
+                    .last4(number.substring(12))
+                    .cardHolderName("JOHN DOE")
+                    .balance(BigDecimal.valueOf(1000))
+                    .owner(owner)
+                    .blockRequested(i > 0)
+                    .build()));
+        }
+        for (int i = 0; i < CARDS; i++) {
+            transferRepository.save(Transfer.builder()
+                    .fromCard(cards.get(i))
+                    .toCard(cards.get((i + 1) % CARDS))
+                    .amount(BigDecimal.TEN)
+                    .description("rent")
+                    .transferDate(LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from transfers");
+        jdbcTemplate.update("delete from cards");
+        jdbcTemplate.update("delete from users");
+        evictCaches();
+    }
+
+    @Test
+    @DisplayName("Card creation loads the owner, bumps the cards version and inserts the card")
+    @WithMockUser(roles = "ADMIN")
+    void createCard_WhenAdmin_ThenWithinBudget() throws Exception {
+        assertBudget(3, post("/api/cards")
+                .param("userId", owner.getId().toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"cardHolderName": "JOHN DOE SECOND CARD", "initialBalance": 100.00}
+                        """));
+    }
+
+    @Test
+    @DisplayName("Card deletion stays within budget")
+    @WithMockUser(roles = "ADMIN")
+    void deleteCard_WhenAdmin_ThenWithinBudget() throws Exception {
+        jdbcTemplate.update("delete from transfers");
+        jdbcTemplate.update("update cards set balance = 0");
+        assertBudget(3, delete("/api/cards").param("cardId", cards.get(0).getId().toString()));
+    }
+
+    @Test
+    @DisplayName("Card activation stays within budget")
+    @WithMockUser(roles = "ADMIN")
+    void activateCard_WhenAdmin_ThenWithinBudget() throws Exception {
+        jdbcTemplate.update("update cards set status = 'BLOCKED'");
+        assertBudget(3, put("/api/cards/activate/{cardId}", cards.get(0).getId()));
+    }
+
+    @Test
+    @DisplayName("Card blocking stays within budget")
+    @WithMockUser(roles = "ADMIN")
+    void blockCard_WhenAdmin_ThenWithinBudget() throws Exception {
+        assertBudget(3, put("/api/cards/block/{cardId}", cards.get(0).getId()));
+    }
+
+    @Test
+    @DisplayName("Owner card listing does not grow with the number of cards")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getUserCards_WhenOwner_ThenWithinBudget() throws Exception {
+        assertBudget(4, get("/api/cards/user/{userId}", owner.getId()).param("size", "2"));
+    }
+
+    @Test
+    @DisplayName("Owner card search by status stays within budget")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getUserCards_WhenSearchingByStatus_ThenWithinBudget() throws Exception {
+        assertBudget(4, get("/api/cards/user/{userId}", owner.getId())
+                .param("size", "1")
+                .param("status", "ACTIVE")
+                .param("search", "john"));
+    }
+
+    @Test
+    @DisplayName("Listing all cards does not grow with the number of cards")
+    @WithMockUser(roles = "ADMIN")
+    void getAllCards_WhenAdmin_ThenWithinBudget() throws Exception {
+        assertBudget(1, get("/api/cards/all"));
+    }
+
+    @Test
+    @DisplayName("Block request listing does not grow with the number of requests")
+    @WithMockUser(roles = "ADMIN")
+    void getBlockRequests_WhenAdmin_ThenWithinBudget() throws Exception {
+        assertBudget(2, get("/api/cards/block-requests").param("size", "1"));
+    }
+
+    @Test
+    @DisplayName("Block request stays within budget")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void requestBlockCard_WhenOwner_ThenWithinBudget() throws Exception {
+        assertBudget(4, put("/api/cards/request-block/{cardId}", cards.get(0).getId()));
+    }
+
+    @Test
+    @DisplayName("Balance check stays within budget")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getBalance_WhenOwner_ThenWithinBudget() throws Exception {
+        assertBudget(3, get("/api/cards/balance/{cardId}", cards.get(0).getId()));
+    }
+
+    @Test
+    @DisplayName("Unchanged balance is answered 304 without loading the card")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getBalance_WhenNotModified_ThenOnlyUserLoaded() throws Exception {
+        assertNotModifiedBudget(2, get("/api/cards/balance/{cardId}", cards.get(0).getId()));
+    }
+
+    @Test
+    @DisplayName("Unchanged card list is answered 304 without running the page query")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getUserCards_WhenNotModified_ThenOnlyUserLoaded() throws Exception {
+        assertNotModifiedBudget(2, get("/api/cards/user/{userId}", owner.getId()).param("size", "2"));
+    }
+
+    @Test
+    @DisplayName("Unchanged history is answered 304 without loading transfers")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getTransferHistory_WhenNotModified_ThenOnlyUserLoaded() throws Exception {
+        assertNotModifiedBudget(2, get("/api/transfers/history").param("size", "2"));
+    }
+
+    @Test
+    @DisplayName("Transfer locks both cards, updates them, records the transfer and bumps the cards version")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void transfer_WhenOwner_ThenWithinBudget() throws Exception {
+        assertBudget(7, post("/api/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"fromCardId": "%s", "toCardId": "%s", "amount": 25.00, "description": "savings"}
+                        """.formatted(cards.get(0).getId(), cards.get(1).getId())));
+    }
+
+    @Test
+    @DisplayName("User history does not grow with the number of transfers")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getTransferHistory_WhenUser_ThenWithinBudget() throws Exception {
+        assertBudget(3, get("/api/transfers/history").param("size", "2"));
+    }
+
+    @Test
+    @DisplayName("User history with a total adds only the count")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getTransferHistory_WhenTotalRequested_ThenWithinBudget() throws Exception {
+        assertBudget(4, get("/api/transfers/history").param("size", "2").param("includeTotal", "true"));
+    }
+
+    @Test
+    @DisplayName("Card history does not grow with the number of transfers")
+    @WithMockUser(username = "jdoe", roles = "USER")
+    void getTransferHistory_WhenCard_ThenWithinBudget() throws Exception {
+        assertBudget(4, get("/api/transfers/history").param("size", "1").param("cardId", cards.get(0).getId().toString()));
+    }
+
+    @Test
+    @DisplayName("Admin history does not grow with the number of transfers")
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void getTransferHistory_WhenAdmin_ThenWithinBudget() throws Exception {
+        assertBudget(2, get("/api/transfers/history").param("size", "2"));
+    }
+
+    @Test
+    @DisplayName("User lookup stays within budget")
+    @WithMockUser(roles = "ADMIN")
+    void getUserById_WhenAdmin_ThenWithinBudget() throws Exception {
+        assertBudget(1, get("/api/users/{id}", owner.getId()));
+    }
+
+    @Test
+    @DisplayName("User listing does not load the users' cards")
+    @WithMockUser(roles = "ADMIN")
+    void getAllUsers_WhenAdmin_ThenWithinBudget() throws Exception {
+        assertBudget(2, get("/api/users").param("size", "2"));
+    }
+
+    @Test
+    @DisplayName("User scrolling does not load the users' cards")
+    @WithMockUser(roles = "ADMIN")
+    void scrollUsers_WhenAdmin_ThenWithinBudget() throws Exception {
+        assertBudget(1, get("/api/users/scroll").param("size", "2"));
+    }
+
+    @Test
+    @DisplayName("User update stays within budget")
+    @WithMockUser(roles = "ADMIN")
+    void updateUser_WhenAdmin_ThenWithinBudget() throws Exception {
+        assertBudget(2, patch("/api/users/{id}", owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"firstName": "Johnny"}
+                        """));
+    }
+
+    @Test
+    @DisplayName("User deletion checks balances and marks the user without loading the cards")
+    @WithMockUser(roles = "ADMIN")
+    void deleteUser_WhenAdmin_ThenWithinBudget() throws Exception {
+        jdbcTemplate.update("update cards set balance = 0");
+        assertBudget(3, delete("/api/users/{id}", owner.getId()));
+    }
+
+    private void assertBudget(int budget, RequestBuilder request) throws Exception {
+        evictCaches();
+        QueryCounter.assertQueryBudget(budget, () -> mockMvc.perform(request).andExpect(status().is2xxSuccessful()));
+    }
+
+    private void assertNotModifiedBudget(int budget, MockHttpServletRequestBuilder request) throws Exception {
+        String etag = mockMvc.perform(request).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        evictCaches();
+        QueryCounter.assertQueryBudget(budget, () -> mockMvc.perform(request.header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified()));
+    }
+
+    private void evictCaches() {
+        userCache.evictAll();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private static User user(String login, UserRole role) {
+        return User.builder()
+                .login(login)
+                .passwordHash("hash")
+                .email(login + "@example.com")
+                .firstName("First")
+                .lastName("Last")
+                .role(role)
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.SecurityTestConfig;
+import com.example.bankcards.dto.SlowQueryDto;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.MyJwtFilter;
+import com.example.bankcards.slowquery.SlowQueryRecorder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(SlowQueryController.class)
+@Import(SecurityTestConfig.class)
+@AutoConfigureMockMvc(addFilters = false)
+class SlowQueryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SlowQueryRecorder slowQueryRecorder;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private MyJwtFilter myJwtFilter;
+
+    @Test
+    @DisplayName("Should return 200 OK with recent slow queries")
+    @WithMockUser(roles = "ADMIN")
+    void getSlowQueries_WhenAdmin_ThenReturnQueries() throws Exception {
+        when(slowQueryRecorder.recent(20)).thenReturn(List.of(new SlowQueryDto(
+                "select c1_0.id from cards c1_0 where c1_0.owner_id=?", List.of("UUID"),
+                "CardRepository.findDtoByOwnerId", 250_000, LocalDateTime.now(), "Index Scan using idx_cards_owner", true)));
+
+        mockMvc.perform(get("/api/admin/slow-queries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].parameterTypes[0]").value("UUID"))
+                .andExpect(jsonPath("$[0].origin").value("CardRepository.findDtoByOwnerId"))
+                .andExpect(jsonPath("$[0].durationMicros").value(250_000))
+                .andExpect(jsonPath("$[0].planAnalyzed").value(true));
+    }
+
+    @Test
+    @DisplayName("Should return 204 No Content after clearing slow queries")
+    @WithMockUser(roles = "ADMIN")
+    void clearSlowQueries_WhenAdmin_ThenClear() throws Exception {
+        mockMvc.perform(delete("/api/admin/slow-queries"))
+                .andExpect(status().isNoContent());
+
+        verify(slowQueryRecorder).clear();
+    }
+
+    @Test
+    @DisplayName("Should return 403 Forbidden when user is not admin")
+    @WithMockUser(roles = "USER")
+    void getSlowQueries_WhenUserIsNotAdmin_ThenReturnForbidden() throws Exception {
+        mockMvc.perform(get("/api/admin/slow-queries"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(slowQueryRecorder);
+    }
+}
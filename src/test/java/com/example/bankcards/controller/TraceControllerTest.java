@@ -0,0 +1,96 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.SecurityTestConfig;
+import com.example.bankcards.dto.SpanDto;
+import com.example.bankcards.dto.TraceDto;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.MyJwtFilter;
+import com.example.bankcards.tracing.TraceBuffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TraceController.class)
+@Import(SecurityTestConfig.class)
+@AutoConfigureMockMvc(addFilters = false)
+class TraceControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TraceBuffer traceBuffer;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private MyJwtFilter myJwtFilter;
+
+    private final TraceDto trace = new TraceDto(UUID.randomUUID(), "POST /api/transfers", LocalDateTime.now(), 1500, 0,
+            List.of(new SpanDto("POST /api/transfers", null, 0, 0, 1500),
+                    new SpanDto("jdbc.executeUpdate", "update cards set balance=? where id=?", 1, 900, 120)));
+
+    @Test
+    @DisplayName("Should return 200 OK with recent traces")
+    @WithMockUser(roles = "ADMIN")
+    void getRecentTraces_WhenAdmin_ThenReturnTraces() throws Exception {
+        when(traceBuffer.recent(5)).thenReturn(List.of(trace));
+
+        mockMvc.perform(get("/api/admin/traces").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("POST /api/transfers"))
+                .andExpect(jsonPath("$[0].spans[1].detail").value("update cards set balance=? where id=?"))
+                .andExpect(jsonPath("$[0].spans[1].depth").value(1));
+    }
+
+    @Test
+    @DisplayName("Should return 200 OK with the trace when it is buffered")
+    @WithMockUser(roles = "ADMIN")
+    void getTrace_WhenBuffered_ThenReturnTrace() throws Exception {
+        when(traceBuffer.find(trace.getId())).thenReturn(Optional.of(trace));
+
+        mockMvc.perform(get("/api/admin/traces/{traceId}", trace.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(trace.getId().toString()))
+                .andExpect(jsonPath("$.durationMicros").value(1500));
+    }
+
+    @Test
+    @DisplayName("Should return 404 Not Found when the trace is not buffered")
+    @WithMockUser(roles = "ADMIN")
+    void getTrace_WhenNotBuffered_ThenReturnNotFound() throws Exception {
+        UUID traceId = UUID.randomUUID();
+        when(traceBuffer.find(traceId)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/admin/traces/{traceId}", traceId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should return 403 Forbidden when user is not admin")
+    @WithMockUser(roles = "USER")
+    void getRecentTraces_WhenUserIsNotAdmin_ThenReturnForbidden() throws Exception {
+        mockMvc.perform(get("/api/admin/traces"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(traceBuffer);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.SecurityTestConfig;
+import com.example.bankcards.dto.SlicePage;
 import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.security.JwtService;
 import com.example.bankcards.security.MyJwtFilter;
@@ -12,12 +13,10 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -25,6 +24,7 @@ import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -32,7 +32,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransferController.class)
-@Import(SecurityTestConfig.class)
+@Import({SecurityTestConfig.class, ConditionalResponses.class})
 @AutoConfigureMockMvc(addFilters = false)
 class TransferControllerTest {
 
@@ -42,6 +42,10 @@ class TransferControllerTest {
     @MockBean
     private TransferService transferService;
 
+    // conditional responses read in a transaction
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
     @MockBean
     private JwtService jwtService;
 
@@ -85,8 +89,8 @@ class TransferControllerTest {
         dto.setId(UUID.randomUUID());
         dto.setAmount(new BigDecimal("50.00"));
 
-        Page<TransferDto> page = new PageImpl<>(List.of(dto), PageRequest.of(0, 10), 1);
-        when(transferService.getTransferHistory(anyInt(), anyInt(), any())).thenReturn(page);
+        SlicePage<TransferDto> page = new SlicePage<>(List.of(dto), 0, 10, true, null);
+        when(transferService.getTransferHistory(anyInt(), anyInt(), any(), eq(false))).thenReturn(page);
 
         UUID cardId = UUID.randomUUID();
 
@@ -95,6 +99,20 @@ class TransferControllerTest {
                         .param("size", "10")
                         .param("cardId", cardId.toString()))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.content[0].amount").value(50.00));
+                .andExpect(jsonPath("$.content[0].amount").value(50.00))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should pass includeTotal through to the service")
+    @WithMockUser(roles = "ADMIN")
+    void getTransferHistory_withIncludeTotal_returnsTotal() throws Exception {
+        when(transferService.getTransferHistory(0, 10, null, true))
+                .thenReturn(new SlicePage<>(List.of(), 0, 10, false, 125_000L));
+
+        mockMvc.perform(get("/api/transfers/history").param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(125000));
     }
 }
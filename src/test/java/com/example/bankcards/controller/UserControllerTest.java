@@ -1,11 +1,17 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.SecurityTestConfig;
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.UserImportReport;
+import com.example.bankcards.dto.UserImportRowResult;
+import com.example.bankcards.dto.UserPurgeProgress;
 import com.example.bankcards.dto.request.UserUpdateRequest;
 import com.example.bankcards.entity.UserRole;
 import com.example.bankcards.security.JwtService;
 import com.example.bankcards.security.MyJwtFilter;
+import com.example.bankcards.service.UserImportService;
+import com.example.bankcards.service.UserPurgeService;
 import com.example.bankcards.service.UserService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -42,6 +48,12 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserImportService userImportService;
+
+    @MockBean
+    private UserPurgeService userPurgeService;
+
     @MockBean
     private JwtService jwtService;
 
@@ -152,4 +164,83 @@ class UserControllerTest {
 
         verifyNoInteractions(userService);
     }
+
+    @Test
+    @DisplayName("Should return 200 OK with import report when CSV is uploaded")
+    @WithMockUser(roles = "ADMIN")
+    void importUsers_WhenCsvUploaded_ThenReturnReport() throws Exception {
+        UserImportReport report = new UserImportReport(List.of(
+                new UserImportRowResult(2, "john", UserImportRowResult.Status.CREATED, null)));
+        when(userImportService.importUsers(any(), eq(UserImportService.Format.CSV))).thenReturn(report);
+
+        mockMvc.perform(post("/api/users/import")
+                        .contentType("text/csv")
+                        .content("login,password,email,firstName,lastName\njohn,Password1,john@test.com,John,Doe\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"));
+    }
+
+    @Test
+    @DisplayName("Should pick NDJSON format from content type")
+    @WithMockUser(roles = "ADMIN")
+    void importUsers_WhenNdjsonUploaded_ThenUseNdjsonFormat() throws Exception {
+        when(userImportService.importUsers(any(), eq(UserImportService.Format.NDJSON)))
+                .thenReturn(new UserImportReport(List.of()));
+
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"login\":\"john\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0));
+
+        verify(userImportService).importUsers(any(), eq(UserImportService.Format.NDJSON));
+    }
+
+    @Test
+    @DisplayName("Should return 403 Forbidden when non-admin imports users")
+    @WithMockUser(roles = "USER")
+    void importUsers_WhenUserIsNotAdmin_ThenReturnForbidden() throws Exception {
+        mockMvc.perform(post("/api/users/import")
+                        .contentType("text/csv")
+                        .content("login,password,email,firstName,lastName\n"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userImportService);
+    }
+
+    @Test
+    @DisplayName("Should return 200 OK with cursor page when scrolling users")
+    @WithMockUser(roles = "ADMIN")
+    void scrollUsers_WhenValidRequest_ThenReturnCursorPage() throws Exception {
+        UserDto user = new UserDto();
+        user.setLogin("john");
+        CursorPage<UserDto> page = new CursorPage<>(List.of(user), "next-cursor", true, null);
+
+        when(userService.getUsersByCursor("lastName", "abc", 1, false)).thenReturn(page);
+
+        mockMvc.perform(get("/api/users/scroll")
+                        .param("cursor", "abc")
+                        .param("size", "1")
+                        .param("sortBy", "lastName"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].login").value("john"))
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    @Test
+    @DisplayName("Should return 200 OK with purge progress of deleted users")
+    @WithMockUser(roles = "ADMIN")
+    void getDeletionProgress_WhenPurgeRunning_ThenReturnProgress() throws Exception {
+        UserPurgeProgress progress = new UserPurgeProgress(UUID.randomUUID());
+        progress.setTransfersDeleted(42);
+
+        when(userPurgeService.getProgress()).thenReturn(List.of(progress));
+
+        mockMvc.perform(get("/api/users/deletions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("RUNNING"))
+                .andExpect(jsonPath("$[0].transfersDeleted").value(42));
+    }
 }
@@ -0,0 +1,137 @@
+package com.example.bankcards.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replicaA;
+    private DataSource replicaB;
+    private ReadYourWritesWindow window;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = dataSource(0);
+        replicaA = dataSource(0);
+        replicaB = dataSource(0);
+        window = new ReadYourWritesWindow(5000);
+        routing = new ReplicaRoutingDataSource(primary, List.of(replicaA, replicaB), window, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should use the primary until replicas pass a lag check")
+    void determineTarget_WhenLagNotChecked_ThenUsePrimary() {
+        assertSame(primary, routing.determineTarget());
+    }
+
+    @Test
+    @DisplayName("Should spread reads over healthy replicas")
+    void determineTarget_WhenReplicasHealthy_ThenRoundRobin() {
+        routing.checkLag();
+
+        assertNotSame(routing.determineTarget(), routing.determineTarget());
+        assertNotSame(primary, routing.determineTarget());
+    }
+
+    @Test
+    @DisplayName("Should skip a replica whose lag exceeds the limit")
+    void determineTarget_WhenReplicaLags_ThenSkipIt() throws SQLException {
+        replicaA = dataSource(5000);
+        routing = new ReplicaRoutingDataSource(primary, List.of(replicaA, replicaB), window, 1000);
+        routing.checkLag();
+
+        for (int i = 0; i < 4; i++) {
+            assertSame(replicaB, routing.determineTarget());
+        }
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary when no replica is reachable")
+    void determineTarget_WhenLagCheckFails_ThenUsePrimary() throws SQLException {
+        routing.checkLag();
+        when(replicaA.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(replicaB.getConnection()).thenThrow(new SQLException("connection refused"));
+        routing.checkLag();
+
+        assertSame(primary, routing.determineTarget());
+    }
+
+    @Test
+    @DisplayName("Should send a user's reads to the primary right after their own write")
+    void determineTarget_WhenReadYourWritesWindowActive_ThenUsePrimary() {
+        routing.checkLag();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("jdoe", null, List.of()));
+
+        assertNotSame(primary, routing.determineTarget());
+        window.markWrite("jdoe");
+        assertSame(primary, routing.determineTarget());
+    }
+
+    @Test
+    @DisplayName("Should route read-only connections to replicas and the rest to the primary")
+    void lazyProxy_WhenConnectionReadOnly_ThenUseReplica() throws SQLException {
+        routing.checkLag();
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(routing);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        clearInvocations(primary, replicaA, replicaB);
+
+        try (Connection connection = proxy.getConnection()) {
+            connection.setReadOnly(true);
+            connection.prepareStatement("select 1");
+        }
+        verify(primary, never()).getConnection();
+
+        try (Connection connection = proxy.getConnection()) {
+            connection.prepareStatement("update cards set balance = 0");
+        }
+        verify(primary).getConnection();
+    }
+
+    private static DataSource dataSource(long lagMillis) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenAnswer(invocation -> lagResult(lagMillis));
+        return dataSource;
+    }
+
+    private static ResultSet lagResult(long lagMillis) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getLong(1)).thenReturn(lagMillis);
+        return resultSet;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.bankcards.events;
+
+import com.example.bankcards.dto.CardEvent;
+import com.example.bankcards.entity.CardStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CardEventPublisherTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private final CardEvent event = new CardEvent(CardEvent.Type.TRANSFER, UUID.randomUUID(),
+            new BigDecimal("975.00"), CardStatus.ACTIVE, false, 3L);
+
+    private CardEventHub hub;
+    private JdbcTemplate jdbcTemplate;
+    private CardEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        hub = mock(CardEventHub.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        publisher = new CardEventPublisher(hub, jdbcTemplate, new ObjectMapper(), true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should dispatch locally only after commit, and notify other nodes once just before it")
+    void publish_WhenInTransaction_ThenDispatchAfterCommit() {
+        CardEvent other = new CardEvent(CardEvent.Type.TRANSFER, UUID.randomUUID(),
+                new BigDecimal("1025.00"), CardStatus.ACTIVE, false, 4L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        publisher.publish(userId, event);
+        publisher.publish(userId, other);
+
+        verify(hub, never()).dispatch(any(), any());
+        verifyNoInteractions(jdbcTemplate);
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+        verify(jdbcTemplate).query(eq("select pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq(CardEventPublisher.CHANNEL),
+                eq(publisher.toPayload(userId, event) + "\n" + publisher.toPayload(userId, other)));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(hub).dispatch(userId, event);
+        verify(hub).dispatch(userId, other);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not notify other nodes when the relay is off")
+    void publish_WhenRelayDisabled_ThenOnlyDispatchLocally() {
+        CardEventPublisher singleNode = new CardEventPublisher(hub, jdbcTemplate, new ObjectMapper(), false);
+        TransactionSynchronizationManager.initSynchronization();
+
+        singleNode.publish(userId, event);
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        verifyNoInteractions(jdbcTemplate);
+        verify(hub).dispatch(userId, event);
+    }
+
+    @Test
+    @DisplayName("Should dispatch every event another node sent and skip its own")
+    void dispatchFromPayload_WhenRelayed_ThenOnlyOtherNodesDispatched() {
+        CardEventPublisher otherNode = new CardEventPublisher(hub, jdbcTemplate, new ObjectMapper(), true);
+
+        assertFalse(publisher.dispatchFromPayload(publisher.toPayload(userId, event)));
+        assertTrue(publisher.dispatchFromPayload(otherNode.toPayload(userId, event)
+                + "\n" + otherNode.toPayload(userId, event)));
+
+        verify(hub, times(2)).dispatch(userId, event);
+    }
+
+    @Test
+    @DisplayName("Should ignore a malformed payload")
+    void dispatchFromPayload_WhenMalformed_ThenIgnored() {
+        assertFalse(publisher.dispatchFromPayload("not an event"));
+        assertFalse(publisher.dispatchFromPayload("node|" + userId + "|{not json"));
+
+        verify(hub, never()).dispatch(any(), any());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.bankcards.metrics;
+
+import com.example.bankcards.metrics.BankcardsMetrics.JwtFailure;
+import com.example.bankcards.metrics.BankcardsMetrics.TransferRejection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BankcardsMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final BankcardsMetrics metrics = new BankcardsMetrics(registry);
+
+    @Test
+    @DisplayName("Should register every counter at zero so it is scraped before the first event")
+    void constructor_WhenCreated_ThenRegisterAllCounters() {
+        assertEquals(TransferRejection.values().length,
+                registry.get("bankcards.transfers.rejected").counters().size());
+        assertEquals(JwtFailure.values().length, registry.get("bankcards.jwt.failures").counters().size());
+        assertEquals(2, registry.get("bankcards.pan.cipher").functionCounters().size());
+        assertEquals(0, registry.get("bankcards.transfers").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should count rejections and token failures by reason")
+    void transferRejected_WhenCounted_ThenTaggedByReason() {
+        metrics.transferRejected(TransferRejection.NOT_OWNER);
+        metrics.transferRejected(TransferRejection.NOT_OWNER);
+        metrics.jwtFailed(JwtFailure.EXPIRED);
+
+        assertEquals(2, registry.get("bankcards.transfers.rejected").tag("reason", "not_owner").counter().count());
+        assertEquals(0, registry.get("bankcards.transfers.rejected").tag("reason", "same_card").counter().count());
+        assertEquals(1, registry.get("bankcards.jwt.failures").tag("reason", "expired").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should count without allocating")
+    void transferCompleted_WhenCounted_ThenAllocateNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 20_000; i++) {
+            count();
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            count();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // any object allocated per round is 16 bytes or more, so a smaller average is background noise
+        assertTrue(allocated / 10_000 < 16, allocated + " bytes over 10000 rounds");
+        assertEquals(30_000, registry.get("bankcards.transfers").counter().count());
+    }
+
+    private void count() {
+        metrics.transferCompleted();
+        metrics.transferRejected(TransferRejection.INSUFFICIENT_FUNDS);
+        metrics.jwtFailed(JwtFailure.INVALID);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.bankcards.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointTimingFilterTest {
+
+    private static final FilterChain OK = (request, response) -> ((HttpServletResponse) response).setStatus(200);
+
+    private MeterRegistry registry;
+    private EndpointTimingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new EndpointTimingFilter(registry);
+    }
+
+    @Test
+    @DisplayName("Should time requests by uri template and outcome")
+    void doFilter_WhenMapped_ThenTimeByTemplateAndOutcome() throws Exception {
+        filter.doFilter(request("/api/cards/user/{userId}"), new MockHttpServletResponse(), OK);
+        filter.doFilter(request("/api/cards/user/{userId}"), new MockHttpServletResponse(), OK);
+        filter.doFilter(request("/api/cards/user/{userId}"), new MockHttpServletResponse(),
+                (request, response) -> ((HttpServletResponse) response).setStatus(403));
+
+        assertEquals(2, timer("/api/cards/user/{userId}", "SUCCESS").count());
+        assertEquals(1, timer("/api/cards/user/{userId}", "CLIENT_ERROR").count());
+    }
+
+    @Test
+    @DisplayName("Should time requests no handler matched under one uri")
+    void doFilter_WhenUnmapped_ThenTimeAsUnmapped() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/nope"), new MockHttpServletResponse(),
+                (request, response) -> ((HttpServletResponse) response).setStatus(401));
+
+        assertEquals(1, timer(EndpointTimingFilter.UNMAPPED, "CLIENT_ERROR").count());
+    }
+
+    @Test
+    @DisplayName("Should time non-standard methods under one method tag")
+    void doFilter_WhenMethodUnknown_ThenTimeAsUnknown() throws Exception {
+        for (String method : new String[]{"FOO", "BAR", "PROPFIND"}) {
+            filter.doFilter(new MockHttpServletRequest(method, "/nope"), new MockHttpServletResponse(),
+                    (request, response) -> ((HttpServletResponse) response).setStatus(405));
+        }
+
+        assertEquals(1, registry.get("bankcards.http.requests").timers().size());
+        assertEquals(3, registry.get("bankcards.http.requests").tag("method", EndpointTimingFilter.UNKNOWN_METHOD)
+                .tag("uri", EndpointTimingFilter.UNMAPPED).tag("outcome", "CLIENT_ERROR").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should record requests to a known endpoint without allocating")
+    void doFilter_WhenTimerExists_ThenAllocateNothing() throws Exception {
+        MockHttpServletRequest request = request("/api/transfers/history");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 20_000; i++) {
+            filter.doFilter(request, response, OK);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            filter.doFilter(request, response, OK);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // an allocating lookup costs at least a 16-byte object per request; less is JIT and TLAB noise
+        assertTrue(allocated / 10_000 < 16, allocated + " bytes over 10000 requests");
+    }
+
+    private Timer timer(String uri, String outcome) {
+        return registry.get("bankcards.http.requests").tag("method", "GET").tag("uri", uri).tag("outcome", outcome).timer();
+    }
+
+    private static MockHttpServletRequest request(String template) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", template);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, template);
+        return request;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.bankcards.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "bankcards.user-cache.notify-enabled=false",
+        "bankcards.card-events.relay-enabled=false"})
+@AutoConfigureTestDatabase
+@AutoConfigureObservability(tracing = false)
+class ManagementPortTest {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int serverPort;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    @DisplayName("Should serve the scrape endpoint on the management port only")
+    void prometheus_WhenScraped_ThenOnlyOnManagementPort() throws Exception {
+        assertNotEquals(serverPort, managementPort);
+
+        HttpResponse<String> scrape = get(managementPort, "/actuator/prometheus");
+        assertEquals(200, scrape.statusCode());
+        assertTrue(scrape.body().contains("bankcards_transfers_total"), scrape.body());
+
+        assertNotEquals(200, get(serverPort, "/actuator/prometheus").statusCode());
+        assertNotEquals(200, get(serverPort, "/actuator/health").statusCode());
+    }
+
+    private HttpResponse<String> get(int port, String path) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=false")
+class CardRepositoryTest {
+
+    private static final PageRequest NEWEST_FIRST =
+            PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdDate", "id"));
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(user("jdoe"));
+        User other = entityManager.persist(user("asmith"));
+
+        card(owner, "4000001111111111", "JOHN_DOE", CardStatus.ACTIVE, false, 3);
+        card(owner, "4000002222222222", "JOHNXDOE", CardStatus.BLOCKED, true, 2);
+        card(owner, "4000003333333333", "JANE DOE", CardStatus.ACTIVE, false, 1);
+        card(other, "4000004444444444", "JOHN_DOE", CardStatus.ACTIVE, true, 0);
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should project the owner's cards newest first with masked numbers and no managed entities")
+    void findDtoByOwnerId_WhenCardsExist_ThenProjectDtos() {
+        Page<CardDto> page = cardRepository.findDtoByOwnerId(owner.getId(), NEWEST_FIRST);
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of("JANE DOE", "JOHNXDOE", "JOHN_DOE"),
+                page.getContent().stream().map(CardDto::getCardHolderName).toList());
+        CardDto newest = page.getContent().get(0);
+        assertEquals("**** **** **** 3333", newest.getMaskedCardNumber());
+        assertEquals(owner.getId(), newest.getOwnerId());
+        assertEquals(CardStatus.ACTIVE, newest.getStatus());
+        assertEquals(0, entityManager.getEntityManager().unwrap(SessionImplementor.class)
+                .getPersistenceContextInternal().getNumberOfManagedEntities());
+    }
+
+    @Test
+    @DisplayName("Should filter the projection by status")
+    void findDtoByOwnerIdAndStatus_WhenBlocked_ThenOnlyBlockedCards() {
+        Page<CardDto> page = cardRepository.findDtoByOwnerIdAndStatus(owner.getId(), CardStatus.BLOCKED, NEWEST_FIRST);
+
+        assertEquals(1, page.getTotalElements());
+        assertTrue(page.getContent().get(0).isBlockRequested());
+    }
+
+    @Test
+    @DisplayName("Should match holder names ignoring case and treat wildcards in the search literally")
+    void searchDtoByOwnerId_WhenSearchHasWildcard_ThenMatchLiterally() {
+        Page<CardDto> page = cardRepository.searchDtoByOwnerId(owner.getId(), "n_d", NEWEST_FIRST);
+
+        assertEquals(List.of("JOHN_DOE"), page.getContent().stream().map(CardDto::getCardHolderName).toList());
+        assertEquals(0, cardRepository.searchDtoByOwnerIdAndStatus(
+                owner.getId(), CardStatus.BLOCKED, "n_d", NEWEST_FIRST).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Should list block requests of all owners")
+    void findDtoByBlockRequestedTrue_WhenRequested_ThenReturnAllOwners() {
+        Page<CardDto> page = cardRepository.findDtoByBlockRequestedTrue(PageRequest.of(0, 10, Sort.by("createdDate", "id")));
+
+        assertEquals(2, page.getTotalElements());
+        assertEquals(2, cardRepository.findAllDto().stream().filter(CardDto::isBlockRequested).count());
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .login(login)
+                .passwordHash("hash")
+                .email(login + "@example.com")
+                .firstName("First")
+                .lastName("Last")
+                .build();
+    }
+
+    private void card(User owner, String number, String holder, CardStatus status, boolean blockRequested,
+                      int ageInDays) {
+        Card card = entityManager.persistFlushFind(Card.builder()
+                .cardNumberEncrypted(number)
+                .last4(number.substring(number.length() - 4))
+                .cardHolderName(holder)
+                .owner(owner)
+                .blockRequested(blockRequested)
+                .build());
+        // the entity callback stamps new cards as active and created today
+        jdbcTemplate.update("update cards set status = ?, created_date = ? where id = ?",
+                status.name(), LocalDate.now().minusDays(ageInDays), card.getId());
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every repository query against Postgres with the migration schema and a seeded data set, and
+ * checks that the generic plan, the one a prepared statement settles on, reads through the intended index.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.example.bankcards.repository.QueryPlanTest$SqlCapture",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.separator=^^^ END OF SCRIPT ^^^",
+        "spring.sql.init.schema-locations=" +
+                "classpath:db/migration/sql/create-users-table.sql," +
+                "classpath:db/migration/sql/create-cards-table.sql," +
+                "classpath:db/migration/sql/create-firstadmin.sql," +
+                "classpath:db/migration/sql/create-transfers-table.sql," +
+                "classpath:db/migration/sql/create-user-keyset-indexes.sql," +
+                "classpath:db/migration/sql/add-user-deleted-at.sql," +
+                "classpath:db/migration/sql/use-uuid-v7-defaults.sql," +
+                "classpath:db/migration/sql/create-query-indexes.sql," +
+                "classpath:db/migration/sql/add-etag-versions.sql," +
+                "classpath:db/migration/sql/name-user-unique-constraints.sql," +
+                "classpath:db/migration/sql/rebuild-card-query-indexes.sql," +
+                "classpath:db/migration/sql/rebuild-user-deleted-at-index.sql",
+        "spring.sql.init.data-locations=classpath:db/query-plan-seed.sql"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UUID id = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        SqlCapture.clear();
+    }
+
+    @Test
+    @DisplayName("Owner card listing is answered from the owner prefix of the covering index")
+    void cardsByOwner() {
+        cardRepository.findDtoByOwnerId(id, cardPage());
+        String plan = assertPlanUses("idx_card_owner_status_created");
+        assertTrue(plan.contains("Index Only Scan"), plan);
+    }
+
+    @Test
+    @DisplayName("Owner card listing by status reads the covering index in order")
+    void cardsByOwnerAndStatus() {
+        cardRepository.findDtoByOwnerIdAndStatus(id, CardStatus.ACTIVE, cardPage());
+        String plan = assertPlanUses("idx_card_owner_status_created");
+        assertTrue(plan.contains("Index Only Scan"), plan);
+        assertFalse(plan.contains("Sort"), plan);
+    }
+
+    @Test
+    @DisplayName("Card holder search filters the owner's index entries")
+    void cardsByOwnerAndHolderName() {
+        cardRepository.searchDtoByOwnerId(id, "holder", cardPage());
+        assertPlanUses("idx_card_owner_status_created");
+    }
+
+    @Test
+    @DisplayName("Card holder search by status filters the owner's index entries")
+    void cardsByOwnerStatusAndHolderName() {
+        cardRepository.searchDtoByOwnerIdAndStatus(id, CardStatus.BLOCKED, "holder", cardPage());
+        assertPlanUses("idx_card_owner_status_created");
+    }
+
+    @Test
+    @DisplayName("Pending block requests come from the partial index")
+    void blockRequests() {
+        cardRepository.findDtoByBlockRequestedTrue(PageRequest.of(0, 10, Sort.by("createdDate", "id")));
+        assertPlanUses("idx_card_block_requested");
+    }
+
+    @Test
+    @DisplayName("Balance check before deleting a user reads the owner's cards")
+    void positiveBalanceExists() {
+        cardRepository.existsByOwner_IdAndBalanceGreaterThan(id, BigDecimal.ZERO);
+        assertPlanUses("idx_card_owner_status_created");
+    }
+
+    @Test
+    @DisplayName("Card lookups by id use the primary key")
+    void cardById() {
+        cardRepository.findUncachedById(id);
+        assertPlanUses("cards_pkey");
+
+        SqlCapture.clear();
+        cardRepository.findByIdForUpdate(id);
+        assertPlanUses("cards_pkey");
+    }
+
+    @Test
+    @DisplayName("Card history combines both card indexes")
+    void transfersByCard() {
+        transferRepository.findDtoByCardId(id, transferPage());
+        String plan = assertPlanUses("idx_transfer_from_card_date");
+        assertTrue(plan.contains("idx_transfer_to_card_date"), plan);
+
+        SqlCapture.clear();
+        transferRepository.countByCardId(id);
+        plan = assertPlanUses("idx_transfer_from_card_date");
+        assertTrue(plan.contains("idx_transfer_to_card_date"), plan);
+    }
+
+    @Test
+    @DisplayName("User history walks the owner's cards into their outgoing and incoming transfers")
+    void transfersByUser() {
+        transferRepository.findDtoByUserId(id, transferPage());
+        String plan = assertPlanUses("idx_card_owner_status_created");
+        assertTrue(plan.contains("idx_transfer_from_card_date"), plan);
+        assertTrue(plan.contains("idx_transfer_to_card_date"), plan);
+
+        SqlCapture.clear();
+        transferRepository.countByUserId(id);
+        plan = assertPlanUses("idx_card_owner_status_created");
+        assertTrue(plan.contains("idx_transfer_from_card_date"), plan);
+        assertTrue(plan.contains("idx_transfer_to_card_date"), plan);
+    }
+
+    @Test
+    @DisplayName("Admin history reads the date index newest first")
+    void allTransfers() {
+        transferRepository.findAllDto(transferPage());
+        String plan = assertPlanUses("idx_transfer_date");
+        assertFalse(plan.contains("Sort"), plan);
+    }
+
+    @Test
+    @DisplayName("Transfer count estimate comes from the planner statistics")
+    void transferEstimate() {
+        long exact = transferRepository.count();
+        long estimate = transferRepository.estimateCount();
+        assertTrue(Math.abs(estimate - exact) <= exact / 10, estimate + " vs " + exact);
+    }
+
+    @Test
+    @DisplayName("Login and email lookups use a login or email index")
+    void userByLoginAndEmail() {
+        userRepository.findByLogin("user42");
+        assertPlanUses("users_login_key", "idx_user_login_id");
+
+        SqlCapture.clear();
+        userRepository.existsByLogin("user42");
+        assertPlanUses("users_login_key", "idx_user_login_id");
+
+        SqlCapture.clear();
+        userRepository.existsByEmail("user42@bankcards.local");
+        assertPlanUses("users_email_key", "idx_user_email_id");
+
+        SqlCapture.clear();
+        userRepository.findExistingLogins(List.of("user1", "user2"));
+        assertPlanUses("users_login_key", "idx_user_login_id");
+
+        SqlCapture.clear();
+        userRepository.findExistingEmails(List.of("user1@bankcards.local", "user2@bankcards.local"));
+        assertPlanUses("users_email_key", "idx_user_email_id");
+    }
+
+    @Test
+    @DisplayName("Offset and keyset user listings read the sort index")
+    void userListings() {
+        userRepository.findAll(PageRequest.of(0, 10, Sort.by("createdAt").descending()));
+        assertPlanUses("idx_user_created_at_id");
+
+        SqlCapture.clear();
+        userRepository.findByDeletedAtIsNull(
+                ScrollPosition.forward(Map.of("createdAt", LocalDateTime.now(), "id", id)),
+                Sort.by(Sort.Direction.DESC, "createdAt", "id"), Limit.of(10));
+        assertPlanUses("idx_user_created_at_id");
+    }
+
+    @Test
+    @DisplayName("Purge job finds deleted users through the partial index")
+    void deletedUsers() {
+        userRepository.findDeletedUserIds(Limit.of(10));
+        assertPlanUses("idx_user_deleted_at");
+    }
+
+    @Test
+    @DisplayName("Soft delete updates by primary key")
+    void markDeleted() {
+        userRepository.markDeleted(id, LocalDateTime.now());
+        assertPlanUses("users_pkey");
+    }
+
+    private static PageRequest cardPage() {
+        return PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdDate", "id"));
+    }
+
+    private static PageRequest transferPage() {
+        return PageRequest.of(0, 10, Sort.by("transferDate").descending());
+    }
+
+    /**
+     * Explains the first statement the repository call sent as a prepared statement forced onto its generic plan.
+     */
+    private String assertPlanUses(String... indexes) {
+        List<String> statements = SqlCapture.statements();
+        assertFalse(statements.isEmpty(), "no statement was captured");
+
+        Matcher parameters = PARAMETER.matcher(statements.get(0));
+        StringBuilder sql = new StringBuilder();
+        int position = 0;
+        while (parameters.find()) {
+            parameters.appendReplacement(sql, "\\$" + ++position);
+        }
+        parameters.appendTail(sql);
+
+        jdbcTemplate.execute("set local plan_cache_mode = force_generic_plan");
+        jdbcTemplate.execute("prepare plan_check as " + sql);
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "explain execute plan_check(" + String.join(", ", Collections.nCopies(position, "null")) + ")",
+                String.class));
+        jdbcTemplate.execute("deallocate plan_check");
+        assertTrue(Arrays.stream(indexes).anyMatch(index -> plan.contains(" " + index + " ")),
+                () -> "expected one of " + Arrays.toString(indexes) + " in\n" + sql + "\n" + plan);
+        Matcher seqScan = SEQ_SCAN.matcher(plan);
+        assertFalse(seqScan.find(), () -> "sequential scan on " + seqScan.group(1) + " in\n" + sql + "\n" + plan);
+        return plan;
+    }
+
+    public static class SqlCapture implements StatementInspector {
+
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        static synchronized void clear() {
+            STATEMENTS.clear();
+        }
+
+        static synchronized List<String> statements() {
+            return List.copyOf(STATEMENTS);
+        }
+
+        @Override
+        public String inspect(String sql) {
+            synchronized (SqlCapture.class) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
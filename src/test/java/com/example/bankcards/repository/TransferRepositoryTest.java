@@ -0,0 +1,109 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.TransferDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=false")
+class TransferRepositoryTest {
+
+    private static final PageRequest NEWEST_FIRST =
+            PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "transferDate"));
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private User other;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(user("jdoe"));
+        other = entityManager.persist(user("asmith"));
+        Card checking = card(owner, "4000001111111111");
+        Card savings = card(owner, "4000002222222222");
+        Card foreign = card(other, "4000003333333333");
+
+        transfer(checking, savings, "own", 3);
+        // a bulk-loaded transfer between owners, which the API never creates
+        transfer(foreign, checking, "incoming", 2);
+        transfer(savings, foreign, "outgoing", 1);
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should list the user's transfers from either side once, newest first")
+    void findDtoByUserId_WhenTransfersCrossOwners_ThenIncludeBothSides() {
+        Slice<TransferDto> slice = transferRepository.findDtoByUserId(owner.getId(), NEWEST_FIRST);
+
+        assertEquals(List.of("outgoing", "incoming", "own"),
+                slice.getContent().stream().map(TransferDto::getDescription).toList());
+        assertFalse(slice.hasNext());
+        assertEquals(3, transferRepository.countByUserId(owner.getId()));
+    }
+
+    @Test
+    @DisplayName("Should leave out transfers between other users' cards")
+    void findDtoByUserId_WhenOtherUser_ThenOnlyTheirSide() {
+        Slice<TransferDto> slice = transferRepository.findDtoByUserId(other.getId(), NEWEST_FIRST);
+
+        assertEquals(List.of("outgoing", "incoming"),
+                slice.getContent().stream().map(TransferDto::getDescription).toList());
+        assertEquals(2, transferRepository.countByUserId(other.getId()));
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .login(login)
+                .passwordHash("hash")
+                .email(login + "@example.com")
+                .firstName("First")
+                .lastName("Last")
+                .build();
+    }
+
+    private Card card(User owner, String number) {
+        return entityManager.persist(Card.builder()
+                .cardNumberEncrypted(number)
+                .last4(number.substring(number.length() - 4))
+                .cardHolderName("JOHN DOE")
+                .balance(BigDecimal.valueOf(1000))
+                .owner(owner)
+                .build());
+    }
+
+    private void transfer(Card from, Card to, String description, int ageInHours) {
+        Transfer transfer = entityManager.persistAndFlush(Transfer.builder()
+                .fromCard(from)
+                .toCard(to)
+                .amount(BigDecimal.TEN)
+                .description(description)
+                .build());
+        // the entity callback stamps new transfers with the current time
+        jdbcTemplate.update("update transfers set transfer_date = ? where id = ?",
+                LocalDateTime.now().minusHours(ageInHours), transfer.getId());
+    }
+}
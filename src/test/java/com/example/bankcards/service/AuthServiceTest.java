@@ -1,22 +1,29 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.cache.UserExistenceFilter;
 import com.example.bankcards.dto.LoginResponse;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.dto.request.LoginRequest;
 import com.example.bankcards.dto.request.UserRegistrationRequest;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.exception.UserAlreadyExistsException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.JwtService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -32,8 +39,9 @@ class AuthServiceTest {
     private JwtService jwt;
     @Mock
     private BCryptPasswordEncoder encoder;
+    @Mock
+    private UserExistenceFilter existenceFilter;
 
-    @InjectMocks
     private AuthService authService;
 
     private User user;
@@ -41,6 +49,10 @@ class AuthServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        UserCache userCache = new UserCache(userRepository, mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), "", 100, 10, false);
+        authService = new AuthService(userRepository, userCache, existenceFilter, jwt, encoder);
+        when(existenceFilter.mightContainLogin(anyString())).thenReturn(true);
+        when(existenceFilter.mightContainEmail(anyString())).thenReturn(true);
         user = User.builder()
                 .id(UUID.randomUUID())
                 .login("johndoe")
@@ -108,7 +120,7 @@ class AuthServiceTest {
 
         when(userRepository.existsByLogin("newuser")).thenReturn(false);
         when(encoder.encode("Password123")).thenReturn("encodedPwd");
-        when(userRepository.save(any(User.class))).thenAnswer(inv -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(inv -> {
             User u = inv.getArgument(0);
             u.setId(UUID.randomUUID());
             return u;
@@ -118,7 +130,9 @@ class AuthServiceTest {
 
         assertEquals("newuser", result.getLogin());
         assertEquals("new@bank.com", result.getEmail());
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).saveAndFlush(any(User.class));
+        verify(existenceFilter).addLogin("newuser");
+        verify(existenceFilter).addEmail("new@bank.com");
     }
 
     @Test
@@ -135,6 +149,43 @@ class AuthServiceTest {
 
         RuntimeException ex = assertThrows(RuntimeException.class, () -> authService.register(req));
         assertTrue(ex.getMessage().contains("already exists"));
-        verify(userRepository, never()).save(any());
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("When filter rules out login and email, then skip uniqueness queries")
+    void register_WhenFilterRulesOutLogin_ThenSkipExistsQueries() {
+        UserRegistrationRequest req = new UserRegistrationRequest();
+        req.setLogin("fresh");
+        req.setPassword("Password123");
+        req.setEmail("fresh@bank.com");
+        req.setFirstName("Fred");
+        req.setLastName("Fresh");
+
+        when(existenceFilter.mightContainLogin("fresh")).thenReturn(false);
+        when(existenceFilter.mightContainEmail("fresh@bank.com")).thenReturn(false);
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        authService.register(req);
+
+        verify(userRepository, never()).existsByLogin(any());
+        verify(userRepository, never()).existsByEmail(any());
+    }
+
+    @Test
+    @DisplayName("When insert violates unique constraint, then throw UserAlreadyExistsException")
+    void register_WhenUniqueConstraintViolated_ThenThrowUserAlreadyExists() {
+        UserRegistrationRequest req = new UserRegistrationRequest();
+        req.setLogin("racer");
+        req.setPassword("Password123");
+        req.setEmail("racer@bank.com");
+        req.setFirstName("Rita");
+        req.setLastName("Racer");
+
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate key", new SQLException("23505"), User.LOGIN_CONSTRAINT)));
+
+        assertThrows(UserAlreadyExistsException.class, () -> authService.register(req));
+        verify(existenceFilter, never()).addLogin(any());
     }
 }
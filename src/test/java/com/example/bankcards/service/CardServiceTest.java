@@ -1,26 +1,34 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.UserCache;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardEvent;
 import com.example.bankcards.dto.request.CardCreationRequest;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.events.CardEventHub;
+import com.example.bankcards.events.CardEventPublisher;
 import com.example.bankcards.exception.AccessDeniedException;
 import com.example.bankcards.exception.CardOperationException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardVersionRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.util.CardNumberMasker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -40,8 +48,11 @@ class CardServiceTest {
     private UserRepository userRepository;
     @Mock
     private CardNumberMasker cardNumberMasker;
+    @Mock
+    private CardVersionRepository cardVersionRepository;
+    @Mock
+    private CardEventPublisher cardEventPublisher;
 
-    @InjectMocks
     private CardService cardService;
 
     private User user;
@@ -50,6 +61,9 @@ class CardServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        UserCache userCache = new UserCache(userRepository, mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), "", 100, 10, false);
+        cardService = new CardService(cardRepository, userRepository, userCache, cardNumberMasker,
+                cardVersionRepository, mock(CardEventHub.class), cardEventPublisher);
 
         user = User.builder()
                 .id(UUID.randomUUID())
@@ -104,7 +118,7 @@ class CardServiceTest {
     @DisplayName("Should throw exception when card holder name is blank")
     void deleteCard_WhenBalanceZero_ThenDelete() {
         card.setBalance(BigDecimal.ZERO);
-        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdForUpdate(card.getId())).thenReturn(Optional.of(card));
 
         cardService.deleteCard(card.getId());
         verify(cardRepository).delete(card);
@@ -114,7 +128,7 @@ class CardServiceTest {
     @DisplayName("Should throw exception when balance is not zero")
     void deleteCard_WhenBalanceNotZero_ThenThrowException() {
         card.setBalance(BigDecimal.valueOf(50));
-        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdForUpdate(card.getId())).thenReturn(Optional.of(card));
 
         assertThrows(CardOperationException.class, () -> cardService.deleteCard(card.getId()));
         verify(cardRepository, never()).delete(any());
@@ -124,18 +138,21 @@ class CardServiceTest {
     @DisplayName("Should throw exception when card not found")
     void activateCard_WhenValid_ThenSetActive() {
         card.setStatus(CardStatus.BLOCKED);
-        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdForUpdate(card.getId())).thenReturn(Optional.of(card));
 
         CardDto dto = cardService.activateCard(card.getId());
         assertEquals(CardStatus.ACTIVE, dto.getStatus());
-        verify(cardRepository).save(card);
+        verify(cardRepository).saveAndFlush(card);
+        verify(cardVersionRepository).bumpCardsVersion(user.getId());
+        verify(cardEventPublisher).publish(eq(user.getId()), argThat(event ->
+                event.getType() == CardEvent.Type.ACTIVATED && event.getStatus() == CardStatus.ACTIVE));
     }
 
     @Test
     @DisplayName("Should throw exception when card not found")
     void activateCard_WhenExpired_ThenThrowException() {
         card.setStatus(CardStatus.EXPIRED);
-        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdForUpdate(card.getId())).thenReturn(Optional.of(card));
 
         assertThrows(CardOperationException.class, () -> cardService.activateCard(card.getId()));
     }
@@ -144,7 +161,7 @@ class CardServiceTest {
     @DisplayName("Should throw exception when card not found")
     void blockCard_WhenActive_ThenStatusBlocked() {
         card.setStatus(CardStatus.ACTIVE);
-        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdForUpdate(card.getId())).thenReturn(Optional.of(card));
 
         CardDto dto = cardService.blockCard(card.getId());
         assertEquals(CardStatus.BLOCKED, dto.getStatus());
@@ -154,7 +171,7 @@ class CardServiceTest {
     @DisplayName("Should throw exception when card not found")
     void blockCard_WhenExpired_ThenThrowException() {
         card.setStatus(CardStatus.EXPIRED);
-        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdForUpdate(card.getId())).thenReturn(Optional.of(card));
 
         assertThrows(CardOperationException.class, () -> cardService.blockCard(card.getId()));
     }
@@ -166,12 +183,12 @@ class CardServiceTest {
                 new UsernamePasswordAuthenticationToken(user.getLogin(), "password")
         );
         when(userRepository.findByLogin(user.getLogin())).thenReturn(Optional.of(user));
-        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdForUpdate(card.getId())).thenReturn(Optional.of(card));
 
         CardDto dto = cardService.requestBlockCard(card.getId());
 
         assertTrue(dto.isBlockRequested());
-        verify(cardRepository).save(card);
+        verify(cardRepository).saveAndFlush(card);
     }
 
 
@@ -180,7 +197,7 @@ class CardServiceTest {
     void requestBlockCard_WhenDifferentOwner_ThenAccessDenied() {
         User another = User.builder().id(UUID.randomUUID()).build();
         card.setOwner(another);
-        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdForUpdate(card.getId())).thenReturn(Optional.of(card));
 
         assertThrows(AccessDeniedException.class, () -> cardService.requestBlockCard(card.getId()));
     }
@@ -188,7 +205,7 @@ class CardServiceTest {
     @Test
     @DisplayName("Should throw exception when card not found")
     void getBalance_WhenOwnerIsUser_ThenReturnBalance() {
-        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+        when(cardRepository.findUncachedById(card.getId())).thenReturn(Optional.of(card));
 
         BigDecimal result = cardService.getBalance(card.getId());
         assertEquals(BigDecimal.TEN, result);
@@ -199,7 +216,7 @@ class CardServiceTest {
     void getBalance_WhenDifferentOwner_ThenAccessDenied() {
         User other = User.builder().id(UUID.randomUUID()).build();
         card.setOwner(other);
-        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+        when(cardRepository.findUncachedById(card.getId())).thenReturn(Optional.of(card));
 
         assertThrows(AccessDeniedException.class, () -> cardService.getBalance(card.getId()));
     }
@@ -207,19 +224,19 @@ class CardServiceTest {
     @Test
     @DisplayName("Should throw exception when card not found")
     void getAllCards_WhenCardsExist_ThenReturnDtoList() {
-        when(cardRepository.findAll()).thenReturn(List.of(card));
+        when(cardRepository.findAllDto()).thenReturn(List.of(CardDto.builder().id(card.getId()).build()));
         List<CardDto> result = cardService.getAllCards();
 
         assertEquals(1, result.size());
-        verify(cardRepository).findAll();
+        verify(cardRepository).findAllDto();
     }
 
     @Test
     @DisplayName("Should throw exception when card not found")
     void getUserCards_WhenAdmin_ThenAllowAnyUser() {
         user.setRole(UserRole.ADMIN);
-        Page<Card> page = new PageImpl<>(List.of(card));
-        when(cardRepository.findByOwner_Id(eq(user.getId()), any(Pageable.class))).thenReturn(page);
+        Page<CardDto> page = new PageImpl<>(List.of(CardDto.builder().id(card.getId()).build()));
+        when(cardRepository.findDtoByOwnerId(eq(user.getId()), any(Pageable.class))).thenReturn(page);
 
         Page<CardDto> result = cardService.getUserCards(user.getId(), null, null, 0, 5);
         assertEquals(1, result.getTotalElements());
@@ -232,4 +249,29 @@ class CardServiceTest {
         assertThrows(AccessDeniedException.class, () ->
                 cardService.getUserCards(otherUserId, null, null, 0, 5));
     }
+
+    @Test
+    @DisplayName("Should list cards with pending block requests, oldest first")
+    void getBlockRequests_WhenCalled_ThenSortByCreatedDate() {
+        CardDto requested = CardDto.builder().id(card.getId()).blockRequested(true).build();
+        when(cardRepository.findDtoByBlockRequestedTrue(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(requested)));
+
+        Page<CardDto> result = cardService.getBlockRequests(0, 5);
+
+        assertEquals(1, result.getTotalElements());
+        assertTrue(result.getContent().get(0).isBlockRequested());
+        verify(cardRepository).findDtoByBlockRequestedTrue(PageRequest.of(0, 5, Sort.by("createdDate", "id")));
+    }
+
+    @Test
+    @DisplayName("Should pick the search projection when a search term is given")
+    void getUserCards_WhenSearchAndStatus_ThenUseSearchProjection() {
+        when(cardRepository.searchDtoByOwnerIdAndStatus(eq(user.getId()), eq(CardStatus.ACTIVE), eq("john"),
+                any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+
+        cardService.getUserCards(user.getId(), CardStatus.ACTIVE, "john", 0, 5);
+
+        verify(cardRepository).searchDtoByOwnerIdAndStatus(user.getId(), CardStatus.ACTIVE, "john",
+                PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "createdDate", "id")));
+    }
 }
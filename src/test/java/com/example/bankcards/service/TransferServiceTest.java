@@ -1,26 +1,41 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.datasource.ReadYourWritesWindow;
+import com.example.bankcards.dto.SlicePage;
 import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.dto.request.TransferRequest;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.events.CardEventPublisher;
 import com.example.bankcards.exception.AccessDeniedException;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.CardOperationException;
 import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.metrics.BankcardsMetrics;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardVersionRepository;
 import com.example.bankcards.repository.TransferRepository;
 import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -32,18 +47,27 @@ class TransferServiceTest {
     private TransferRepository transferRepository;
     private CardRepository cardRepository;
     private UserRepository userRepository;
+    private ReadYourWritesWindow readYourWritesWindow;
+    private SimpleMeterRegistry meterRegistry;
     private TransferService transferService;
 
     private User user;
     private Card fromCard;
     private Card toCard;
+    private PlatformTransactionManager transactionManager;
 
     @BeforeEach
     void setUp() {
         transferRepository = mock(TransferRepository.class);
         cardRepository = mock(CardRepository.class);
         userRepository = mock(UserRepository.class);
-        transferService = new TransferService(transferRepository, cardRepository, userRepository);
+        UserCache userCache = new UserCache(userRepository, mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), "", 100, 10, false);
+        readYourWritesWindow = new ReadYourWritesWindow(5000);
+        meterRegistry = new SimpleMeterRegistry();
+        transactionManager = mock(PlatformTransactionManager.class);
+        transferService = new TransferService(transferRepository, cardRepository,
+                mock(CardVersionRepository.class), mock(CardEventPublisher.class), userCache, readYourWritesWindow,
+                new BankcardsMetrics(meterRegistry), transactionManager, TransferConcurrency.ORDERED_LOCKS, 3);
 
         user = User.builder()
                 .id(UUID.randomUUID())
@@ -85,8 +109,8 @@ class TransferServiceTest {
     void transferBetweenCards_WhenValidRequest_ThenTransferAndSave() {
         TransferRequest req = buildRequest(fromCard.getId(), toCard.getId(), BigDecimal.valueOf(100), "Test transfer");
 
-        when(cardRepository.findById(fromCard.getId())).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdForUpdate(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(toCard.getId())).thenReturn(Optional.of(toCard));
 
         Transfer saved = Transfer.builder()
                 .id(UUID.randomUUID())
@@ -105,6 +129,56 @@ class TransferServiceTest {
         assertEquals(req.getAmount(), dto.getAmount());
         verify(cardRepository, times(2)).save(any(Card.class));
         verify(transferRepository).save(any(Transfer.class));
+        assertTrue(readYourWritesWindow.isActive("testuser"));
+        assertEquals(1, meterRegistry.get("bankcards.transfers").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should run the transfer again when it conflicts with a concurrent transfer")
+    void transferBetweenCards_WhenConcurrencyFailure_ThenRetry() {
+        TransferRequest req = buildRequest(fromCard.getId(), toCard.getId(), BigDecimal.valueOf(100), "Retried");
+
+        when(cardRepository.findByIdForUpdate(fromCard.getId()))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"))
+                .thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(toCard.getId())).thenReturn(Optional.of(toCard));
+
+        transferService.transferBetweenCards(req);
+
+        assertEquals(BigDecimal.valueOf(400), fromCard.getBalance());
+        assertEquals(1, meterRegistry.get("bankcards.transfers.retries").counter().count());
+        assertEquals(1, meterRegistry.get("bankcards.transfers").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should count a transfer once when its first commit fails to serialize")
+    void transferBetweenCards_WhenCommitFailsToSerialize_ThenCountOnce() {
+        TransferRequest req = buildRequest(fromCard.getId(), toCard.getId(), BigDecimal.valueOf(100), "Retried");
+
+        when(cardRepository.findByIdForUpdate(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(toCard.getId())).thenReturn(Optional.of(toCard));
+        doThrow(new PessimisticLockingFailureException("could not serialize access"))
+                .doNothing()
+                .when(transactionManager).commit(any());
+
+        transferService.transferBetweenCards(req);
+
+        verify(transferRepository, times(2)).save(any(Transfer.class));
+        assertEquals(1, meterRegistry.get("bankcards.transfers.retries").counter().count());
+        assertEquals(1, meterRegistry.get("bankcards.transfers").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should give up after the last attempt conflicts")
+    void transferBetweenCards_WhenEveryAttemptConflicts_ThenThrow() {
+        TransferRequest req = buildRequest(fromCard.getId(), toCard.getId(), BigDecimal.valueOf(100), "Retried");
+
+        when(cardRepository.findByIdForUpdate(any())).thenThrow(new CannotAcquireLockException("deadlock detected"));
+
+        assertThrows(CannotAcquireLockException.class, () -> transferService.transferBetweenCards(req));
+        verify(cardRepository, times(3)).findByIdForUpdate(any());
+        assertEquals(2, meterRegistry.get("bankcards.transfers.retries").counter().count());
+        verify(transferRepository, never()).save(any());
     }
 
     @Test
@@ -112,7 +186,7 @@ class TransferServiceTest {
     void transferBetweenCards_WhenSameCard_ThenThrowCardOperationException() {
         TransferRequest req = buildRequest(fromCard.getId(), fromCard.getId(), BigDecimal.valueOf(50), "Invalid");
 
-        when(cardRepository.findById(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(fromCard.getId())).thenReturn(Optional.of(fromCard));
 
         assertThrows(CardOperationException.class, () -> transferService.transferBetweenCards(req));
     }
@@ -130,8 +204,8 @@ class TransferServiceTest {
 
         TransferRequest req = buildRequest(fromCard.getId(), otherCard.getId(), BigDecimal.valueOf(10), "Unauthorized");
 
-        when(cardRepository.findById(fromCard.getId())).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(otherCard.getId())).thenReturn(Optional.of(otherCard));
+        when(cardRepository.findByIdForUpdate(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(otherCard.getId())).thenReturn(Optional.of(otherCard));
 
         assertThrows(AccessDeniedException.class, () -> transferService.transferBetweenCards(req));
     }
@@ -143,8 +217,8 @@ class TransferServiceTest {
 
         TransferRequest req = buildRequest(fromCard.getId(), toCard.getId(), BigDecimal.TEN, "Inactive");
 
-        when(cardRepository.findById(fromCard.getId())).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdForUpdate(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(toCard.getId())).thenReturn(Optional.of(toCard));
 
         assertThrows(CardOperationException.class, () -> transferService.transferBetweenCards(req));
     }
@@ -154,10 +228,13 @@ class TransferServiceTest {
     void transferBetweenCards_WhenInsufficientFunds_ThenThrowCardOperationException() {
         TransferRequest req = buildRequest(fromCard.getId(), toCard.getId(), BigDecimal.valueOf(600), "Too much");
 
-        when(cardRepository.findById(fromCard.getId())).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdForUpdate(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(toCard.getId())).thenReturn(Optional.of(toCard));
 
         assertThrows(CardOperationException.class, () -> transferService.transferBetweenCards(req));
+        assertEquals(1, meterRegistry.get("bankcards.transfers.rejected")
+                .tag("reason", "insufficient_funds").counter().count());
+        assertEquals(0, meterRegistry.get("bankcards.transfers").counter().count());
     }
 
     @Test
@@ -165,7 +242,7 @@ class TransferServiceTest {
     void transferBetweenCards_WhenCardNotFound_ThenThrowCardNotFoundException() {
         TransferRequest req = buildRequest(fromCard.getId(), toCard.getId(), BigDecimal.TEN, "Missing card");
 
-        when(cardRepository.findById(fromCard.getId())).thenReturn(Optional.empty());
+        when(cardRepository.findByIdForUpdate(fromCard.getId())).thenReturn(Optional.empty());
 
         assertThrows(CardNotFoundException.class, () -> transferService.transferBetweenCards(req));
     }
@@ -184,7 +261,7 @@ class TransferServiceTest {
         when(cardRepository.findById(otherCard.getId())).thenReturn(Optional.of(otherCard));
 
         assertThrows(AccessDeniedException.class,
-                () -> transferService.getTransferHistory(0, 5, otherCard.getId()));
+                () -> transferService.getTransferHistory(0, 5, otherCard.getId(), false));
     }
 
     @Test
@@ -196,6 +273,38 @@ class TransferServiceTest {
         when(userRepository.findByLogin("ghost")).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class,
-                () -> transferService.getTransferHistory(0, 5, null));
+                () -> transferService.getTransferHistory(0, 5, null, false));
+    }
+
+    @Test
+    @DisplayName("Should page a user's history without counting unless a total is requested")
+    void getTransferHistory_WhenUser_ThenSliceWithoutCount() {
+        TransferDto dto = new TransferDto(UUID.randomUUID(), fromCard.getId(), toCard.getId(), BigDecimal.TEN,
+                "rent", LocalDateTime.now());
+        when(transferRepository.findDtoByUserId(eq(user.getId()), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(dto), PageRequest.of(0, 1), true));
+        when(transferRepository.countByUserId(user.getId())).thenReturn(7L);
+
+        SlicePage<TransferDto> page = transferService.getTransferHistory(0, 1, null, false);
+        SlicePage<TransferDto> counted = transferService.getTransferHistory(0, 1, null, true);
+
+        assertEquals(List.of(dto), page.getContent());
+        assertTrue(page.isHasNext());
+        assertNull(page.getTotalElements());
+        assertEquals(7L, counted.getTotalElements());
+        verify(transferRepository, times(1)).countByUserId(user.getId());
+    }
+
+    @Test
+    @DisplayName("Should estimate the total of all transfers for admins and count only before the first analyze")
+    void getTransferHistory_WhenAdminRequestsTotal_ThenUseEstimate() {
+        user.setRole(UserRole.ADMIN);
+        when(transferRepository.findAllDto(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of()));
+        when(transferRepository.estimateCount()).thenReturn(125_000L, -1L);
+        when(transferRepository.count()).thenReturn(3L);
+
+        assertEquals(125_000L, transferService.getTransferHistory(0, 10, null, true).getTotalElements());
+        assertEquals(3L, transferService.getTransferHistory(0, 10, null, true).getTotalElements());
+        verify(transferRepository, times(1)).count();
     }
 }
@@ -0,0 +1,152 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.cache.UserExistenceFilter;
+import com.example.bankcards.dto.UserImportReport;
+import com.example.bankcards.dto.UserImportRowResult;
+import com.example.bankcards.exception.InvalidImportException;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+
+    private static final String CSV_HEADER = "login,password,email,firstName,lastName\n";
+
+    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
+    private BCryptPasswordEncoder encoder;
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        encoder = mock(BCryptPasswordEncoder.class);
+        importService = newService(2);
+
+        when(encoder.encode(anyString())).thenAnswer(inv -> "hashed-" + inv.getArgument(0));
+        when(userRepository.findExistingLogins(any())).thenReturn(Set.of());
+        when(userRepository.findExistingEmails(any())).thenReturn(Set.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    private UserImportService newService(int chunkSize) {
+        return new UserImportService(userRepository, mock(UserExistenceFilter.class), jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), encoder,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), chunkSize, 2);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should hash and batch insert every valid CSV row")
+    void importUsers_WhenCsvRowsValid_ThenInsertInBatches() throws Exception {
+        String csv = CSV_HEADER
+                + "alice,Password1,alice@bank.com,Alice,Smith\n"
+                + "bob,\"Pass,word1\",bob@bank.com,Bob,Brown\n"
+                + "carol,Password3,carol@bank.com,Carol,White\n";
+
+        UserImportReport report = importService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        assertEquals(3, report.getCreated());
+        assertEquals(List.of(2L, 3L, 4L), report.getResults().stream().map(UserImportRowResult::getLine).toList());
+        verify(encoder).encode("Pass,word1");
+        verify(userRepository, times(2)).findExistingLogins(any());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @DisplayName("Should report duplicates and invalid rows without inserting them")
+    void importUsers_WhenRowsDuplicateOrInvalid_ThenReportThem() throws Exception {
+        importService = newService(10);
+        when(userRepository.findExistingLogins(any())).thenReturn(Set.of("taken"));
+        String csv = CSV_HEADER
+                + "taken,Password1,taken@bank.com,Tom,Taken\n"
+                + "alice,Password1,alice@bank.com,Alice,Smith\n"
+                + "alice,Password2,alice2@bank.com,Alice,Again\n"
+                + "bad,short,not-an-email,B,C\n"
+                + "broken,row\n";
+
+        UserImportReport report = importService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        assertEquals(5, report.getTotal());
+        assertEquals(1, report.getCreated());
+        assertEquals(2, report.getDuplicates());
+        assertEquals(2, report.getInvalid());
+        assertEquals(UserImportRowResult.Status.DUPLICATE, report.getResults().get(0).getStatus());
+        assertEquals(UserImportRowResult.Status.CREATED, report.getResults().get(1).getStatus());
+        verify(encoder, times(1)).encode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should parse NDJSON rows")
+    void importUsers_WhenNdjson_ThenParseEachLine() throws Exception {
+        String ndjson = """
+                {"login":"alice","password":"Password1","email":"alice@bank.com","firstName":"Alice","lastName":"Smith"}
+                {"login":"bob","password":"Password2","email":"bob@bank.com","firstName":"Bob","lastName":"Brown"}
+                not json
+                """;
+
+        UserImportReport report = importService.importUsers(stream(ndjson), UserImportService.Format.NDJSON);
+
+        assertEquals(2, report.getCreated());
+        assertEquals(1, report.getInvalid());
+        assertEquals(3, report.getResults().get(2).getLine());
+    }
+
+    @Test
+    @DisplayName("Should fall back to single inserts when batch hits unique constraint")
+    void importUsers_WhenBatchConflicts_ThenRetryRowByRow() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DuplicateKeyException("users_login_key"));
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class)))
+                .thenReturn(1)
+                .thenThrow(new DuplicateKeyException("users_login_key"));
+        String csv = CSV_HEADER
+                + "alice,Password1,alice@bank.com,Alice,Smith\n"
+                + "bob,Password2,bob@bank.com,Bob,Brown\n";
+
+        UserImportReport report = importService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        assertEquals(1, report.getCreated());
+        assertEquals(1, report.getDuplicates());
+    }
+
+    @Test
+    @DisplayName("Should reject CSV with unexpected header")
+    void importUsers_WhenHeaderInvalid_ThenThrowException() {
+        assertThrows(InvalidImportException.class,
+                () -> importService.importUsers(stream("login,email\n"), UserImportService.Format.CSV));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
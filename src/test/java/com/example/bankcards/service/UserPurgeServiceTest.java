@@ -0,0 +1,89 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.UserPurgeProgress;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserPurgeServiceTest {
+
+    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
+    private EntityManagerFactory entityManagerFactory;
+    private UserPurgeService purgeService;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(mock(Cache.class));
+        purgeService = new UserPurgeService(userRepository, jdbcTemplate, transactionTemplate, entityManagerFactory, 2, 10);
+    }
+
+    @Test
+    @DisplayName("Should delete transfers and cards in bounded batches before the user row")
+    void purge_WhenUserHasData_ThenDeleteInBatchesAndTrackProgress() {
+        when(jdbcTemplate.update(contains("t.from_card_id"), eq(userId), eq(2))).thenReturn(2, 2, 1);
+        when(jdbcTemplate.update(contains("t.to_card_id"), eq(userId), eq(2))).thenReturn(0);
+        when(jdbcTemplate.update(startsWith("delete from cards"), eq(userId), eq(2))).thenReturn(2, 0);
+
+        UserPurgeProgress progress = purgeService.purge(userId);
+
+        assertEquals(UserPurgeProgress.Status.COMPLETED, progress.getStatus());
+        assertEquals(5, progress.getTransfersDeleted());
+        assertEquals(2, progress.getCardsDeleted());
+        assertNotNull(progress.getFinishedAt());
+        verify(jdbcTemplate, times(3)).update(contains("t.from_card_id"), eq(userId), eq(2));
+        verify(jdbcTemplate).update(startsWith("delete from users"), eq(userId));
+        verify(entityManagerFactory.getCache()).evict(User.class, userId);
+        verify(entityManagerFactory.getCache()).evict(Card.class);
+        assertEquals(List.of(progress), purgeService.getProgress());
+    }
+
+    @Test
+    @DisplayName("Should record failure and keep the user row when a batch fails")
+    void purge_WhenBatchFails_ThenMarkProgressFailed() {
+        when(jdbcTemplate.update(contains("t.from_card_id"), eq(userId), eq(2)))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"));
+
+        assertThrows(QueryTimeoutException.class, () -> purgeService.purge(userId));
+
+        UserPurgeProgress progress = purgeService.getProgress().get(0);
+        assertEquals(UserPurgeProgress.Status.FAILED, progress.getStatus());
+        verify(jdbcTemplate, never()).update(startsWith("delete from users"), eq(userId));
+    }
+
+    @Test
+    @DisplayName("Should continue with other users when one purge fails")
+    void purgeDeletedUsers_WhenOnePurgeFails_ThenPurgeTheRest() {
+        UUID other = UUID.randomUUID();
+        when(userRepository.findDeletedUserIds(Limit.of(10))).thenReturn(List.of(userId, other));
+        when(jdbcTemplate.update(contains("t.from_card_id"), eq(userId), eq(2)))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"));
+
+        purgeService.purgeDeletedUsers();
+
+        verify(jdbcTemplate).update(startsWith("delete from users"), eq(other));
+    }
+}
@@ -1,27 +1,34 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.cache.UserExistenceFilter;
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.dto.request.UserUpdateRequest;
-import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.exception.InvalidCursorException;
 import com.example.bankcards.exception.UserAlreadyExistsException;
 import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -31,7 +38,9 @@ import static org.mockito.Mockito.*;
 class UserServiceTest {
 
     private UserRepository userRepository;
+    private CardRepository cardRepository;
     private BCryptPasswordEncoder encoder;
+    private UserExistenceFilter existenceFilter;
     private UserService userService;
 
     private User user;
@@ -39,8 +48,12 @@ class UserServiceTest {
     @BeforeEach
     void setUp() {
         userRepository = mock(UserRepository.class);
+        cardRepository = mock(CardRepository.class);
         encoder = mock(BCryptPasswordEncoder.class);
-        userService = new UserService(userRepository, encoder);
+        UserCache userCache = new UserCache(userRepository, mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), "", 100, 10, false);
+        existenceFilter = mock(UserExistenceFilter.class);
+        when(existenceFilter.mightContainEmail(anyString())).thenReturn(true);
+        userService = new UserService(userRepository, cardRepository, userCache, existenceFilter, encoder);
 
         user = User.builder()
                 .id(UUID.randomUUID())
@@ -107,31 +120,32 @@ class UserServiceTest {
 
     @Test
     @DisplayName("Should return empty page when no users found")
-    void deleteUser_WhenNoCardsWithBalance_ThenDeleteSuccessfully() {
-        user.setCards(List.of(Card.builder().balance(BigDecimal.ZERO).build()));
+    void deleteUser_WhenNoCardsWithBalance_ThenMarkUserDeleted() {
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(cardRepository.existsByOwner_IdAndBalanceGreaterThan(user.getId(), BigDecimal.ZERO)).thenReturn(false);
 
         userService.deleteUser(user.getId());
 
-        verify(userRepository).deleteById(user.getId());
+        verify(userRepository).markDeleted(eq(user.getId()), any(LocalDateTime.class));
+        verify(userRepository, never()).deleteById(any());
     }
 
     @Test
     @DisplayName("Should throw exception when card with negative balance exists")
     void deleteUser_WhenCardWithPositiveBalanceExists_ThenThrowException() {
-        user.setCards(List.of(Card.builder().balance(BigDecimal.valueOf(100)).build()));
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(cardRepository.existsByOwner_IdAndBalanceGreaterThan(user.getId(), BigDecimal.ZERO)).thenReturn(true);
 
         assertThrows(IllegalStateException.class,
                 () -> userService.deleteUser(user.getId()));
-        verify(userRepository, never()).deleteById(any());
+        verify(userRepository, never()).markDeleted(any(), any());
     }
 
     @Test
     @DisplayName("Should throw exception when user not found")
     void updateUser_WhenValidDataProvided_ThenUpdateUserFields() {
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
 
         UserUpdateRequest req = new UserUpdateRequest();
         req.setEmail("new@example.com");
@@ -146,7 +160,7 @@ class UserServiceTest {
         assertEquals("new@example.com", dto.getEmail());
         assertEquals("New", dto.getFirstName());
         assertEquals(UserRole.ADMIN, dto.getRole());
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).saveAndFlush(any(User.class));
     }
 
     @Test
@@ -160,14 +174,14 @@ class UserServiceTest {
 
         assertThrows(UserAlreadyExistsException.class,
                 () -> userService.updateUser(user.getId(), req));
-        verify(userRepository, never()).save(any());
+        verify(userRepository, never()).saveAndFlush(any());
     }
 
     @Test
     @DisplayName("Should keep original values when no fields provided")
     void updateUser_WhenFieldsAreBlankOrNull_ThenKeepOriginalValues() {
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
 
         UserUpdateRequest req = new UserUpdateRequest();
         req.setEmail(" ");
@@ -182,4 +196,81 @@ class UserServiceTest {
         assertEquals(user.getLastName(), dto.getLastName());
         assertEquals(user.getRole(), dto.getRole());
     }
+
+    @Test
+    @DisplayName("Should throw exception when email is taken concurrently")
+    void updateUser_WhenUniqueConstraintViolated_ThenThrowException() {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(existenceFilter.mightContainEmail("race@example.com")).thenReturn(false);
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate key", new SQLException("23505"), User.EMAIL_CONSTRAINT)));
+
+        UserUpdateRequest req = new UserUpdateRequest();
+        req.setEmail("race@example.com");
+
+        assertThrows(UserAlreadyExistsException.class,
+                () -> userService.updateUser(user.getId(), req));
+        verify(userRepository, never()).existsByEmail(any());
+    }
+
+    @Test
+    @DisplayName("Should return first keyset page with next cursor and without count")
+    void getUsersByCursor_WhenNoCursor_ThenStartFromBeginning() {
+        UUID lastId = UUID.randomUUID();
+        Window<User> window = Window.from(List.of(user),
+                index -> ScrollPosition.forward(Map.of("lastName", "Doe", "id", lastId)), true);
+        when(userRepository.findByDeletedAtIsNull(any(ScrollPosition.class), any(Sort.class), any(Limit.class))).thenReturn(window);
+
+        CursorPage<UserDto> page = userService.getUsersByCursor("lastName", null, 1, false);
+
+        assertEquals(1, page.getContent().size());
+        assertTrue(page.isHasNext());
+        assertNotNull(page.getNextCursor());
+        assertNull(page.getTotalElements());
+        verify(userRepository, never()).count();
+
+        ArgumentCaptor<ScrollPosition> position = ArgumentCaptor.forClass(ScrollPosition.class);
+        ArgumentCaptor<Sort> sort = ArgumentCaptor.forClass(Sort.class);
+        verify(userRepository).findByDeletedAtIsNull(position.capture(), sort.capture(), eq(Limit.of(1)));
+        assertTrue(position.getValue().isInitial());
+        assertEquals(Sort.by(Sort.Direction.DESC, "lastName", "id"), sort.getValue());
+    }
+
+    @Test
+    @DisplayName("Should resume from the position encoded in the cursor")
+    void getUsersByCursor_WhenCursorProvided_ThenResumeAfterIt() {
+        UUID lastId = UUID.randomUUID();
+        Window<User> first = Window.from(List.of(user),
+                index -> ScrollPosition.forward(Map.of("lastName", "Doe", "id", lastId)), true);
+        Window<User> last = Window.from(List.of(), index -> ScrollPosition.keyset(), false);
+        when(userRepository.findByDeletedAtIsNull(any(ScrollPosition.class), any(Sort.class), any(Limit.class)))
+                .thenReturn(first, last);
+        when(userRepository.countByDeletedAtIsNull()).thenReturn(1L);
+
+        String cursor = userService.getUsersByCursor("lastName", null, 1, false).getNextCursor();
+        CursorPage<UserDto> page = userService.getUsersByCursor("lastName", cursor, 1, true);
+
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+        assertEquals(1L, page.getTotalElements());
+
+        ArgumentCaptor<ScrollPosition> position = ArgumentCaptor.forClass(ScrollPosition.class);
+        verify(userRepository, times(2)).findByDeletedAtIsNull(position.capture(), any(Sort.class), any(Limit.class));
+        KeysetScrollPosition resumed = (KeysetScrollPosition) position.getAllValues().get(1);
+        assertEquals(Map.of("lastName", "Doe", "id", lastId), resumed.getKeys());
+    }
+
+    @Test
+    @DisplayName("Should reject cursor issued for another sort field")
+    void getUsersByCursor_WhenCursorForOtherSort_ThenThrowException() {
+        Window<User> window = Window.from(List.of(user),
+                index -> ScrollPosition.forward(Map.of("login", "jdoe", "id", user.getId())), true);
+        when(userRepository.findByDeletedAtIsNull(any(ScrollPosition.class), any(Sort.class), any(Limit.class))).thenReturn(window);
+        String cursor = userService.getUsersByCursor("login", null, 1, false).getNextCursor();
+
+        assertThrows(InvalidCursorException.class,
+                () -> userService.getUsersByCursor("email", cursor, 1, false));
+        assertThrows(InvalidCursorException.class,
+                () -> userService.getUsersByCursor("email", "garbage", 1, false));
+    }
 }
@@ -0,0 +1,110 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.cache.UserExistenceFilter;
+import com.example.bankcards.dto.request.UserRegistrationRequest;
+import com.example.bankcards.dto.request.UserUpdateRequest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.UserAlreadyExistsException;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Registers over a login and an email that another node took, which this node's existence filter has never seen,
+ * so only the unique constraints catch the duplicate.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=false")
+@Import({AuthService.class, UserService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserUniquenessTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private UserCache userCache;
+
+    @MockBean
+    private UserExistenceFilter existenceFilter;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private BCryptPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        userRepository.save(user("taken", "taken@example.com"));
+        when(encoder.encode(any())).thenReturn("hash");
+    }
+
+    @Test
+    @DisplayName("Should report a login taken on another node as already existing")
+    void register_WhenLoginTakenElsewhere_ThenThrowUserAlreadyExists() {
+        UserAlreadyExistsException e = assertThrows(UserAlreadyExistsException.class,
+                () -> authService.register(registration("taken", "fresh@example.com")));
+
+        assertTrue(e.getMessage().contains("login: taken"), e.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should report an email taken on another node as already in use")
+    void register_WhenEmailTakenElsewhere_ThenThrowUserAlreadyExists() {
+        UserAlreadyExistsException e = assertThrows(UserAlreadyExistsException.class,
+                () -> authService.register(registration("fresh", "taken@example.com")));
+
+        assertTrue(e.getMessage().contains("taken@example.com"), e.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should report an email taken on another node when a user changes theirs")
+    void updateUser_WhenEmailTakenElsewhere_ThenThrowUserAlreadyExists() {
+        User other = userRepository.save(user("other", "other@example.com"));
+        UserUpdateRequest request = new UserUpdateRequest();
+        request.setEmail("taken@example.com");
+
+        assertThrows(UserAlreadyExistsException.class, () -> userService.updateUser(other.getId(), request));
+    }
+
+    private static UserRegistrationRequest registration(String login, String email) {
+        UserRegistrationRequest request = new UserRegistrationRequest();
+        request.setLogin(login);
+        request.setPassword("Password123");
+        request.setEmail(email);
+        request.setFirstName("John");
+        request.setLastName("Doe");
+        return request;
+    }
+
+    private static User user(String login, String email) {
+        return User.builder()
+                .login(login)
+                .passwordHash("hash")
+                .email(email)
+                .firstName("John")
+                .lastName("Doe")
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.slowquery;
+
+import com.example.bankcards.dto.SlowQueryDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryDataSourceTest {
+
+    private final DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:slow;DB_CLOSE_DELAY=-1", "sa", "");
+    private SlowQueryRecorder recorder;
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(h2).execute("drop table if exists audit");
+        recorder.close();
+    }
+
+    @Test
+    @DisplayName("Should record slow statements with parameter types and the repository method that sent them")
+    void execute_WhenSlow_ThenRecordShapeAndOrigin() {
+        AuditLog auditLog = auditLog(new SlowQueryRecorder(0, 0, 1000, 10));
+
+        auditLog.append(UUID.randomUUID(), null);
+
+        SlowQueryDto query = recorder.recent(1).get(0);
+        assertEquals("insert into audit (id, note) values (?, ?)", query.getSql());
+        assertEquals(List.of("UUID", "null"), query.getParameterTypes());
+        assertEquals("AuditLog.append", query.getOrigin());
+        assertNull(query.getPlan());
+    }
+
+    @Test
+    @DisplayName("Should not record statements under the threshold")
+    void execute_WhenFast_ThenRecordNothing() {
+        AuditLog auditLog = auditLog(new SlowQueryRecorder(60_000, 1, 1000, 10));
+
+        auditLog.append(UUID.randomUUID(), "note");
+
+        assertTrue(recorder.recent(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep only the newest slow queries, newest first")
+    void record_WhenFull_ThenOverwriteOldest() {
+        auditLog(new SlowQueryRecorder(0, 0, 1000, 2));
+        JdbcTemplate jdbc = new JdbcTemplate(new SlowQueryDataSource(h2, recorder));
+
+        for (int i = 0; i < 3; i++) {
+            jdbc.queryForObject("select count(*) from audit where note = ?", Integer.class, "note " + i);
+        }
+        jdbc.queryForObject("select count(*) from audit", Integer.class);
+
+        List<SlowQueryDto> recent = recorder.recent(10);
+        assertEquals(List.of("select count(*) from audit", "select count(*) from audit where note = ?"),
+                recent.stream().map(SlowQueryDto::getSql).toList());
+        assertEquals(List.of(), recent.get(0).getParameterTypes());
+        assertEquals(List.of("String"), recent.get(1).getParameterTypes());
+
+        recorder.clear();
+        assertTrue(recorder.recent(10).isEmpty());
+    }
+
+    private AuditLog auditLog(SlowQueryRecorder slowQueryRecorder) {
+        recorder = slowQueryRecorder;
+        JdbcTemplate jdbc = new JdbcTemplate(new SlowQueryDataSource(h2, recorder));
+        new JdbcTemplate(h2).execute("create table audit (id uuid, note varchar(100))");
+        ProxyFactory proxyFactory = new ProxyFactory(new JdbcAuditLog(jdbc));
+        proxyFactory.addInterface(AuditLog.class);
+        proxyFactory.addAdvice(new QueryOrigin());
+        return (AuditLog) proxyFactory.getProxy();
+    }
+
+    public interface AuditLog {
+        void append(UUID id, String note);
+    }
+
+    record JdbcAuditLog(JdbcTemplate jdbc) implements AuditLog {
+
+        @Override
+        public void append(UUID id, String note) {
+            jdbc.update("insert into audit (id, note) values (?, ?)", id, note);
+        }
+    }
+}
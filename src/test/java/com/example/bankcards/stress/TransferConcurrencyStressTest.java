@@ -0,0 +1,243 @@
+package com.example.bankcards.stress;
+
+import com.example.bankcards.cache.UserCache;
+import com.example.bankcards.datasource.ReadYourWritesWindow;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.events.CardEventPublisher;
+import com.example.bankcards.exception.CardOperationException;
+import com.example.bankcards.metrics.BankcardsMetrics;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardVersionRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.TransferConcurrency;
+import com.example.bankcards.service.TransferService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs thousands of concurrent transfers over a few hot cards against Postgres, once per
+ * {@link TransferConcurrency}, and checks that money is neither created nor lost: the total balance is unchanged,
+ * no card is negative, and every card's balance matches its transfers, so no update overwrote another. Deadlocks
+ * come from the database's own counter. Run with {@code mvn test -Dgroups=stress -DexcludedGroups=none}.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=" + TransferConcurrencyStressTest.THREADS,
+        "bankcards.user-cache.notify-enabled=false",
+        "bankcards.card-events.relay-enabled=false"})
+@Testcontainers(disabledWithoutDocker = true)
+@Tag("stress")
+class TransferConcurrencyStressTest {
+
+    static final int THREADS = 32;
+    private static final int CARDS = 8;
+    private static final int TRANSFERS = 4_000;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    private static final List<String> REPORT = new ArrayList<>();
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private ReadYourWritesWindow readYourWritesWindow;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CardEventPublisher cardEventPublisher;
+
+    @AfterAll
+    static void printReport() {
+        System.out.printf("%n%-14s %9s %9s %8s %8s %8s %9s %13s %9s%n", "strategy", "completed", "rejected",
+                "gave up", "retries", "deadlock", "lost upd", "transfers/s", "p99 ms");
+        REPORT.forEach(System.out::println);
+    }
+
+    @ParameterizedTest
+    @EnumSource(TransferConcurrency.class)
+    @DisplayName("Concurrent transfers over hot cards conserve money and lose no updates")
+    void transfers_WhenConcurrentOnHotCards_ThenBalancesConserved(TransferConcurrency concurrency) throws Exception {
+        User owner = userRepository.save(owner(concurrency));
+        List<UUID> cards = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cards.add(cardRepository.save(card(owner)).getId());
+        }
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TransferService transferService = new TransferService(transferRepository, cardRepository,
+                new CardVersionRepository(jdbcTemplate), cardEventPublisher, userCache,
+                readYourWritesWindow, new BankcardsMetrics(meterRegistry), transactionManager, concurrency, MAX_ATTEMPTS);
+
+        long deadlocksBefore = deadlocks();
+        Outcomes outcomes = run(transferService, owner.getLogin(), cards);
+        // the statistics of a backend reach the shared counters within a second of it going idle
+        Thread.sleep(1_500);
+        long deadlocks = deadlocks() - deadlocksBefore;
+
+        BigDecimal total = jdbcTemplate.queryForObject(
+                "select sum(balance) from cards where user_id = ?", BigDecimal.class, owner.getId());
+        Integer negative = jdbcTemplate.queryForObject(
+                "select count(*) from cards where user_id = ? and balance < 0", Integer.class, owner.getId());
+        // a card whose balance differs from its starting balance plus its transfers had an update overwritten
+        Integer lostUpdates = jdbcTemplate.queryForObject("""
+                select count(*) from cards c
+                where c.user_id = ? and c.balance <> ?
+                    + coalesce((select sum(t.amount) from transfers t where t.to_card_id = c.id), 0)
+                    - coalesce((select sum(t.amount) from transfers t where t.from_card_id = c.id), 0)
+                """, Integer.class, owner.getId(), INITIAL_BALANCE);
+        Integer recorded = jdbcTemplate.queryForObject(
+                "select count(*) from transfers t join cards c on c.id = t.from_card_id where c.user_id = ?",
+                Integer.class, owner.getId());
+        double retries = meterRegistry.get("bankcards.transfers.retries").counter().count();
+
+        REPORT.add(String.format("%-14s %9d %9d %8d %8.0f %8d %9d %13.0f %9.1f", concurrency,
+                outcomes.completed.get(), outcomes.rejected.get(), outcomes.gaveUp.get(), retries, deadlocks,
+                lostUpdates, outcomes.completed.get() * 1e9 / outcomes.elapsedNanos, outcomes.p99Millis()));
+
+        assertTrue(outcomes.errors.isEmpty(), () -> "Unexpected failures: " + outcomes.errors);
+        assertTrue(outcomes.completed.get() > 0);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)).compareTo(total), "Total balance changed");
+        assertEquals(0, negative, "Cards with a negative balance");
+        assertEquals(0, lostUpdates, "Cards whose balance does not match their transfers");
+        assertEquals(outcomes.completed.get(), recorded, "Completed transfers and recorded transfers differ");
+    }
+
+    private Outcomes run(TransferService transferService, String login, List<UUID> cards) throws InterruptedException {
+        Outcomes outcomes = new Outcomes();
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            pool.execute(() -> {
+                SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(login, null));
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (next.getAndIncrement() < TRANSFERS) {
+                    int from = random.nextInt(CARDS);
+                    int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+                    TransferRequest request = new TransferRequest();
+                    request.setFromCardId(cards.get(from));
+                    request.setToCardId(cards.get(to));
+                    request.setAmount(BigDecimal.valueOf(random.nextInt(1, 20_000), 2));
+                    long started = System.nanoTime();
+                    try {
+                        transferService.transferBetweenCards(request);
+                        outcomes.completed.incrementAndGet();
+                        outcomes.latencies.add(System.nanoTime() - started);
+                    } catch (CardOperationException e) {
+                        outcomes.rejected.incrementAndGet();
+                    } catch (ConcurrencyFailureException e) {
+                        outcomes.gaveUp.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        outcomes.errors.add(e.toString());
+                    }
+                }
+                SecurityContextHolder.clearContext();
+            });
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.MINUTES));
+        outcomes.elapsedNanos = System.nanoTime() - started;
+        return outcomes;
+    }
+
+    private long deadlocks() {
+        Long deadlocks = jdbcTemplate.queryForObject(
+                "select deadlocks from pg_stat_database where datname = current_database()", Long.class);
+        return deadlocks == null ? 0 : deadlocks;
+    }
+
+    private static User owner(TransferConcurrency concurrency) {
+        String login = "stress-" + concurrency.name().toLowerCase() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return User.builder()
+                .login(login)
+                .passwordHash("hash")
+                .email(login + "@example.com")
+                .firstName("Stress")
+                .lastName("Test")
+                .role(UserRole.USER)
+                .build();
+    }
+
+    private static Card card(User owner) {
+        String number = String.format("%016d", ThreadLocalRandom.current().nextLong(1_000_000_000_000_000L));
+        return Card.builder()
+                .cardNumberEncrypted(number)
+                .last4(number.substring(12))
+                .cardHolderName("STRESS TEST")
+                .balance(INITIAL_BALANCE)
+                .owner(owner)
+                .build();
+    }
+
+    private static final class Outcomes {
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private final AtomicInteger gaveUp = new AtomicInteger();
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+        private long elapsedNanos;
+
+        private double p99Millis() {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            return sorted.length == 0 ? 0 : sorted[(int) (sorted.length * 0.99)] / 1e6;
+        }
+    }
+}
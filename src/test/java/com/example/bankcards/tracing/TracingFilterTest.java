@@ -0,0 +1,126 @@
+package com.example.bankcards.tracing;
+
+import com.example.bankcards.dto.SpanDto;
+import com.example.bankcards.dto.TraceDto;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracingFilterTest {
+
+    private final TraceBuffer buffer = new TraceBuffer(3);
+
+    @Test
+    @DisplayName("Should record nested spans of a sampled request and return its id")
+    void doFilter_WhenSampled_ThenRecordNestedSpans() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new TracingFilter(1, 500, buffer).doFilter(new MockHttpServletRequest("GET", "/api/cards"), response,
+                (request, resp) -> {
+                    try (Span service = Tracing.span("CardService.getAllCards")) {
+                        try (Span sql = Tracing.span("jdbc.executeQuery", "select 1")) {
+                            assertTrue(Tracing.isActive());
+                        }
+                    }
+                });
+
+        TraceDto trace = buffer.recent(1).get(0);
+        assertEquals(trace.getId().toString(), response.getHeader(TracingFilter.TRACE_ID_HEADER));
+        assertEquals("GET /api/cards", trace.getName());
+        assertEquals(List.of("GET /api/cards", "CardService.getAllCards", "jdbc.executeQuery"),
+                trace.getSpans().stream().map(SpanDto::getName).toList());
+        assertEquals(List.of(0, 1, 2), trace.getSpans().stream().map(SpanDto::getDepth).toList());
+        assertEquals("select 1", trace.getSpans().get(2).getDetail());
+        assertFalse(Tracing.isActive());
+    }
+
+    @Test
+    @DisplayName("Should drop spans past the per-trace limit")
+    void doFilter_WhenTooManySpans_ThenCountDropped() throws Exception {
+        new TracingFilter(1, 3, buffer).doFilter(new MockHttpServletRequest("GET", "/api/cards"),
+                new MockHttpServletResponse(), (request, response) -> {
+                    for (int i = 0; i < 5; i++) {
+                        Tracing.span("pan.decrypt").close();
+                    }
+                });
+
+        TraceDto trace = buffer.recent(1).get(0);
+        assertEquals(3, trace.getSpans().size());
+        assertEquals(3, trace.getDroppedSpans());
+    }
+
+    @Test
+    @DisplayName("Should keep only the newest traces, newest first")
+    void add_WhenFull_ThenOverwriteOldest() throws Exception {
+        TracingFilter filter = new TracingFilter(1, 500, buffer);
+        for (String uri : List.of("/a", "/b", "/c", "/d")) {
+            filter.doFilter(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse(), (req, resp) -> { });
+        }
+
+        List<TraceDto> recent = buffer.recent(10);
+        assertEquals(List.of("GET /d", "GET /c", "GET /b"), recent.stream().map(TraceDto::getName).toList());
+        assertEquals(recent.get(1), buffer.find(recent.get(1).getId()).orElseThrow());
+        assertEquals(2, buffer.recent(2).size());
+    }
+
+    @Test
+    @DisplayName("Should not trace or allocate spans when sampling is off")
+    void doFilter_WhenNotSampled_ThenAllocateNothing() throws Exception {
+        TracingFilter filter = new TracingFilter(0, 500, buffer);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cards");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, resp) -> {
+            try (Span span = Tracing.span("pan.decrypt")) {
+                assertSame(Span.NOOP, span);
+            }
+        };
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 20_000; i++) {
+            filter.doFilter(request, response, chain);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            filter.doFilter(request, response, chain);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // tolerate a few stray bytes; a span or context object per request would be 16 or more
+        assertTrue(allocated / 10_000 < 16, allocated + " bytes over 10000 requests");
+        assertNull(response.getHeader(TracingFilter.TRACE_ID_HEADER));
+        assertTrue(buffer.recent(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should record JDBC statements with their SQL and the commit")
+    void getConnection_WhenTracing_ThenRecordStatementsAndCommit() throws Exception {
+        TracingDataSource dataSource = new TracingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:tracing;DB_CLOSE_DELAY=-1", "sa", ""));
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbc.execute("create table if not exists audit (id int)");
+
+        new TracingFilter(1, 500, buffer).doFilter(new MockHttpServletRequest("POST", "/api/transfers"),
+                new MockHttpServletResponse(), (request, response) -> transaction.executeWithoutResult(status -> {
+                    jdbc.update("insert into audit (id) values (?)", 1);
+                    jdbc.queryForObject("select count(*) from audit", Integer.class);
+                }));
+
+        List<SpanDto> spans = buffer.recent(1).get(0).getSpans();
+        assertEquals(List.of("POST /api/transfers", "jdbc.executeUpdate", "jdbc.executeQuery", "jdbc.commit"),
+                spans.stream().map(SpanDto::getName).toList());
+        assertEquals("insert into audit (id) values (?)", spans.get(1).getDetail());
+        assertEquals("select count(*) from audit", spans.get(2).getDetail());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Should never report an inserted value as absent")
+    void mightContain_WhenValueInserted_ThenReturnTrue() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep false positive rate close to the configured one")
+    void mightContain_WhenValueNotInserted_ThenMostlyReturnFalse() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@bank.com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i + "@bank.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Should reject invalid sizing parameters")
+    void constructor_WhenParametersInvalid_ThenThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.5));
+    }
+}
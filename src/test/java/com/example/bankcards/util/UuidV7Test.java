@@ -0,0 +1,56 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7Test {
+
+    @Test
+    @DisplayName("Should set RFC 9562 version 7 and variant bits")
+    void generate_WhenCalled_ThenReturnVersion7Uuid() {
+        UUID uuid = UuidV7.generate();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    @DisplayName("Should store the timestamp in the first 48 bits")
+    void generate_WhenTimestampGiven_ThenEncodeMillisInPrefix() {
+        long millis = 1_760_000_000_000L;
+
+        UUID uuid = UuidV7.generate(millis, new long[1]);
+
+        assertEquals(millis, uuid.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    @DisplayName("Should keep increasing within one millisecond and when the clock moves back")
+    void generate_WhenSameOrEarlierMillis_ThenStillIncrease() {
+        long[] state = new long[1];
+        long millis = 1_760_000_000_000L;
+        UUID previous = UuidV7.generate(millis, state);
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = UuidV7.generate(i % 2 == 0 ? millis : millis - 1_000, state);
+            assertTrue(next.compareTo(previous) > 0, next + " after " + previous);
+            assertEquals(7, next.version());
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("Should order ids from different milliseconds by time")
+    void generate_WhenLaterMillis_ThenSortAfter() {
+        long[] state = new long[1];
+        UUID earlier = UuidV7.generate(1_760_000_000_000L, state);
+        UUID later = UuidV7.generate(1_760_000_000_001L, state);
+
+        assertEquals(1_760_000_000_001L, later.getMostSignificantBits() >>> 16);
+
+        assertTrue(later.compareTo(earlier) > 0);
+    }
+}
@@ -0,0 +1,48 @@
+-- 10 000 users with five cards each and 500 000 transfers, enough for the planner to prefer indexes
+-- over sequential scans wherever a query is selective. Transfers are written in date order, as they are
+-- in production, so the heap correlates with transfer_date.
+INSERT INTO users (id, login, password_hash, email, first_name, last_name, role, created_at, updated_at, deleted_at)
+SELECT gen_random_uuid(),
+       'user' || n,
+       'hash',
+       'user' || n || '@bankcards.local',
+       'First' || n % 500,
+       'Last' || n % 700,
+       'USER',
+       timestamp '2024-01-01' + n * interval '1 minute',
+       timestamp '2024-01-01' + n * interval '1 minute',
+       CASE WHEN n % 100 = 0 THEN timestamp '2025-01-01' + n * interval '1 second' END
+FROM generate_series(1, 10000) n;
+
+INSERT INTO cards (id, card_number_encrypted, last4, card_holder_name, balance, user_id, created_date, expiry_date,
+                   status, block_requested)
+SELECT gen_random_uuid(),
+       'seed-' || u.n || '-' || c,
+       lpad(((u.n * 5 + c) % 10000)::text, 4, '0'),
+       'HOLDER ' || u.n,
+       1000,
+       u.id,
+       date '2024-01-01' + ((u.n * 5 + c) % 700)::int,
+       date '2028-01-01' + ((u.n * 5 + c) % 700)::int,
+       CASE WHEN c = 5 THEN 'BLOCKED' WHEN c = 4 AND u.n % 10 = 0 THEN 'EXPIRED' ELSE 'ACTIVE' END,
+       c = 1 AND u.n % 100 = 0
+FROM (SELECT id, row_number() OVER (ORDER BY login) AS n FROM users WHERE role = 'USER') u,
+     generate_series(1, 5) c;
+
+WITH owned AS (SELECT id,
+                      dense_rank() OVER (ORDER BY user_id)                               AS owner_no,
+                      row_number() OVER (PARTITION BY user_id ORDER BY card_number_encrypted) AS slot
+               FROM cards)
+INSERT INTO transfers (id, from_card_id, to_card_id, amount, description, transfer_date)
+SELECT gen_random_uuid(),
+       f.id,
+       t.id,
+       10,
+       'seed',
+       timestamp '2024-01-01' + g * interval '1 minute'
+FROM generate_series(1, 500000) g
+         JOIN owned f ON f.owner_no = g % 10000 + 1 AND f.slot = g % 5 + 1
+         JOIN owned t ON t.owner_no = f.owner_no AND t.slot = (g + 1) % 5 + 1
+ORDER BY g;
+
+ANALYZE;